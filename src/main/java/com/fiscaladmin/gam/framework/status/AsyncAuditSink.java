@@ -0,0 +1,398 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.apps.form.dao.FormDataDao;
+import org.joget.commons.util.LogUtil;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Audit sink that queues entries in a bounded in-memory buffer and writes
+ * them to {@code audit_log} from a background thread.
+ * <p>
+ * The writer flushes a batch when it reaches {@code batchSize} entries or when
+ * {@code flushIntervalMillis} has elapsed since the first entry of the batch
+ * arrived, whichever comes first. When the queue is full, callers block for up
+ * to {@code offerTimeoutMillis}; if the queue is still full after that, the
+ * entry is written synchronously in the caller's thread through the caller's
+ * DAO, so the pipeline slows down instead of dropping audit rows.
+ * <p>
+ * A failed batch is kept and retried after {@code flushIntervalMillis}. While
+ * it is retried the queue fills up, which pushes callers onto the synchronous
+ * path above.
+ * <p>
+ * With an {@link AuditJournal} attached, entries are appended to the journal
+ * before {@link #write} returns and committed once they are in
+ * {@code audit_log}. Entries left uncommitted by a previous run are replayed
+ * by the writer before it takes anything from the queue.
+ * <p>
+ * The sink owns a daemon thread. Plugins that install it must call
+ * {@link #close()} from their bundle activator's {@code stop()} so the
+ * remaining entries are flushed before the bundle is unloaded.
+ */
+public class AsyncAuditSink implements AuditSink, AutoCloseable {
+
+    private static final String CLASS_NAME = AsyncAuditSink.class.getName();
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+    public static final long DEFAULT_OFFER_TIMEOUT_MILLIS = 1_000;
+
+    /** How long {@link #close()} waits for the writer to drain the queue. */
+    private static final long CLOSE_TIMEOUT_MILLIS = 30_000;
+
+    /** Upper bound on how long the idle writer takes to notice {@link #close()}. */
+    private static final long CLOSE_CHECK_MILLIS = 100;
+
+    private final FormDataDao dao;
+    private final AuditJournal journal;
+    private final Deque<TransitionAuditEntry> replay;
+    private final BlockingQueue<TransitionAuditEntry> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final Thread writer;
+
+    /** Guards the counters below and is notified whenever they change. */
+    private final Object progress = new Object();
+    private long enqueued;
+    private long completed;
+
+    /**
+     * Writers hold the read lock from the {@link #closed} check until their
+     * entries are queued; closing takes the write lock, so no entry can be
+     * queued after the writer thread has seen {@code closed}.
+     */
+    private final ReadWriteLock gate = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    /**
+     * Creates a sink with the default capacity, batch size and timings.
+     *
+     * @param dao the DAO used by the background writer
+     */
+    public AsyncAuditSink(FormDataDao dao) {
+        this(dao, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE,
+                DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_OFFER_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Creates a sink and starts its background writer.
+     *
+     * @param dao                 the DAO used by the background writer
+     * @param capacity            maximum number of queued entries
+     * @param batchSize           maximum entries per {@code saveOrUpdate}
+     * @param flushIntervalMillis maximum time an entry waits for its batch to fill
+     * @param offerTimeoutMillis  how long a caller blocks on a full queue before
+     *                            writing synchronously; {@code 0} never blocks
+     */
+    public AsyncAuditSink(FormDataDao dao, int capacity, int batchSize,
+                          long flushIntervalMillis, long offerTimeoutMillis) {
+        this(dao, null, capacity, batchSize, flushIntervalMillis, offerTimeoutMillis);
+    }
+
+    /**
+     * Creates a journaled sink, schedules replay of the journal's uncommitted
+     * entries, and starts the background writer. The sink takes ownership of
+     * the journal and closes it in {@link #close()}.
+     *
+     * @param dao                 the DAO used by the background writer
+     * @param journal             write-ahead journal, or {@code null} for none
+     * @param capacity            maximum number of queued entries
+     * @param batchSize           maximum entries per {@code saveOrUpdate}
+     * @param flushIntervalMillis maximum time an entry waits for its batch to fill
+     * @param offerTimeoutMillis  how long a caller blocks on a full queue before
+     *                            writing synchronously; {@code 0} never blocks
+     */
+    public AsyncAuditSink(FormDataDao dao, AuditJournal journal, int capacity, int batchSize,
+                          long flushIntervalMillis, long offerTimeoutMillis) {
+        if (dao == null) {
+            throw new IllegalArgumentException("dao must not be null");
+        }
+        if (capacity < 1 || batchSize < 1 || flushIntervalMillis < 1 || offerTimeoutMillis < 0) {
+            throw new IllegalArgumentException("capacity, batchSize and flushIntervalMillis "
+                    + "must be positive; offerTimeoutMillis must not be negative");
+        }
+        this.dao = dao;
+        this.journal = journal;
+        this.replay = journal != null ? new ArrayDeque<>(journal.pending()) : new ArrayDeque<>();
+        this.enqueued = replay.size();
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.writer = new Thread(this::drainLoop, "gam-audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues the entries for the background writer. The caller's {@code dao}
+     * is only used when an entry has to be written synchronously, i.e. when
+     * the queue stays full past the offer timeout or the sink is closed.
+     */
+    @Override
+    public void write(FormDataDao callerDao, List<TransitionAuditEntry> entries) {
+        boolean accepted;
+        List<TransitionAuditEntry> overflow = Collections.emptyList();
+        gate.readLock().lock();
+        try {
+            accepted = !closed;
+            if (accepted) {
+                if (journal != null) {
+                    journal.append(entries);
+                }
+                for (TransitionAuditEntry entry : entries) {
+                    if (!offer(entry)) {
+                        if (overflow.isEmpty()) {
+                            overflow = new ArrayList<>();
+                        }
+                        overflow.add(entry);
+                    }
+                }
+            }
+        } finally {
+            gate.readLock().unlock();
+        }
+        if (!accepted) {
+            SynchronousAuditSink.INSTANCE.write(callerDao, entries);
+            return;
+        }
+        for (TransitionAuditEntry entry : overflow) {
+            List<TransitionAuditEntry> single = Collections.singletonList(entry);
+            SynchronousAuditSink.INSTANCE.write(callerDao, single);
+            commitJournal(single);
+        }
+    }
+
+    /**
+     * Blocks until every entry queued before this call has been written, or
+     * until the timeout elapses.
+     *
+     * @return {@code true} if everything was written within the timeout
+     */
+    public boolean flush(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (progress) {
+            long target = enqueued;
+            while (completed < target) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                progress.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    /** Number of entries queued or in a batch that has not yet been written. */
+    public long getPendingCount() {
+        synchronized (progress) {
+            return enqueued - completed;
+        }
+    }
+
+    /**
+     * Stops accepting entries, flushes everything still queued, and stops the
+     * background writer. Entries written after close go through the caller's
+     * DAO synchronously.
+     */
+    @Override
+    public void close() {
+        markClosed();
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                LogUtil.error(CLASS_NAME, e, "Failed to close audit journal");
+            }
+        }
+        long pending = getPendingCount();
+        if (writer.isAlive() || pending > 0) {
+            LogUtil.warn(CLASS_NAME, "Audit writer stopped with " + pending
+                    + " unwritten audit entries");
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Private helpers
+    // ──────────────────────────────────────────────────────────────────
+
+    private boolean offer(TransitionAuditEntry entry) {
+        // Count before enqueueing so the writer can never complete an entry
+        // that flush() has not yet seen.
+        synchronized (progress) {
+            enqueued++;
+        }
+        boolean accepted;
+        try {
+            accepted = queue.offer(entry, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            complete(1);
+        }
+        return accepted;
+    }
+
+    private void drainLoop() {
+        List<TransitionAuditEntry> batch = new ArrayList<>(batchSize);
+        while (!closed || !queue.isEmpty() || !batch.isEmpty() || !replay.isEmpty()) {
+            try {
+                fill(batch);
+            } catch (InterruptedException e) {
+                // Interrupting the writer (e.g. container shutdown) acts as close()
+                markClosed();
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            if (persist(batch)) {
+                complete(batch.size());
+                batch.clear();
+            } else if (closed) {
+                LogUtil.warn(CLASS_NAME, "Dropping " + batch.size()
+                        + " audit entries after failed final flush");
+                complete(batch.size());
+                batch.clear();
+            } else {
+                pause();
+            }
+        }
+    }
+
+    /**
+     * Adds entries to the batch until it is full or the flush interval since
+     * the first entry has elapsed.
+     */
+    private void fill(List<TransitionAuditEntry> batch) throws InterruptedException {
+        if (batch.isEmpty() && !replay.isEmpty()) {
+            while (batch.size() < batchSize && !replay.isEmpty()) {
+                batch.add(replay.poll());
+            }
+            return;
+        }
+        if (batch.isEmpty()) {
+            TransitionAuditEntry first = pollUntil(deadlineAfter(flushIntervalMillis));
+            if (first == null) {
+                return;
+            }
+            batch.add(first);
+        }
+        long deadline = deadlineAfter(flushIntervalMillis);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            if (batch.size() >= batchSize) {
+                return;
+            }
+            TransitionAuditEntry next = pollUntil(deadline);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Polls the queue until the deadline, waking up every
+     * {@link #CLOSE_CHECK_MILLIS} so that {@link #close()} never waits for a
+     * full flush interval. Returns {@code null} on timeout or once closed and
+     * drained.
+     */
+    private TransitionAuditEntry pollUntil(long deadlineNanos) throws InterruptedException {
+        while (true) {
+            long remaining = deadlineNanos - System.nanoTime();
+            if (closed || remaining <= 0) {
+                return queue.poll();
+            }
+            long slice = Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(CLOSE_CHECK_MILLIS));
+            TransitionAuditEntry entry = queue.poll(slice, TimeUnit.NANOSECONDS);
+            if (entry != null) {
+                return entry;
+            }
+        }
+    }
+
+    private static long deadlineAfter(long millis) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private boolean persist(List<TransitionAuditEntry> batch) {
+        try {
+            SynchronousAuditSink.INSTANCE.write(dao, batch);
+            commitJournal(batch);
+            return true;
+        } catch (RuntimeException e) {
+            LogUtil.error(CLASS_NAME, e, "Failed to write " + batch.size()
+                    + " audit entries; will retry");
+            return false;
+        }
+    }
+
+    private void commitJournal(List<TransitionAuditEntry> written) {
+        if (journal == null) {
+            return;
+        }
+        List<String> ids = new ArrayList<>(written.size());
+        for (TransitionAuditEntry entry : written) {
+            ids.add(entry.getId());
+        }
+        try {
+            journal.commit(ids);
+        } catch (RuntimeException e) {
+            // Uncommitted entries are replayed on restart; replay is idempotent
+            LogUtil.error(CLASS_NAME, e, "Failed to commit " + ids.size()
+                    + " entries to audit journal");
+        }
+    }
+
+    private void pause() {
+        long deadline = deadlineAfter(flushIntervalMillis);
+        try {
+            while (!closed && System.nanoTime() < deadline) {
+                Thread.sleep(Math.min(CLOSE_CHECK_MILLIS, flushIntervalMillis));
+            }
+        } catch (InterruptedException e) {
+            markClosed();
+        }
+    }
+
+    /**
+     * Waits for writers that are queueing entries (at most the offer timeout,
+     * as the writer thread keeps draining meanwhile), then sets {@link #closed}.
+     */
+    private void markClosed() {
+        gate.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            gate.writeLock().unlock();
+        }
+    }
+
+    private void complete(int count) {
+        synchronized (progress) {
+            completed += count;
+            progress.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.fiscaladmin.gam.framework.status;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Default executor for {@link StatusManager#transitionAsync}.
+ * <p>
+ * On Java 11–20 this is a bounded pool of {@value #POOL_SIZE} daemon threads;
+ * further tasks queue. The Java 21 version of this class (in the
+ * multi-release JAR's {@code META-INF/versions/21}) runs every task on its own
+ * virtual thread instead.
+ */
+final class AsyncExecutors {
+
+    static final String THREAD_NAME_PREFIX = "gam-status-async-";
+    static final int POOL_SIZE = 32;
+
+    private AsyncExecutors() {
+    }
+
+    /** Shared by all managers, created on first use. */
+    static Executor defaultExecutor() {
+        return Holder.EXECUTOR;
+    }
+
+    private static final class Holder {
+        static final Executor EXECUTOR = create();
+    }
+
+    private static Executor create() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, THREAD_NAME_PREFIX + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,411 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.commons.util.LogUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * File-backed, append-only write-ahead journal for {@link TransitionAuditEntry}
+ * records, used by {@link AsyncAuditSink} so that queued audit rows survive a
+ * node crash.
+ * <p>
+ * Every entry is appended (and forced to disk, unless disabled) before the
+ * transition that produced it returns. Concurrent appenders share forces: an
+ * appender whose records were covered by another thread's force returns
+ * without forcing again, so one device flush serves every append written
+ * before it started (group commit). Once the entry is in {@code audit_log}
+ * a commit marker is appended. On open, the journal replays all segments and
+ * exposes entries without a commit marker through {@link #pending()}.
+ * <p>
+ * The journal is split into segment files named {@code audit-<seq>.wal}. The
+ * active segment rolls once it exceeds the configured size, and segments are
+ * deleted oldest-first as soon as every entry they contain has been committed,
+ * so the directory only holds the unacknowledged tail.
+ * <p>
+ * Record layout: {@code [int length][byte type][payload][int crc32]}, where the
+ * CRC covers type and payload. A torn or corrupt record at the end of the last
+ * segment (a crash mid-write) is truncated on open.
+ */
+public class AuditJournal implements AutoCloseable {
+
+    private static final String CLASS_NAME = AuditJournal.class.getName();
+
+    public static final long DEFAULT_SEGMENT_BYTES = 16L * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private static final byte TYPE_APPEND = 1;
+    private static final byte TYPE_COMMIT = 2;
+
+    /** Upper bound on a single record, to reject garbage lengths on replay. */
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean forceOnAppend;
+
+    /** Uncommitted entries by ID, in append order. */
+    private final Map<String, TransitionAuditEntry> pending = new LinkedHashMap<>();
+    /** Segment sequence of each uncommitted entry. */
+    private final Map<String, Long> segmentOf = new HashMap<>();
+    /** Uncommitted entry count per segment, oldest first. */
+    private final TreeMap<Long, Integer> outstanding = new TreeMap<>();
+
+    private FileChannel active;
+    private long activeSeq;
+    private boolean closed;
+
+    /** Appends written so far; guarded by {@code this}. */
+    private long appended;
+    /** Appends known to be on the device; guarded by {@link #forceLock}. */
+    private long forced;
+    /** Serializes forces; never acquired while holding {@code this}. */
+    private final Object forceLock = new Object();
+
+    /**
+     * Opens (or creates) a journal in the given directory with the default
+     * segment size and a forced write on every append.
+     */
+    public AuditJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_BYTES, true);
+    }
+
+    /**
+     * Opens (or creates) a journal in the given directory and replays any
+     * existing segments.
+     *
+     * @param directory     directory holding the segment files
+     * @param segmentBytes  size after which the active segment is rolled
+     * @param forceOnAppend whether each append is forced to the storage device;
+     *                      disabling it trades crash safety for throughput
+     */
+    public AuditJournal(Path directory, long segmentBytes, boolean forceOnAppend) throws IOException {
+        if (segmentBytes < 1) {
+            throw new IllegalArgumentException("segmentBytes must be positive");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.forceOnAppend = forceOnAppend;
+        Files.createDirectories(directory);
+
+        List<Long> segments = listSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            replay(segments.get(i), i == segments.size() - 1);
+        }
+        activeSeq = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+        active = openSegment(activeSeq);
+        deleteCommittedSegments();
+
+        if (!pending.isEmpty()) {
+            LogUtil.info(CLASS_NAME, "Audit journal " + directory + " has "
+                    + pending.size() + " uncommitted entries to replay");
+        }
+    }
+
+    /**
+     * Appends the entries and, if configured, forces them to disk before
+     * returning.
+     *
+     * @throws UncheckedIOException if the journal cannot be written
+     */
+    public void append(List<TransitionAuditEntry> entries) {
+        long sequence;
+        synchronized (this) {
+            ensureOpen();
+            try {
+                for (TransitionAuditEntry entry : entries) {
+                    writeRecord(TYPE_APPEND, encode(entry));
+                    pending.put(entry.getId(), entry);
+                    segmentOf.put(entry.getId(), activeSeq);
+                    outstanding.merge(activeSeq, 1, Integer::sum);
+                }
+                sequence = ++appended;
+                rollIfFull();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to audit journal " + directory, e);
+            }
+        }
+        if (forceOnAppend) {
+            forceUpTo(sequence);
+        }
+    }
+
+    /**
+     * Marks entries as persisted in {@code audit_log}. Commit markers are not
+     * forced: losing one only means the entry is replayed, and replaying is
+     * idempotent because the audit row ID is stable.
+     */
+    public synchronized void commit(Collection<String> entryIds) {
+        ensureOpen();
+        try {
+            for (String id : entryIds) {
+                if (pending.remove(id) == null) {
+                    continue;
+                }
+                writeRecord(TYPE_COMMIT, id.getBytes(StandardCharsets.UTF_8));
+                Long seq = segmentOf.remove(id);
+                outstanding.computeIfPresent(seq, (k, count) -> count > 1 ? count - 1 : null);
+            }
+            rollIfFull();
+            deleteCommittedSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to commit to audit journal " + directory, e);
+        }
+    }
+
+    /** Returns a snapshot of all uncommitted entries, oldest first. */
+    public synchronized List<TransitionAuditEntry> pending() {
+        return new ArrayList<>(pending.values());
+    }
+
+    /** Number of segment files currently on disk, including the active one. */
+    public synchronized int getSegmentCount() throws IOException {
+        return listSegments().size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            // Appenders waiting for a force find the channel closed; cover them here
+            active.force(false);
+            active.close();
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Private helpers
+    // ──────────────────────────────────────────────────────────────────
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Audit journal " + directory + " is closed");
+        }
+    }
+
+    /**
+     * Forces the active segment unless a force that started after append
+     * {@code sequence} was written has already completed. Rolled and closed
+     * segments were forced before they were closed.
+     */
+    private void forceUpTo(long sequence) {
+        synchronized (forceLock) {
+            if (forced >= sequence) {
+                return;
+            }
+            FileChannel channel;
+            long target;
+            synchronized (this) {
+                channel = active;
+                target = appended;
+            }
+            try {
+                channel.force(false);
+            } catch (ClosedByInterruptException e) {
+                throw new UncheckedIOException("Interrupted while forcing audit journal " + directory, e);
+            } catch (ClosedChannelException e) {
+                // Rolled or closed after we read it, and forced before that
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to force audit journal " + directory, e);
+            }
+            forced = target;
+        }
+    }
+
+    private void writeRecord(byte type, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 1 + payload.length + 4);
+        buffer.putInt(payload.length).put(type).put(payload).putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            active.write(buffer);
+        }
+    }
+
+    private void rollIfFull() throws IOException {
+        if (active.size() >= segmentBytes) {
+            active.force(false);
+            active.close();
+            activeSeq++;
+            active = openSegment(activeSeq);
+        }
+    }
+
+    /**
+     * Deletes the oldest segments while they hold no uncommitted entries.
+     * Deleting strictly in order keeps every commit marker at or after its
+     * append, so a replay never resurrects a committed entry.
+     */
+    private void deleteCommittedSegments() throws IOException {
+        for (Long seq : listSegments()) {
+            if (seq >= activeSeq || outstanding.containsKey(seq)) {
+                return;
+            }
+            Files.deleteIfExists(segmentPath(seq));
+        }
+    }
+
+    private void replay(long seq, boolean last) throws IOException {
+        Path path = segmentPath(seq);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(5);
+            while (position < size) {
+                header.clear();
+                if (!readFully(channel, header, position)) {
+                    break;
+                }
+                header.flip();
+                int length = header.getInt();
+                byte type = header.get();
+                if (length < 0 || length > MAX_RECORD_BYTES || position + 9 + length > size) {
+                    break;
+                }
+                ByteBuffer body = ByteBuffer.allocate(length + 4);
+                if (!readFully(channel, body, position + 5)) {
+                    break;
+                }
+                body.flip();
+                byte[] payload = new byte[length];
+                body.get(payload);
+                CRC32 crc = new CRC32();
+                crc.update(type);
+                crc.update(payload);
+                if (body.getInt() != (int) crc.getValue()) {
+                    break;
+                }
+                apply(seq, type, payload);
+                position += 9 + length;
+            }
+            if (position < size) {
+                if (last) {
+                    LogUtil.warn(CLASS_NAME, "Truncating torn tail of audit journal segment "
+                            + path + " at offset " + position);
+                    channel.truncate(position);
+                } else {
+                    LogUtil.warn(CLASS_NAME, "Ignoring corrupt data in audit journal segment "
+                            + path + " after offset " + position);
+                }
+            }
+        }
+    }
+
+    private void apply(long seq, byte type, byte[] payload) throws IOException {
+        if (type == TYPE_APPEND) {
+            TransitionAuditEntry entry = decode(payload);
+            pending.put(entry.getId(), entry);
+            segmentOf.put(entry.getId(), seq);
+            outstanding.merge(seq, 1, Integer::sum);
+        } else if (type == TYPE_COMMIT) {
+            String id = new String(payload, StandardCharsets.UTF_8);
+            if (pending.remove(id) != null) {
+                Long appendSeq = segmentOf.remove(id);
+                outstanding.computeIfPresent(appendSeq, (k, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private FileChannel openSegment(long seq) throws IOException {
+        return FileChannel.open(segmentPath(seq), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path segmentPath(long seq) {
+        return directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, seq, SEGMENT_SUFFIX));
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                String digits = name.substring(SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length());
+                try {
+                    segments.add(Long.parseLong(digits));
+                } catch (NumberFormatException e) {
+                    LogUtil.warn(CLASS_NAME, "Ignoring unexpected file in audit journal: " + path);
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static byte[] encode(TransitionAuditEntry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeString(out, entry.getId());
+            writeString(out, entry.getEntityType());
+            writeString(out, entry.getEntityId());
+            writeString(out, entry.getFromStatus());
+            writeString(out, entry.getToStatus());
+            writeString(out, entry.getTriggeredBy());
+            writeString(out, entry.getReason());
+            writeString(out, entry.getTimestamp());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static TransitionAuditEntry decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            return new TransitionAuditEntry(readString(in), readString(in), readString(in),
+                    readString(in), readString(in), readString(in), readString(in),
+                    readString(in));
+        }
+    }
+
+    /** Length-prefixed UTF-8; length -1 encodes {@code null}. */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
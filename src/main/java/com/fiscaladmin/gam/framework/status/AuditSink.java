@@ -0,0 +1,24 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.apps.form.dao.FormDataDao;
+
+import java.util.List;
+
+/**
+ * Destination for {@link TransitionAuditEntry} records produced by
+ * {@link StatusManager}.
+ * <p>
+ * The default sink is {@link SynchronousAuditSink}, which writes each batch to
+ * {@code audit_log} in the caller's thread. {@link AsyncAuditSink} moves the
+ * insert onto a background writer.
+ */
+public interface AuditSink {
+
+    /**
+     * Persist (or schedule persistence of) the given audit entries.
+     *
+     * @param dao     the caller's FormDataDao; synchronous sinks write through it
+     * @param entries entries in transition order; never empty
+     */
+    void write(FormDataDao dao, List<TransitionAuditEntry> entries);
+}
@@ -0,0 +1,103 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.commons.util.LogUtil;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The single daemon thread behind {@link StatusRollup},
+ * {@link StatusHistogram} and {@link StatusChangeFeed}: started once, runs
+ * fixed-delay jobs that log instead of dying on failure, and on close waits
+ * briefly for a running job so that it does not outlive its owner.
+ */
+final class BackgroundTask {
+
+    /** Longest time {@link #close()} waits for a running job. */
+    static final long CLOSE_WAIT_MILLIS = 5_000;
+
+    private final String ownerClassName;
+    private final String threadName;
+
+    private ScheduledExecutorService executor;
+    private volatile Thread thread;
+
+    /**
+     * @param ownerClassName class name used for log lines
+     * @param threadName     name of the daemon thread
+     */
+    BackgroundTask(String ownerClassName, String threadName) {
+        this.ownerClassName = ownerClassName;
+        this.threadName = threadName;
+    }
+
+    /**
+     * Starts the thread.
+     *
+     * @return {@code false} if it was already started and not closed since
+     */
+    synchronized boolean start() {
+        if (executor != null) {
+            return false;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread created = new Thread(r, threadName);
+            created.setDaemon(true);
+            thread = created;
+            return created;
+        });
+        return true;
+    }
+
+    synchronized boolean isStarted() {
+        return executor != null;
+    }
+
+    /**
+     * Runs {@code job} every {@code periodMillis} after the previous run
+     * ends; a failed run is logged with {@code failureMessage}. Ignored after
+     * {@link #close()}.
+     */
+    synchronized void schedule(Runnable job, long initialDelayMillis, long periodMillis,
+                               String failureMessage) {
+        if (executor == null) {
+            return;
+        }
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                job.run();
+            } catch (RuntimeException e) {
+                LogUtil.error(ownerClassName, e, failureMessage);
+            }
+        }, initialDelayMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the thread, if started, and waits up to
+     * {@value #CLOSE_WAIT_MILLIS} ms for a running job to finish. Callers
+     * must not hold a monitor the job needs.
+     */
+    void close() {
+        ScheduledExecutorService stopping;
+        synchronized (this) {
+            stopping = executor;
+            executor = null;
+        }
+        if (stopping == null) {
+            return;
+        }
+        stopping.shutdownNow();
+        if (Thread.currentThread() == thread) {
+            return;
+        }
+        try {
+            if (!stopping.awaitTermination(CLOSE_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                LogUtil.warn(ownerClassName, threadName + " did not stop within "
+                        + CLOSE_WAIT_MILLIS + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
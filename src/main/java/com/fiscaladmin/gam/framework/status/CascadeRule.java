@@ -0,0 +1,117 @@
+package com.fiscaladmin.gam.framework.status;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Declares that when a parent record moves to {@code parentTarget}, its
+ * children — records of {@code childType} whose {@code foreignKeyField}
+ * holds the parent's ID — move to {@code childTarget} in the same write.
+ * <p>
+ * Rules chain: a child moved by one rule is itself a parent for rules on
+ * its entity type and new status. Register rules with
+ * {@link StatusManager#addCascadeRule}.
+ *
+ * <pre>
+ * CascadeRule.of(EntityType.STATEMENT, Status.POSTED,
+ *                EntityType.BANK_TRX, "statement_id", Status.POSTED)
+ *            .onlyFrom(Status.POSTING_READY, Status.PAIRED)
+ * </pre>
+ */
+public final class CascadeRule {
+
+    private final EntityType parentType;
+    private final Status parentTarget;
+    private final EntityType childType;
+    private final String foreignKeyField;
+    private final Status childTarget;
+    private final Set<Status> childFromStatuses;
+
+    private CascadeRule(EntityType parentType, Status parentTarget, EntityType childType,
+                        String foreignKeyField, Status childTarget, Set<Status> childFromStatuses) {
+        this.parentType = parentType;
+        this.parentTarget = parentTarget;
+        this.childType = childType;
+        this.foreignKeyField = foreignKeyField;
+        this.childTarget = childTarget;
+        this.childFromStatuses = childFromStatuses;
+    }
+
+    /**
+     * Creates a rule that moves every child not yet in {@code childTarget}.
+     * Every such child must be allowed to make the move, otherwise the parent
+     * transition is rejected.
+     *
+     * @param foreignKeyField form field ID on the child holding the parent's ID
+     */
+    public static CascadeRule of(EntityType parentType, Status parentTarget, EntityType childType,
+                                 String foreignKeyField, Status childTarget) {
+        if (parentType == null || parentTarget == null || childType == null || childTarget == null) {
+            throw new IllegalArgumentException("Entity types and statuses must not be null");
+        }
+        RecordFilter.checkField(foreignKeyField);
+        return new CascadeRule(parentType, parentTarget, childType, foreignKeyField, childTarget,
+                Collections.<Status>emptySet());
+    }
+
+    /**
+     * Returns a copy of this rule that only moves children currently in one
+     * of {@code statuses}; other children are left alone.
+     */
+    public CascadeRule onlyFrom(Status... statuses) {
+        if (statuses.length == 0) {
+            throw new IllegalArgumentException("At least one status is required");
+        }
+        Set<Status> from = EnumSet.noneOf(Status.class);
+        Collections.addAll(from, statuses);
+        return new CascadeRule(parentType, parentTarget, childType, foreignKeyField, childTarget,
+                Collections.unmodifiableSet(from));
+    }
+
+    public EntityType getParentType() {
+        return parentType;
+    }
+
+    public Status getParentTarget() {
+        return parentTarget;
+    }
+
+    public EntityType getChildType() {
+        return childType;
+    }
+
+    public String getForeignKeyField() {
+        return foreignKeyField;
+    }
+
+    public Status getChildTarget() {
+        return childTarget;
+    }
+
+    /** Statuses a child must be in to be moved; empty means any. */
+    public Set<Status> getChildFromStatuses() {
+        return childFromStatuses;
+    }
+
+    /** Returns {@code true} if this rule fires when a record of the type moves to the status. */
+    boolean appliesTo(EntityType entityType, Status target) {
+        return parentType == entityType && parentTarget == target;
+    }
+
+    /**
+     * Returns {@code true} if a child in {@code current} should be moved:
+     * it is not already in the target and passes the from-status filter.
+     */
+    boolean selects(Status current) {
+        return current != childTarget
+                && (childFromStatuses.isEmpty() || childFromStatuses.contains(current));
+    }
+
+    @Override
+    public String toString() {
+        return parentType + " → " + parentTarget.getCode() + " ⇒ " + childType
+                + "." + foreignKeyField + " → " + childTarget.getCode()
+                + (childFromStatuses.isEmpty() ? "" : " from " + childFromStatuses);
+    }
+}
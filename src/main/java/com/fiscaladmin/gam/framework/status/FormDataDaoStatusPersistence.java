@@ -0,0 +1,115 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.apps.form.dao.FormDataDao;
+import org.joget.apps.form.model.FormRow;
+import org.joget.apps.form.model.FormRowSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Default {@link StatusPersistence}: loads and saves whole form rows through
+ * Joget's {@link FormDataDao} and hands audit entries to the manager's
+ * {@link AuditSink}.
+ */
+final class FormDataDaoStatusPersistence implements StatusPersistence {
+
+    private final Supplier<AuditSink> auditSink;
+
+    FormDataDaoStatusPersistence(Supplier<AuditSink> auditSink) {
+        this.auditSink = auditSink;
+    }
+
+    @Override
+    public StatusRecord load(FormDataDao dao, EntityType entityType, String recordId) {
+        String tableName = entityType.getTableName();
+        FormRow row = dao.load(tableName, tableName, recordId);
+        return row != null ? new StatusRecord(row) : null;
+    }
+
+    /**
+     * Loads the records with one {@code find} per chunk of
+     * {@link InLists#CHUNK_SIZE} IDs.
+     */
+    @Override
+    public Map<String, StatusRecord> loadAll(FormDataDao dao, EntityType entityType,
+                                             List<String> recordIds) {
+        String tableName = entityType.getTableName();
+        Map<String, StatusRecord> records = new HashMap<>(recordIds.size() * 2);
+        for (List<String> chunk : InLists.chunks(recordIds)) {
+            StringBuilder condition = InLists.appendIn(new StringBuilder("WHERE e.id"), chunk.size());
+
+            FormRowSet found = dao.find(tableName, tableName, condition.toString(),
+                    chunk.toArray(), null, null, null, null);
+            if (found != null) {
+                for (FormRow row : found) {
+                    records.put(row.getId(), new StatusRecord(row));
+                }
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public List<StatusRecord> findBy(FormDataDao dao, EntityType entityType, String field,
+                                     Collection<String> values) {
+        RecordFilter.checkField(field);
+        String tableName = entityType.getTableName();
+        List<StatusRecord> records = new ArrayList<>();
+        for (List<String> chunk : InLists.chunks(new ArrayList<>(values))) {
+            StringBuilder condition = InLists.appendIn(
+                    new StringBuilder("WHERE e.customProperties.").append(field), chunk.size());
+
+            FormRowSet found = dao.find(tableName, tableName, condition.toString(),
+                    chunk.toArray(), null, null, null, null);
+            if (found != null) {
+                for (FormRow row : found) {
+                    records.add(new StatusRecord(row));
+                }
+            }
+        }
+        return records;
+    }
+
+    /** One {@code saveOrUpdate} for all rows, then one write to the audit sink. */
+    @Override
+    public void save(FormDataDao dao, EntityType entityType, List<StatusRecord> records,
+                     List<TransitionAuditEntry> audits) {
+        saveRows(dao, entityType, records);
+        auditSink.get().write(dao, audits);
+    }
+
+    /**
+     * One {@code saveOrUpdate} per entity type, then one write to the audit
+     * sink. {@code FormDataDao} offers no transaction spanning the calls.
+     */
+    @Override
+    public void saveAll(FormDataDao dao, Map<EntityType, List<StatusRecord>> records,
+                        List<TransitionAuditEntry> audits) {
+        for (Map.Entry<EntityType, List<StatusRecord>> entry : records.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                saveRows(dao, entry.getKey(), entry.getValue());
+            }
+        }
+        auditSink.get().write(dao, audits);
+    }
+
+    private static void saveRows(FormDataDao dao, EntityType entityType, List<StatusRecord> records) {
+        String tableName = entityType.getTableName();
+        FormRowSet rowSet = new FormRowSet();
+        for (StatusRecord record : records) {
+            FormRow row = record.getRow();
+            if (row == null) {
+                row = new FormRow();
+                row.setId(record.getId());
+                row.setProperty("status", record.getStatusCode());
+            }
+            rowSet.add(row);
+        }
+        dao.saveOrUpdate(tableName, tableName, rowSet);
+    }
+}
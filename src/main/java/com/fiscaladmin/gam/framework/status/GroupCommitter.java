@@ -0,0 +1,277 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.apps.form.dao.FormDataDao;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces concurrent single-record {@link StatusManager#transition} calls
+ * into shared batches (group commit).
+ * <p>
+ * The first caller to arrive while no batch is being gathered becomes the
+ * leader: it waits briefly for more callers, takes up to
+ * {@code maxBatchSize} queued requests and writes them together, while the
+ * other callers (followers) block until their own request is completed. As
+ * soon as the leader has taken its batch, the next arrival can lead the
+ * following one, so gathering overlaps with writing.
+ * <p>
+ * The wait is adaptive, driven by moving averages of the gap between
+ * arrivals and of how many other callers are in flight when one arrives.
+ * The leader does not wait at all when calls do not overlap (a single thread
+ * calling in a loop) or arrive less often than {@code maxWaitMicros}, so a
+ * lone caller at low traffic is never delayed; under concurrent load it
+ * waits roughly as long as it takes to fill the batch, capped at
+ * {@code maxWaitMicros}.
+ */
+public final class GroupCommitter {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+    public static final long DEFAULT_MAX_WAIT_MICROS = 2_000;
+
+    /** Weight of the newest sample in the moving averages. */
+    private static final double SMOOTHING = 0.2;
+
+    /** Below this average number of overlapping callers, batches are not waited for. */
+    private static final double MIN_OVERLAP = 0.5;
+
+    /**
+     * Writes one gathered batch, recording a failure on each request that did
+     * not succeed. An exception thrown by the writer fails the whole batch.
+     */
+    interface Writer {
+        void write(List<Request> batch);
+    }
+
+    /** One caller's transition, completed by whichever thread leads its batch. */
+    static final class Request {
+        final FormDataDao dao;
+        final EntityType entityType;
+        final String recordId;
+        final Status targetStatus;
+        final String triggeredBy;
+        final String reason;
+
+        private boolean taken;
+        private boolean done;
+        private Exception error;
+        private TransitionResult result;
+
+        Request(FormDataDao dao, EntityType entityType, String recordId, Status targetStatus,
+                String triggeredBy, String reason) {
+            this.dao = dao;
+            this.entityType = entityType;
+            this.recordId = recordId;
+            this.targetStatus = targetStatus;
+            this.triggeredBy = triggeredBy;
+            this.reason = reason;
+        }
+
+        /** Records this request's failure; it takes precedence over any result. */
+        void fail(Exception error) {
+            this.error = error;
+        }
+
+        Exception getError() {
+            return error;
+        }
+
+        /** Records the validation outcome: OK, INVALID or NOT_FOUND. */
+        void complete(TransitionResult result) {
+            this.result = result;
+        }
+
+        TransitionResult getResult() {
+            return result;
+        }
+    }
+
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<Request> pending = new ArrayDeque<>();
+    private boolean leaderActive;
+    private long lastArrival;
+    private double gapNanos = Double.POSITIVE_INFINITY;
+    private int active;
+    private double overlap;
+    private long batches;
+    private long requests;
+
+    public GroupCommitter() {
+        this(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_WAIT_MICROS);
+    }
+
+    /**
+     * @param maxBatchSize  maximum number of transitions written together
+     * @param maxWaitMicros longest time a leader waits for more callers
+     */
+    public GroupCommitter(int maxBatchSize, long maxWaitMicros) {
+        if (maxBatchSize < 1 || maxWaitMicros < 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive and maxWaitMicros not negative");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+    }
+
+    /**
+     * Queues the request and returns once it has been written, either by this
+     * thread as leader or by another one. The outcome is left on the request.
+     */
+    void submit(Request request, Writer writer) {
+        boolean interrupted = false;
+        synchronized (lock) {
+            noteArrival();
+            pending.addLast(request);
+            if (pending.size() >= maxBatchSize) {
+                lock.notifyAll();
+            }
+        }
+        try {
+            while (true) {
+                List<Request> batch;
+                synchronized (lock) {
+                    while (!request.done && (leaderActive || request.taken)) {
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException e) {
+                            // Keep waiting: the request may already be in a batch being written
+                            interrupted = true;
+                        }
+                    }
+                    if (request.done) {
+                        break;
+                    }
+                    leaderActive = true;
+                    interrupted |= awaitBatch();
+                    batch = takeBatch();
+                    leaderActive = false;
+                    lock.notifyAll();
+                }
+                // Written outside the lock so that the next batch gathers meanwhile
+                write(batch, writer);
+            }
+        } finally {
+            // Also when write() rethrows an Error, or the overlap estimate drifts upwards
+            synchronized (lock) {
+                active--;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Number of batches written so far. */
+    public long getBatchCount() {
+        synchronized (lock) {
+            return batches;
+        }
+    }
+
+    /** Average number of transitions per batch; 0 before the first batch. */
+    public double getAverageBatchSize() {
+        synchronized (lock) {
+            return batches == 0 ? 0 : (double) requests / batches;
+        }
+    }
+
+    /** Callers currently inside {@link #submit}. */
+    int activeCount() {
+        synchronized (lock) {
+            return active;
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Private helpers (all but write() called while holding the lock)
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * Waits for the batch to fill, at most for the adaptive window.
+     *
+     * @return {@code true} if the wait was interrupted
+     */
+    private boolean awaitBatch() {
+        long window = windowNanos();
+        if (window <= 0) {
+            return false;
+        }
+        long deadline = System.nanoTime() + window;
+        while (pending.size() < maxBatchSize) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                break;
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(lock, left);
+            } catch (InterruptedException e) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Time the leader should wait: none when calls do not overlap or arrive
+     * less often than the maximum wait, otherwise the expected time to fill
+     * the batch.
+     */
+    private long windowNanos() {
+        if (maxWaitNanos == 0 || overlap < MIN_OVERLAP || gapNanos >= maxWaitNanos) {
+            return 0;
+        }
+        return Math.min(maxWaitNanos, (long) (gapNanos * (maxBatchSize - pending.size())));
+    }
+
+    private List<Request> takeBatch() {
+        List<Request> batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+        while (batch.size() < maxBatchSize && !pending.isEmpty()) {
+            Request request = pending.pollFirst();
+            request.taken = true;
+            batch.add(request);
+        }
+        batches++;
+        requests += batch.size();
+        return batch;
+    }
+
+    private void write(List<Request> batch, Writer writer) {
+        try {
+            writer.write(batch);
+        } catch (RuntimeException | Error e) {
+            RuntimeException failure = e instanceof RuntimeException
+                    ? (RuntimeException) e
+                    : new IllegalStateException("Group commit failed", e);
+            for (Request request : batch) {
+                request.fail(failure);
+            }
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        } finally {
+            synchronized (lock) {
+                for (Request request : batch) {
+                    request.done = true;
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void noteArrival() {
+        long now = System.nanoTime();
+        if (lastArrival != 0) {
+            long gap = now - lastArrival;
+            gapNanos = Double.isInfinite(gapNanos)
+                    ? gap
+                    : gapNanos + SMOOTHING * (gap - gapNanos);
+        }
+        lastArrival = now;
+        overlap += SMOOTHING * (active - overlap);
+        active++;
+    }
+}
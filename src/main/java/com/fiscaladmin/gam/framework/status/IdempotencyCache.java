@@ -0,0 +1,164 @@
+package com.fiscaladmin.gam.framework.status;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the outcome of keyed transitions for a time window, so that a
+ * retried request ({@link StatusManager#transition(org.joget.apps.form.dao.FormDataDao,
+ * EntityType, String, Status, String, String, String) transition} with the same
+ * idempotency key) gets the original outcome without touching the database.
+ * <p>
+ * Keys are scoped to the record: the same key on another record is a
+ * different request. Reusing a key for another target status within the
+ * window is a caller bug and is rejected. A duplicate arriving while the original is still running
+ * waits for it. Successful results and {@link InvalidTransitionException}s are
+ * replayed; other failures (e.g. a database outage) are not remembered, so a
+ * retry runs again.
+ * <p>
+ * Entries expire a fixed time after the original request; beyond
+ * {@code maxEntries} the oldest finished ones are dropped early. Entries of
+ * requests still running are never dropped early, so their duplicates keep
+ * waiting instead of running a second time.
+ */
+public class IdempotencyCache {
+
+    public static final long DEFAULT_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    /** The transition run for the first request with a key. */
+    interface Action {
+        TransitionResult run() throws InvalidTransitionException;
+    }
+
+    private final long windowNanos;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    /** Insertion order is expiry order; guarded by {@code this}. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private final LongAdder replays = new LongAdder();
+
+    /** Creates a cache with the default ten-minute window. */
+    public IdempotencyCache() {
+        this(DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_ENTRIES);
+    }
+
+    public IdempotencyCache(long windowMillis, int maxEntries) {
+        this(windowMillis, maxEntries, System::nanoTime);
+    }
+
+    IdempotencyCache(long windowMillis, int maxEntries, LongSupplier clock) {
+        if (windowMillis < 1 || maxEntries < 1) {
+            throw new IllegalArgumentException("windowMillis and maxEntries must be positive");
+        }
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs {@code action} for the first request with the key within the
+     * window, and replays its outcome for every repeat.
+     *
+     * @throws IllegalArgumentException if the key was first used for another
+     *                                  target status
+     */
+    TransitionResult execute(EntityType entityType, String recordId, String key, Status targetStatus,
+                             Action action) throws InvalidTransitionException {
+        String scopedKey = entityType.name() + '/' + recordId + '/' + key;
+        Entry entry;
+        boolean first = false;
+        synchronized (this) {
+            long now = clock.getAsLong();
+            purge(now);
+            entry = entries.get(scopedKey);
+            if (entry == null) {
+                if (entries.size() >= maxEntries) {
+                    evictOldestFinished();
+                }
+                entry = new Entry(now + windowNanos, targetStatus);
+                entries.put(scopedKey, entry);
+                first = true;
+            }
+        }
+        if (entry.targetStatus != targetStatus) {
+            throw new IllegalArgumentException("Idempotency key " + key + " of " + entityType + " "
+                    + recordId + " was used for " + entry.targetStatus + ", not " + targetStatus);
+        }
+
+        if (first) {
+            try {
+                TransitionResult result = action.run();
+                entry.outcome.complete(result);
+                return result;
+            } catch (InvalidTransitionException e) {
+                entry.outcome.completeExceptionally(e);
+                throw e;
+            } catch (RuntimeException | Error e) {
+                synchronized (this) {
+                    entries.remove(scopedKey, entry);
+                }
+                entry.outcome.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        replays.increment();
+        try {
+            return entry.outcome.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InvalidTransitionException) {
+                throw (InvalidTransitionException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    /** Number of requests answered from a remembered outcome. */
+    public long getReplayCount() {
+        return replays.sum();
+    }
+
+    public synchronized int size() {
+        purge(clock.getAsLong());
+        return entries.size();
+    }
+
+    private void purge(long now) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext() && it.next().expiresAt - now <= 0) {
+            it.remove();
+        }
+    }
+
+    /** Drops the oldest entry whose request has finished, if any. */
+    private void evictOldestFinished() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().outcome.isDone()) {
+                it.remove();
+                return;
+            }
+        }
+    }
+
+    private static final class Entry {
+        final long expiresAt;
+        final Status targetStatus;
+        final CompletableFuture<TransitionResult> outcome = new CompletableFuture<>();
+
+        Entry(long expiresAt, Status targetStatus) {
+            this.expiresAt = expiresAt;
+            this.targetStatus = targetStatus;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.fiscaladmin.gam.framework.status;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chunked {@code IN (?, ...)} lists for the bulk loaders, so that no single
+ * statement exceeds the bind-parameter limits of the supported databases.
+ */
+final class InLists {
+
+    /** Maximum number of values per {@code IN} list. */
+    static final int CHUNK_SIZE = 500;
+
+    private InLists() {
+    }
+
+    /** Consecutive views of at most {@link #CHUNK_SIZE} values each. */
+    static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>((values.size() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        for (int start = 0; start < values.size(); start += CHUNK_SIZE) {
+            chunks.add(values.subList(start, Math.min(start + CHUNK_SIZE, values.size())));
+        }
+        return chunks;
+    }
+
+    /** Appends {@code " IN (?, ..., ?)"} with one placeholder per value. */
+    static StringBuilder appendIn(StringBuilder sql, int count) {
+        sql.append(" IN (");
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')');
+    }
+
+    /** Binds the values to parameters {@code 1..n}. */
+    static void bind(PreparedStatement statement, List<String> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            statement.setString(i + 1, values.get(i));
+        }
+    }
+}
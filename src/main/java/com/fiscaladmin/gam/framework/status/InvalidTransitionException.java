@@ -4,6 +4,11 @@ package com.fiscaladmin.gam.framework.status;
  * Checked exception thrown when an invalid status transition is attempted.
  * <p>
  * Carries full context about the failed transition for diagnostics and logging.
+ * The message is built on first use. Callers that only use the exception as a
+ * signal can create it without a stack trace (see
+ * {@link StatusManager#setStacklessExceptions}), which makes a rejection about
+ * as cheap as any other allocation; for high rejection rates prefer
+ * {@link StatusManager#tryTransition}, which throws nothing.
  */
 public class InvalidTransitionException extends Exception {
 
@@ -11,18 +16,39 @@ public class InvalidTransitionException extends Exception {
     private final String recordId;
     private final Status fromStatus;
     private final Status toStatus;
+    private volatile String message;
 
     public InvalidTransitionException(EntityType entityType, String recordId,
                                       Status fromStatus, Status toStatus) {
-        super("Invalid transition for " + entityType + " record " + recordId
-                + ": " + (fromStatus != null ? fromStatus.getCode() : "null")
-                + " → " + toStatus.getCode());
+        this(entityType, recordId, fromStatus, toStatus, true);
+    }
+
+    /**
+     * @param writableStackTrace {@code false} to skip capturing the stack trace;
+     *                           {@link #getStackTrace()} is then empty
+     */
+    public InvalidTransitionException(EntityType entityType, String recordId,
+                                      Status fromStatus, Status toStatus,
+                                      boolean writableStackTrace) {
+        super(null, null, true, writableStackTrace);
         this.entityType = entityType;
         this.recordId = recordId;
         this.fromStatus = fromStatus;
         this.toStatus = toStatus;
     }
 
+    @Override
+    public String getMessage() {
+        String result = message;
+        if (result == null) {
+            result = "Invalid transition for " + entityType + " record " + recordId
+                    + ": " + (fromStatus != null ? fromStatus.getCode() : "null")
+                    + " → " + toStatus.getCode();
+            message = result;
+        }
+        return result;
+    }
+
     public EntityType getEntityType() {
         return entityType;
     }
@@ -0,0 +1,232 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.apps.form.dao.FormDataDao;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.fiscaladmin.gam.framework.status.JdbcStatusStore.STATUS_COLUMN;
+import static com.fiscaladmin.gam.framework.status.JdbcStatusStore.physicalTable;
+
+/**
+ * {@link StatusPersistence} that works directly on the {@code app_fd_*}
+ * tables over JDBC instead of through Joget's Hibernate mapping.
+ * <p>
+ * Loads read only {@code id} and {@code c_status}. A save updates
+ * {@code c_status} (and {@code dateModified}) of every record and inserts
+ * the audit rows into {@code app_fd_audit_log} as two JDBC batches in one
+ * transaction, so a status change is never stored without its audit entry or
+ * the other way round. Audit entries therefore bypass the manager's
+ * {@link AuditSink}. The {@code FormDataDao} arguments are ignored.
+ * <p>
+ * SQL strings are built once per entity type; connection and prepared
+ * statement pooling is left to the {@link DataSource} (Joget's
+ * {@code setupDataSource} pools both).
+ */
+public class JdbcStatusPersistence implements StatusPersistence {
+
+    private final DataSource dataSource;
+    private final Map<EntityType, String> selectSql = new EnumMap<>(EntityType.class);
+    private final Map<EntityType, String> updateSql = new EnumMap<>(EntityType.class);
+
+    public JdbcStatusPersistence(DataSource dataSource) {
+        if (dataSource == null) {
+            throw new IllegalArgumentException("dataSource must not be null");
+        }
+        this.dataSource = dataSource;
+        for (EntityType entityType : EntityType.values()) {
+            String table = physicalTable(entityType);
+            selectSql.put(entityType, "SELECT id, " + STATUS_COLUMN + " FROM " + table + " WHERE id");
+            updateSql.put(entityType, "UPDATE " + table + " SET " + STATUS_COLUMN + " = ?,"
+                    + " dateModified = ? WHERE id = ?");
+        }
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public StatusRecord load(FormDataDao dao, EntityType entityType, String recordId) {
+        try (Connection connection = dataSource.getConnection()) {
+            return select(connection, entityType, Collections.singletonList(recordId))
+                    .get(recordId);
+        } catch (SQLException e) {
+            throw new StatusStoreException("Status load failed: " + entityType + " / " + recordId, e);
+        }
+    }
+
+    @Override
+    public Map<String, StatusRecord> loadAll(FormDataDao dao, EntityType entityType,
+                                             List<String> recordIds) {
+        Map<String, StatusRecord> records = new HashMap<>(recordIds.size() * 2);
+        try (Connection connection = dataSource.getConnection()) {
+            for (List<String> chunk : InLists.chunks(recordIds)) {
+                records.putAll(select(connection, entityType, chunk));
+            }
+        } catch (SQLException e) {
+            throw new StatusStoreException("Status load failed: " + entityType
+                    + " (" + recordIds.size() + " records)", e);
+        }
+        return records;
+    }
+
+    @Override
+    public List<StatusRecord> findBy(FormDataDao dao, EntityType entityType, String field,
+                                     Collection<String> values) {
+        String column = RecordFilter.checkField(field);
+        List<StatusRecord> records = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (List<String> chunk : InLists.chunks(new ArrayList<>(values))) {
+                StringBuilder sql = InLists.appendIn(new StringBuilder("SELECT id, ").append(STATUS_COLUMN)
+                        .append(" FROM ").append(physicalTable(entityType))
+                        .append(" WHERE ").append(column), chunk.size());
+                try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                    InLists.bind(statement, chunk);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            records.add(new StatusRecord(rs.getString(1), rs.getString(2)));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new StatusStoreException("Status load failed: " + entityType
+                    + " by " + field, e);
+        }
+        return records;
+    }
+
+    /**
+     * @throws StatusStoreException if the transaction fails; nothing is
+     *                              written in that case
+     */
+    @Override
+    public void save(FormDataDao dao, EntityType entityType, List<StatusRecord> records,
+                     List<TransitionAuditEntry> audits) {
+        Map<EntityType, List<StatusRecord>> byType = new EnumMap<>(EntityType.class);
+        byType.put(entityType, records);
+        saveAll(dao, byType, audits);
+    }
+
+    @Override
+    public boolean supportsSaveIfCurrent() {
+        return true;
+    }
+
+    /**
+     * Conditional {@code UPDATE} of the status and insert of the audit row in
+     * one transaction; the audit row is rolled back if the update misses.
+     *
+     * @throws StatusStoreException if the transaction fails; nothing is
+     *                              written in that case
+     */
+    @Override
+    public boolean saveIfCurrent(FormDataDao dao, EntityType entityType, String recordId,
+                                 Status expected, Status targetStatus, TransitionAuditEntry audit) {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(physicalTable(entityType))
+                .append(" SET ").append(STATUS_COLUMN).append(" = ?, dateModified = ? WHERE id = ? AND ");
+        List<Object> params = new ArrayList<>(4);
+        params.add(targetStatus.getCode());
+        params.add(new Timestamp(System.currentTimeMillis()));
+        params.add(recordId);
+        JdbcStatusStore.appendStatusCondition(sql, "", expected, params);
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                int updated;
+                try (PreparedStatement update = connection.prepareStatement(sql.toString())) {
+                    for (int i = 0; i < params.size(); i++) {
+                        update.setObject(i + 1, params.get(i));
+                    }
+                    updated = update.executeUpdate();
+                }
+                if (updated != 1) {
+                    connection.rollback();
+                    return false;
+                }
+                JdbcStatusStore.insertAudit(connection, Collections.singletonList(audit));
+                connection.commit();
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new StatusStoreException("Conditional status save failed: "
+                    + entityType + " / " + recordId, e);
+        }
+    }
+
+    /**
+     * Updates every entity table and inserts all audit rows in one transaction.
+     *
+     * @throws StatusStoreException if the transaction fails; nothing is
+     *                              written in that case
+     */
+    @Override
+    public void saveAll(FormDataDao dao, Map<EntityType, List<StatusRecord>> records,
+                        List<TransitionAuditEntry> audits) {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                for (Map.Entry<EntityType, List<StatusRecord>> entry : records.entrySet()) {
+                    if (entry.getValue().isEmpty()) {
+                        continue;
+                    }
+                    try (PreparedStatement update = connection.prepareStatement(
+                            updateSql.get(entry.getKey()))) {
+                        for (StatusRecord record : entry.getValue()) {
+                            update.setString(1, record.getStatusCode());
+                            update.setTimestamp(2, now);
+                            update.setString(3, record.getId());
+                            update.addBatch();
+                        }
+                        update.executeBatch();
+                    }
+                }
+                JdbcStatusStore.insertAudit(connection, audits);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new StatusStoreException("Status save failed: " + records.keySet(), e);
+        }
+    }
+
+    private Map<String, StatusRecord> select(Connection connection, EntityType entityType,
+                                             List<String> ids) throws SQLException {
+        StringBuilder sql = InLists.appendIn(new StringBuilder(selectSql.get(entityType)), ids.size());
+
+        Map<String, StatusRecord> records = new HashMap<>(ids.size() * 2);
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            InLists.bind(statement, ids);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    records.put(rs.getString(1), new StatusRecord(rs.getString(1), rs.getString(2)));
+                }
+            }
+        }
+        return records;
+    }
+}
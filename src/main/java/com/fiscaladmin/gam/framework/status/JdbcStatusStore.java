@@ -0,0 +1,559 @@
+package com.fiscaladmin.gam.framework.status;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Plain-JDBC access to the status column of the Joget form tables, for the
+ * operations {@code FormDataDao} cannot express (conditional updates,
+ * single-column writes).
+ * <p>
+ * Joget stores form {@code x} in table {@code app_fd_x} with field {@code f}
+ * in column {@code c_f}; the primary key column is {@code id}.
+ * <p>
+ * Work claims additionally use {@value #LEASE_TABLE}, a small table owned by
+ * this framework (not a Joget form) that is created on first use. Lease
+ * expiry is computed from and compared against the database clock
+ * ({@code CURRENT_TIMESTAMP}), so clock skew between Joget nodes does not
+ * shorten or extend leases.
+ */
+public class JdbcStatusStore {
+
+    static final String TABLE_PREFIX = "app_fd_";
+    static final String COLUMN_PREFIX = "c_";
+    static final String STATUS_COLUMN = COLUMN_PREFIX + "status";
+
+    /** Table holding one lease per claimed record. */
+    public static final String LEASE_TABLE = "gam_status_lease";
+
+    private final DataSource dataSource;
+    private volatile boolean leaseTableReady;
+
+    public JdbcStatusStore(DataSource dataSource) {
+        if (dataSource == null) {
+            throw new IllegalArgumentException("dataSource must not be null");
+        }
+        this.dataSource = dataSource;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /** Physical table name of the entity, e.g. {@code app_fd_bank_total_trx}. */
+    public static String physicalTable(EntityType entityType) {
+        return TABLE_PREFIX + entityType.getTableName();
+    }
+
+    /**
+     * Sets the status of one record only if it is currently
+     * {@code expected}. Only the status column and {@code dateModified} are
+     * written.
+     *
+     * @param expected the status the record must be in; {@code null} matches
+     *                 a record with no status yet
+     * @return {@code true} if the row was updated
+     */
+    public boolean compareAndSet(EntityType entityType, String recordId,
+                                 Status expected, Status target) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return compareAndSet(connection, entityType, recordId, expected, target);
+        }
+    }
+
+    /**
+     * {@link #compareAndSet(EntityType, String, Status, Status)} that also
+     * inserts {@code audit} when the row was updated, in the same
+     * transaction, so the status never changes without its audit row.
+     *
+     * @return {@code true} if the row was updated and audited
+     */
+    public boolean compareAndSet(EntityType entityType, String recordId, Status expected,
+                                 Status target, TransitionAuditEntry audit) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                boolean updated = compareAndSet(connection, entityType, recordId, expected, target);
+                if (updated) {
+                    insertAudit(connection, Collections.singletonList(audit));
+                }
+                connection.commit();
+                return updated;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Reads the raw status code of one record.
+     *
+     * @return the stored code ({@code ""} when unset), or {@code null} if the
+     *         record does not exist
+     */
+    public String readStatusCode(EntityType entityType, String recordId) throws SQLException {
+        String sql = "SELECT " + STATUS_COLUMN + " FROM " + physicalTable(entityType)
+                + " WHERE id = ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, recordId);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                String code = rs.getString(1);
+                return code != null ? code : "";
+            }
+        }
+    }
+
+    /**
+     * Moves every record matching {@code filter} that is currently in
+     * {@code fromStatus} to {@code target}, entirely in the database: one
+     * {@code INSERT ... SELECT} writes an audit row per matching record, then
+     * one {@code UPDATE} changes their status, both in one transaction.
+     * Audit IDs are a per-call UUID followed by the record ID.
+     *
+     * @param fromStatus the status records must be in; {@code null} matches
+     *                   records with no status yet
+     * @return the number of records transitioned
+     * @throws SQLException if the statements fail, or if the number of audit
+     *                      rows and updated records differ because records
+     *                      changed concurrently (the transaction is rolled back)
+     */
+    public int transitionWhere(EntityType entityType, RecordFilter filter, Status fromStatus,
+                               Status target, String triggeredBy, String reason) throws SQLException {
+        String table = physicalTable(entityType);
+        String fromCode = fromStatus != null ? fromStatus.getCode() : "null";
+        String auditIdPrefix = UUID.randomUUID() + "-";
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        List<Object> auditParams = new ArrayList<>(Arrays.<Object>asList(auditIdPrefix, now, now,
+                entityType.toString(), fromCode, target.getCode(), triggeredBy, reason,
+                Instant.now().toString()));
+        StringBuilder auditSql = new StringBuilder("INSERT INTO ")
+                .append(TABLE_PREFIX).append(TransitionAuditEntry.TABLE_NAME)
+                .append(" (id, dateCreated, dateModified, c_entity_type, c_entity_id,"
+                        + " c_from_status, c_to_status, c_triggered_by, c_reason, c_timestamp)"
+                        + " SELECT CONCAT(?, t.id), ?, ?, ?, t.id, ?, ?, ?, ?, ? FROM ")
+                .append(table).append(" t WHERE ");
+        appendStatusCondition(auditSql, "t.", fromStatus, auditParams);
+        filter.appendTo(auditSql, "t", auditParams);
+
+        List<Object> updateParams = new ArrayList<>(Arrays.<Object>asList(target.getCode(), now));
+        StringBuilder updateSql = new StringBuilder("UPDATE ").append(table)
+                .append(" SET ").append(STATUS_COLUMN).append(" = ?, dateModified = ? WHERE ");
+        appendStatusCondition(updateSql, "", fromStatus, updateParams);
+        filter.appendTo(updateSql, null, updateParams);
+
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                int audited = executeUpdate(connection, auditSql.toString(), auditParams);
+                int updated = executeUpdate(connection, updateSql.toString(), updateParams);
+                if (audited != updated) {
+                    throw new SQLException("Records changed during bulk transition: "
+                            + audited + " audited but " + updated + " updated");
+                }
+                connection.commit();
+                return updated;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Claims up to {@code maxRows} records for one worker in a single
+     * transaction, oldest first. Two kinds of record are claimed:
+     * <ol>
+     *   <li>records whose lease in {@code claimingStatus} has expired (the
+     *       previous worker is presumed dead) — the lease is taken over and
+     *       the status left as is;</li>
+     *   <li>records in {@code fromStatus}, which are moved to
+     *       {@code claimingStatus} with a batch of conditional updates that
+     *       also set {@code dateModified}.</li>
+     * </ol>
+     * Every claim gets a lease row and an audit row, both inserted in batches.
+     * Records taken by a concurrent claimer in between are skipped, so fewer
+     * than {@code maxRows} IDs may be returned under contention. Lease rows of
+     * records that have left {@code claimingStatus} (finished by a worker that
+     * did not call {@link #releaseLease}) or no longer exist are deleted first.
+     *
+     * @param skipLocked select candidates with {@code FOR UPDATE SKIP LOCKED}
+     *                   (MySQL 8, PostgreSQL) so concurrent claimers never wait
+     *                   on each other's rows
+     * @return one result per claimed record; a reclaimed record has
+     *         {@code claimingStatus} as both from- and to-status
+     */
+    public List<TransitionResult> claim(EntityType entityType, Status fromStatus, Status claimingStatus,
+                              int maxRows, String workerId, long leaseMillis,
+                              boolean skipLocked) throws SQLException {
+        ensureLeaseTable();
+        String table = physicalTable(entityType);
+        List<TransitionResult> claimed = new ArrayList<>();
+        List<TransitionAuditEntry> audits = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                long now = databaseMillis(connection);
+                long expiresAt = now + leaseMillis;
+
+                // 0. Drop leases of finished or deleted records
+                try (PreparedStatement cleanup = connection.prepareStatement(
+                        "DELETE FROM " + LEASE_TABLE + " WHERE entity_type = ? AND NOT EXISTS"
+                                + " (SELECT 1 FROM " + table + " t WHERE t.id = " + LEASE_TABLE + ".record_id"
+                                + " AND t." + STATUS_COLUMN + " = " + LEASE_TABLE + ".status)")) {
+                    cleanup.setString(1, entityType.name());
+                    cleanup.executeUpdate();
+                }
+
+                // 1. Take over expired leases of records still in the claiming status
+                List<String[]> expired = new ArrayList<>();
+                try (PreparedStatement select = connection.prepareStatement(
+                        "SELECT l.record_id, l.worker_id, l.expires_at FROM " + LEASE_TABLE + " l"
+                                + " JOIN " + table + " t ON t.id = l.record_id"
+                                + " WHERE l.entity_type = ? AND l.status = ? AND l.expires_at < ?"
+                                + " AND t." + STATUS_COLUMN + " = l.status"
+                                + " ORDER BY l.expires_at LIMIT ?")) {
+                    select.setString(1, entityType.name());
+                    select.setString(2, claimingStatus.getCode());
+                    select.setLong(3, now);
+                    select.setInt(4, maxRows);
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            expired.add(new String[]{rs.getString(1), rs.getString(2),
+                                    Long.toString(rs.getLong(3))});
+                        }
+                    }
+                }
+                if (!expired.isEmpty()) {
+                    try (PreparedStatement takeOver = connection.prepareStatement(
+                            "UPDATE " + LEASE_TABLE + " SET worker_id = ?, expires_at = ?"
+                                    + " WHERE entity_type = ? AND record_id = ? AND expires_at = ?")) {
+                        for (String[] lease : expired) {
+                            takeOver.setString(1, workerId);
+                            takeOver.setLong(2, expiresAt);
+                            takeOver.setString(3, entityType.name());
+                            takeOver.setString(4, lease[0]);
+                            takeOver.setLong(5, Long.parseLong(lease[2]));
+                            if (takeOver.executeUpdate() == 1) {
+                                claimed.add(TransitionResult.ok(entityType, lease[0],
+                                        claimingStatus, claimingStatus));
+                                audits.add(new TransitionAuditEntry(entityType.toString(), lease[0],
+                                        claimingStatus.getCode(), claimingStatus.getCode(), workerId,
+                                        "Reclaimed after lease of " + lease[1] + " expired"));
+                            }
+                        }
+                    }
+                }
+
+                // 2. Move fresh records fromStatus → claimingStatus
+                int remaining = maxRows - claimed.size();
+                if (remaining > 0) {
+                    List<String> candidates = new ArrayList<>(remaining);
+                    try (PreparedStatement select = connection.prepareStatement(
+                            "SELECT id FROM " + table + " WHERE " + STATUS_COLUMN + " = ?"
+                                    + " ORDER BY dateCreated, id LIMIT ?"
+                                    + (skipLocked ? " FOR UPDATE SKIP LOCKED" : ""))) {
+                        select.setString(1, fromStatus.getCode());
+                        select.setInt(2, remaining);
+                        try (ResultSet rs = select.executeQuery()) {
+                            while (rs.next()) {
+                                candidates.add(rs.getString(1));
+                            }
+                        }
+                    }
+                    List<String> fresh = claimCandidates(connection, table, candidates,
+                            fromStatus, claimingStatus);
+                    for (String id : fresh) {
+                        audits.add(new TransitionAuditEntry(entityType.toString(), id,
+                                fromStatus.getCode(), claimingStatus.getCode(), workerId,
+                                "Claimed by " + workerId));
+                    }
+                    if (!fresh.isEmpty()) {
+                        insertLeases(connection, entityType, claimingStatus, fresh, workerId, expiresAt);
+                        for (String id : fresh) {
+                            claimed.add(TransitionResult.ok(entityType, id, fromStatus, claimingStatus));
+                        }
+                    }
+                }
+
+                insertAudit(connection, audits);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Extends the lease of a record held by {@code workerId}.
+     *
+     * @return {@code false} if the worker no longer holds the lease
+     */
+    public boolean renewLease(EntityType entityType, String recordId, String workerId,
+                              long leaseMillis) throws SQLException {
+        ensureLeaseTable();
+        try (Connection connection = dataSource.getConnection()) {
+            long expiresAt = databaseMillis(connection) + leaseMillis;
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE " + LEASE_TABLE + " SET expires_at = ?"
+                            + " WHERE entity_type = ? AND record_id = ? AND worker_id = ?")) {
+                statement.setLong(1, expiresAt);
+                statement.setString(2, entityType.name());
+                statement.setString(3, recordId);
+                statement.setString(4, workerId);
+                return statement.executeUpdate() == 1;
+            }
+        }
+    }
+
+    /**
+     * Drops the lease of a record held by {@code workerId}, typically once the
+     * worker has moved it out of the claiming status.
+     *
+     * @return {@code false} if the worker did not hold the lease
+     */
+    public boolean releaseLease(EntityType entityType, String recordId, String workerId)
+            throws SQLException {
+        ensureLeaseTable();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "DELETE FROM " + LEASE_TABLE
+                             + " WHERE entity_type = ? AND record_id = ? AND worker_id = ?")) {
+            statement.setString(1, entityType.name());
+            statement.setString(2, recordId);
+            statement.setString(3, workerId);
+            return statement.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Inserts audit entries into {@code app_fd_audit_log} as one JDBC batch on
+     * the caller's connection, so they commit or roll back with the status
+     * change they describe.
+     */
+    static void insertAudit(Connection connection, List<TransitionAuditEntry> entries)
+            throws SQLException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + TABLE_PREFIX + TransitionAuditEntry.TABLE_NAME
+                        + " (id, dateCreated, dateModified, c_entity_type, c_entity_id,"
+                        + " c_from_status, c_to_status, c_triggered_by, c_reason, c_timestamp)"
+                        + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (TransitionAuditEntry entry : entries) {
+                insert.setString(1, entry.getId());
+                insert.setTimestamp(2, now);
+                insert.setTimestamp(3, now);
+                insert.setString(4, entry.getEntityType());
+                insert.setString(5, entry.getEntityId());
+                insert.setString(6, entry.getFromStatus());
+                insert.setString(7, entry.getToStatus());
+                insert.setString(8, entry.getTriggeredBy());
+                insert.setString(9, entry.getReason());
+                insert.setString(10, entry.getTimestamp());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Private helpers
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * The database's current time in epoch milliseconds. Lease times use this
+     * single clock shared by all nodes instead of each node's own.
+     */
+    static long databaseMillis(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT CURRENT_TIMESTAMP")) {
+            if (!rs.next()) {
+                throw new SQLException("SELECT CURRENT_TIMESTAMP returned no row");
+            }
+            return rs.getTimestamp(1).getTime();
+        }
+    }
+
+    /**
+     * Moves the candidates still in {@code fromStatus} to
+     * {@code claimingStatus} with one batch of conditional updates.
+     *
+     * @return the candidates this call moved, in candidate order
+     */
+    private static List<String> claimCandidates(Connection connection, String table,
+                                                List<String> candidates, Status fromStatus,
+                                                Status claimingStatus) throws SQLException {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        Timestamp modified = new Timestamp(System.currentTimeMillis());
+        int[] counts;
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE " + table + " SET " + STATUS_COLUMN + " = ?, dateModified = ?"
+                        + " WHERE id = ? AND " + STATUS_COLUMN + " = ?")) {
+            for (String id : candidates) {
+                update.setString(1, claimingStatus.getCode());
+                update.setTimestamp(2, modified);
+                update.setString(3, id);
+                update.setString(4, fromStatus.getCode());
+                update.addBatch();
+            }
+            counts = update.executeBatch();
+        }
+
+        List<String> unknown = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                unknown.add(candidates.get(i));
+            }
+        }
+
+        // Drivers that rewrite batches (MySQL rewriteBatchedStatements) report
+        // no per-row counts: read back the rows carrying this update's stamp
+        Set<String> stamped = new HashSet<>();
+        for (List<String> chunk : InLists.chunks(unknown)) {
+            StringBuilder sql = InLists.appendIn(new StringBuilder("SELECT id FROM ").append(table)
+                    .append(" WHERE ").append(STATUS_COLUMN).append(" = ? AND dateModified = ? AND id"),
+                    chunk.size());
+            try (PreparedStatement select = connection.prepareStatement(sql.toString())) {
+                select.setString(1, claimingStatus.getCode());
+                select.setTimestamp(2, modified);
+                for (int i = 0; i < chunk.size(); i++) {
+                    select.setString(i + 3, chunk.get(i));
+                }
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        stamped.add(rs.getString(1));
+                    }
+                }
+            }
+        }
+        List<String> moved = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            String id = candidates.get(i);
+            if (counts[i] == 1 || stamped.contains(id)) {
+                moved.add(id);
+            }
+        }
+        return moved;
+    }
+
+    private static boolean compareAndSet(Connection connection, EntityType entityType, String recordId,
+                                         Status expected, Status target) throws SQLException {
+        String sql = "UPDATE " + physicalTable(entityType)
+                + " SET " + STATUS_COLUMN + " = ?, dateModified = ? WHERE id = ? AND "
+                + (expected != null
+                        ? STATUS_COLUMN + " = ?"
+                        : "(" + STATUS_COLUMN + " IS NULL OR " + STATUS_COLUMN + " = '')");
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, target.getCode());
+            statement.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+            statement.setString(3, recordId);
+            if (expected != null) {
+                statement.setString(4, expected.getCode());
+            }
+            return statement.executeUpdate() == 1;
+        }
+    }
+
+    /** Appends the status condition; {@code null} matches records without status. */
+    static void appendStatusCondition(StringBuilder sql, String prefix, Status status,
+                                              List<Object> params) {
+        if (status != null) {
+            sql.append(prefix).append(STATUS_COLUMN).append(" = ?");
+            params.add(status.getCode());
+        } else {
+            sql.append('(').append(prefix).append(STATUS_COLUMN).append(" IS NULL OR ")
+                    .append(prefix).append(STATUS_COLUMN).append(" = '')");
+        }
+    }
+
+    private static int executeUpdate(Connection connection, String sql, List<Object> params)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    /** Replaces any stale lease rows of the records with fresh ones. */
+    private static void insertLeases(Connection connection, EntityType entityType,
+                                     Status claimingStatus, List<String> recordIds,
+                                     String workerId, long expiresAt) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM " + LEASE_TABLE + " WHERE entity_type = ? AND record_id = ?")) {
+            for (String id : recordIds) {
+                delete.setString(1, entityType.name());
+                delete.setString(2, id);
+                delete.addBatch();
+            }
+            delete.executeBatch();
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + LEASE_TABLE
+                        + " (entity_type, record_id, status, worker_id, expires_at)"
+                        + " VALUES (?, ?, ?, ?, ?)")) {
+            for (String id : recordIds) {
+                insert.setString(1, entityType.name());
+                insert.setString(2, id);
+                insert.setString(3, claimingStatus.getCode());
+                insert.setString(4, workerId);
+                insert.setLong(5, expiresAt);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private void ensureLeaseTable() throws SQLException {
+        if (leaseTableReady) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + LEASE_TABLE + " ("
+                    + "entity_type VARCHAR(64) NOT NULL, "
+                    + "record_id VARCHAR(255) NOT NULL, "
+                    + "status VARCHAR(64) NOT NULL, "
+                    + "worker_id VARCHAR(255) NOT NULL, "
+                    + "expires_at BIGINT NOT NULL, "
+                    + "PRIMARY KEY (entity_type, record_id))");
+        }
+        leaseTableReady = true;
+    }
+}
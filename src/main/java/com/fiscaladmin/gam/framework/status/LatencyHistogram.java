@@ -0,0 +1,152 @@
+package com.fiscaladmin.gam.framework.status;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram in the style of HdrHistogram: values (in
+ * nanoseconds) fall into log-linear buckets, 16 per power of two, so every
+ * recorded value is known to within 1/16 (6.25%) while the bucket count stays
+ * small. Values from 0 to {@value #MAX_TRACKABLE_NANOS} ns (about 18 minutes)
+ * are tracked; larger values are clamped.
+ * <p>
+ * Buckets are {@link LongAdder}s, so concurrent {@link #record} calls do not
+ * contend. A {@link #snapshot()} taken while values are recorded may be
+ * slightly inconsistent between buckets, but never loses a finished record.
+ */
+public class LatencyHistogram {
+
+    /** Values at or above this are recorded as this. */
+    public static final long MAX_TRACKABLE_NANOS = (1L << 40) - 1;
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = bucketOf(MAX_TRACKABLE_NANOS) + 1;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /** Records one value; negative values count as 0. */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE_NANOS);
+        buckets[bucketOf(value)].increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return new Snapshot(counts, total.sum(), max.get());
+    }
+
+    /** Values below 16 get a bucket each; above, 16 buckets per power of two. */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /** The largest value that falls into the bucket. */
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Immutable copy of a histogram. Values are in nanoseconds; percentiles
+     * report the highest value of the bucket they fall into, capped at
+     * {@link #getMax()}.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        Snapshot(long[] counts, long total, long max) {
+            long sum = 0;
+            for (long c : counts) {
+                sum += c;
+            }
+            this.counts = counts;
+            this.count = sum;
+            this.total = total;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /** Mean value, or 0 if nothing was recorded. */
+        public double getMean() {
+            return count == 0 ? 0 : (double) total / count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public long getP50() {
+            return getValueAtPercentile(50);
+        }
+
+        public long getP90() {
+            return getValueAtPercentile(90);
+        }
+
+        public long getP99() {
+            return getValueAtPercentile(99);
+        }
+
+        public long getP999() {
+            return getValueAtPercentile(99.9);
+        }
+
+        /**
+         * @param percentile in [0, 100]
+         * @return the value at or below which {@code percentile} percent of the
+         *         recorded values lie, or 0 if nothing was recorded
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be in [0, 100]");
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueIn(i), max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", mean=" + Math.round(getMean()) + "ns, p50=" + getP50()
+                    + "ns, p99=" + getP99() + "ns, max=" + max + "ns";
+        }
+    }
+}
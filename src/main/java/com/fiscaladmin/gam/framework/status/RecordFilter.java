@@ -0,0 +1,147 @@
+package com.fiscaladmin.gam.framework.status;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable conjunction of field conditions selecting records of one entity
+ * type, for set-based operations such as {@link StatusManager#transitionWhere}.
+ * <p>
+ * Fields are Joget form field IDs (e.g. {@code statement_id}) and map to the
+ * {@code c_<field>} columns; {@code id} maps to the primary key. Field names
+ * are validated, values are always bound as parameters.
+ *
+ * <pre>
+ * RecordFilter.where("statement_id", statementId).and("currency", "EUR")
+ * </pre>
+ */
+public final class RecordFilter {
+
+    private static final Pattern FIELD_NAME = Pattern.compile("[A-Za-z][A-Za-z0-9_]*");
+    private static final RecordFilter ALL = new RecordFilter(Collections.<Condition>emptyList());
+
+    private final List<Condition> conditions;
+
+    private RecordFilter(List<Condition> conditions) {
+        this.conditions = conditions;
+    }
+
+    /** Matches every record of the entity type. */
+    public static RecordFilter all() {
+        return ALL;
+    }
+
+    /** Records whose {@code field} equals {@code value}; a {@code null} value matches unset fields. */
+    public static RecordFilter where(String field, String value) {
+        return ALL.and(field, value);
+    }
+
+    /** Records whose {@code field} is one of {@code values}. */
+    public static RecordFilter whereIn(String field, Collection<String> values) {
+        return ALL.andIn(field, values);
+    }
+
+    public RecordFilter and(String field, String value) {
+        return with(new Condition(column(field), field, Collections.singletonList(value), false));
+    }
+
+    public RecordFilter andIn(String field, Collection<String> values) {
+        if (values == null || values.isEmpty()) {
+            throw new IllegalArgumentException("IN condition on " + field + " needs at least one value");
+        }
+        return with(new Condition(column(field), field, new ArrayList<>(values), true));
+    }
+
+    /**
+     * Appends {@code AND <condition>} for every condition to {@code sql} and
+     * the bound values to {@code params}.
+     *
+     * @param alias table alias to qualify columns with, or {@code null}
+     */
+    void appendTo(StringBuilder sql, String alias, List<Object> params) {
+        String prefix = alias != null ? alias + "." : "";
+        for (Condition condition : conditions) {
+            sql.append(" AND ").append(prefix).append(condition.column);
+            if (condition.in) {
+                InLists.appendIn(sql, condition.values.size());
+                params.addAll(condition.values);
+            } else if (condition.values.get(0) == null) {
+                sql.append(" IS NULL");
+            } else {
+                sql.append(" = ?");
+                params.add(condition.values.get(0));
+            }
+        }
+    }
+
+    /**
+     * Returns the value if this filter is exactly one equality condition on
+     * {@code field}, otherwise {@code null}.
+     */
+    String equalityValue(String field) {
+        if (conditions.size() != 1) {
+            return null;
+        }
+        Condition condition = conditions.get(0);
+        return !condition.in && condition.field.equalsIgnoreCase(field) ? condition.values.get(0) : null;
+    }
+
+    @Override
+    public String toString() {
+        if (conditions.isEmpty()) {
+            return "all";
+        }
+        StringBuilder text = new StringBuilder();
+        for (Condition condition : conditions) {
+            if (text.length() > 0) {
+                text.append(" and ");
+            }
+            text.append(condition.field).append(condition.in ? " in " : " = ")
+                    .append(condition.in ? condition.values : condition.values.get(0));
+        }
+        return text.toString();
+    }
+
+    private RecordFilter with(Condition condition) {
+        List<Condition> extended = new ArrayList<>(conditions.size() + 1);
+        extended.addAll(conditions);
+        extended.add(condition);
+        return new RecordFilter(Collections.unmodifiableList(extended));
+    }
+
+    /**
+     * Validates a form field ID for use in SQL and returns its column.
+     *
+     * @throws IllegalArgumentException if the name is not a plain identifier
+     */
+    static String checkField(String field) {
+        if (field == null || !FIELD_NAME.matcher(field).matches()) {
+            throw new IllegalArgumentException("Invalid field name: " + field);
+        }
+        return field.equalsIgnoreCase("id") ? "id" : JdbcStatusStore.COLUMN_PREFIX + field;
+    }
+
+    private static String column(String field) {
+        if ("status".equalsIgnoreCase(field)) {
+            throw new IllegalArgumentException("status cannot be filtered on; pass it as fromStatus");
+        }
+        return checkField(field);
+    }
+
+    private static final class Condition {
+        final String column;
+        final String field;
+        final List<String> values;
+        final boolean in;
+
+        Condition(String column, String field, List<String> values, boolean in) {
+            this.column = column;
+            this.field = field;
+            this.values = values;
+            this.in = in;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.fiscaladmin.gam.framework.status;
+
+/**
+ * Unchecked exception thrown when a transition cannot acquire its record's
+ * lock within the {@link RecordLocks} timeout. Nothing has been written; the
+ * caller may retry. Entity type and record ID are {@code null} when a
+ * multi-record call (e.g. {@link StatusManager#transitionAll}) timed out.
+ */
+public class RecordLockTimeoutException extends RuntimeException {
+
+    private final EntityType entityType;
+    private final String recordId;
+
+    public RecordLockTimeoutException(EntityType entityType, String recordId, String message) {
+        super(message);
+        this.entityType = entityType;
+        this.recordId = recordId;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public String getRecordId() {
+        return recordId;
+    }
+}
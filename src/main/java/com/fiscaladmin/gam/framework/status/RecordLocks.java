@@ -0,0 +1,155 @@
+package com.fiscaladmin.gam.framework.status;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks that serialize transitions of the same record within one JVM,
+ * so that two concurrent {@code load → validate → save} sequences cannot both
+ * validate against the same status.
+ * <p>
+ * A record maps to one of a fixed number of {@link ReentrantLock}s by the
+ * hash of {@code (EntityType, recordId)}. Different records contend only when
+ * they share a stripe, which becomes rarer as the stripe count grows. Calls
+ * that lock several records take their stripes in ascending order, so they
+ * cannot deadlock with each other.
+ * <p>
+ * These locks do not coordinate separate Joget nodes; use
+ * {@link StatusManager#transitionIfCurrent} or {@link StatusManager#claim}
+ * for that.
+ */
+public class RecordLocks {
+
+    public static final int DEFAULT_STRIPES = 256;
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutNanos;
+
+    /** {@value #DEFAULT_STRIPES} stripes, waiting indefinitely. */
+    public RecordLocks() {
+        this(DEFAULT_STRIPES, 0);
+    }
+
+    /**
+     * @param stripes       number of locks, rounded up to a power of two
+     * @param timeoutMillis how long to wait for a lock before throwing
+     *                      {@link RecordLockTimeoutException}; 0 waits indefinitely
+     */
+    public RecordLocks(int stripes, long timeoutMillis) {
+        if (stripes < 1 || stripes > 1 << 16 || timeoutMillis < 0) {
+            throw new IllegalArgumentException("stripes must be 1..65536 and timeoutMillis non-negative");
+        }
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Locks the record's stripe; release it by closing the returned handle.
+     *
+     * @throws RecordLockTimeoutException if the timeout elapses or the thread is interrupted
+     */
+    Held lock(EntityType entityType, String recordId) {
+        int stripe = stripe(entityType, recordId);
+        acquire(stripe, entityType, recordId);
+        return new Held(new int[] {stripe}, 1);
+    }
+
+    /**
+     * Locks the stripes of all the records in ascending stripe order.
+     *
+     * @throws RecordLockTimeoutException if a timeout elapses; stripes taken so
+     *                                    far are released
+     */
+    Held lockAll(Map<EntityType, ? extends Collection<String>> recordIds) {
+        int size = 0;
+        for (Collection<String> ids : recordIds.values()) {
+            size += ids.size();
+        }
+        int[] order = new int[size];
+        int n = 0;
+        for (Map.Entry<EntityType, ? extends Collection<String>> entry : recordIds.entrySet()) {
+            for (String recordId : entry.getValue()) {
+                order[n++] = stripe(entry.getKey(), recordId);
+            }
+        }
+        Arrays.sort(order);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || order[distinct - 1] != order[i]) {
+                order[distinct++] = order[i];
+            }
+        }
+        for (int i = 0; i < distinct; i++) {
+            try {
+                acquire(order[i], null, null);
+            } catch (RuntimeException e) {
+                new Held(order, i).close();
+                throw e;
+            }
+        }
+        return new Held(order, distinct);
+    }
+
+    int stripe(EntityType entityType, String recordId) {
+        int h = recordId.hashCode() * 31 + entityType.ordinal();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h & (stripes.length - 1);
+    }
+
+    private void acquire(int stripe, EntityType entityType, String recordId) {
+        ReentrantLock lock = stripes[stripe];
+        if (timeoutNanos == 0) {
+            lock.lock();
+            return;
+        }
+        try {
+            if (lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RecordLockTimeoutException(entityType, recordId,
+                    "Interrupted waiting for record lock: " + describe(entityType, recordId));
+        }
+        throw new RecordLockTimeoutException(entityType, recordId,
+                "Timed out waiting for record lock: " + describe(entityType, recordId));
+    }
+
+    private static String describe(EntityType entityType, String recordId) {
+        return recordId != null ? entityType + " / " + recordId : "batch";
+    }
+
+    /** Stripes held by the current thread; {@link #close()} releases them in reverse order. */
+    final class Held implements AutoCloseable {
+        private final int[] order;
+        private final int count;
+
+        private Held(int[] order, int count) {
+            this.order = order;
+            this.count = count;
+        }
+
+        @Override
+        public void close() {
+            for (int i = count - 1; i >= 0; i--) {
+                stripes[order[i]].unlock();
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.fiscaladmin.gam.framework.status;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * All status values used across the GAM system.
  * <p>
@@ -59,6 +61,55 @@ public enum Status {
     private final String code;
     private final String label;
 
+    // ──────────────────────────────────────────────────────────────────
+    //  Code lookup table
+    // ──────────────────────────────────────────────────────────────────
+
+    /*
+     * Perfect hash over the lowercase codes: at class init we search for the
+     * smallest power-of-two table size and multiplier under which every code
+     * lands in its own slot. A lookup then hashes the input once (folding
+     * ASCII upper case on the fly), reads one slot, and confirms with a
+     * case-insensitive comparison — no allocation and no values() clone.
+     */
+    private static final Status[] TABLE;
+    private static final int MULTIPLIER;
+    private static final int MASK;
+
+    static {
+        Status[] values = values();
+        Status[] table = null;
+        int multiplier = 0;
+        search:
+        for (int size = Integer.highestOneBit(values.length) << 1; size <= 1 << 12; size <<= 1) {
+            multipliers:
+            for (int m = 31; m < 31 + 64; m += 2) {
+                Status[] candidate = new Status[size];
+                for (Status s : values) {
+                    int slot = hashAscii(s.code, 0, s.code.length(), m) & (size - 1);
+                    if (candidate[slot] != null) {
+                        continue multipliers;
+                    }
+                    candidate[slot] = s;
+                }
+                table = candidate;
+                multiplier = m;
+                break search;
+            }
+        }
+        if (table == null) {
+            throw new IllegalStateException("No collision-free code table for Status");
+        }
+        TABLE = table;
+        MULTIPLIER = multiplier;
+        MASK = table.length - 1;
+    }
+
+    /** Size of the code lookup table. */
+    static int codeTableSize() {
+        return TABLE.length;
+    }
+
     Status(String code, String label) {
         this.code = code;
         this.label = label;
@@ -83,16 +134,76 @@ public enum Status {
      * @throws IllegalArgumentException if no Status matches the given code
      */
     public static Status fromCode(String code) {
+        return fromCode((CharSequence) code);
+    }
+
+    /**
+     * Lookup a Status by its database code value held in any
+     * {@link CharSequence} (e.g. a reused {@link StringBuilder}).
+     * Comparison is case-insensitive; no objects are allocated.
+     *
+     * @throws IllegalArgumentException if the code is null or unknown
+     */
+    public static Status fromCode(CharSequence code) {
         if (code == null) {
             throw new IllegalArgumentException("Status code must not be null");
         }
-        String lowerCode = code.toLowerCase();
-        for (Status s : values()) {
-            if (s.code.equals(lowerCode)) {
-                return s;
+        Status status = lookup(code);
+        if (status == null) {
+            throw new IllegalArgumentException("Unknown status code: " + code);
+        }
+        return status;
+    }
+
+    /**
+     * Lookup a Status by its database code encoded as ASCII/UTF-8 bytes, e.g.
+     * straight from a JDBC or NIO buffer. Comparison is case-insensitive; no
+     * objects are allocated.
+     *
+     * @throws IllegalArgumentException if the bytes are null or not a known code
+     */
+    public static Status fromCode(byte[] bytes, int offset, int length) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("Status code must not be null");
+        }
+        Status status = fromCodeOrDefault(bytes, offset, length, null);
+        if (status == null) {
+            throw new IllegalArgumentException("Unknown status code: "
+                    + new String(bytes, offset, length, StandardCharsets.UTF_8));
+        }
+        return status;
+    }
+
+    /**
+     * Non-throwing lookup: returns {@code defaultValue} (which may be
+     * {@code null}) when the code is {@code null} or unknown.
+     */
+    public static Status fromCodeOrDefault(CharSequence code, Status defaultValue) {
+        if (code == null) {
+            return defaultValue;
+        }
+        Status status = lookup(code);
+        return status != null ? status : defaultValue;
+    }
+
+    /**
+     * Non-throwing byte-level lookup: returns {@code defaultValue} (which may
+     * be {@code null}) when the bytes are {@code null} or not a known code.
+     */
+    public static Status fromCodeOrDefault(byte[] bytes, int offset, int length, Status defaultValue) {
+        if (bytes == null) {
+            return defaultValue;
+        }
+        Status candidate = TABLE[hashAscii(bytes, offset, length, MULTIPLIER) & MASK];
+        if (candidate == null || candidate.code.length() != length) {
+            return defaultValue;
+        }
+        for (int i = 0; i < length; i++) {
+            if (toLowerAscii(bytes[offset + i] & 0xFF) != candidate.code.charAt(i)) {
+                return defaultValue;
             }
         }
-        throw new IllegalArgumentException("Unknown status code: " + code);
+        return candidate;
     }
 
     /** Returns the database code value. */
@@ -100,4 +211,42 @@ public enum Status {
     public String toString() {
         return code;
     }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Private helpers
+    // ──────────────────────────────────────────────────────────────────
+
+    private static Status lookup(CharSequence code) {
+        int length = code.length();
+        Status candidate = TABLE[hashAscii(code, 0, length, MULTIPLIER) & MASK];
+        if (candidate == null || candidate.code.length() != length) {
+            return null;
+        }
+        for (int i = 0; i < length; i++) {
+            if (toLowerAscii(code.charAt(i)) != candidate.code.charAt(i)) {
+                return null;
+            }
+        }
+        return candidate;
+    }
+
+    private static int hashAscii(CharSequence s, int offset, int length, int multiplier) {
+        int h = length;
+        for (int i = offset; i < offset + length; i++) {
+            h = h * multiplier + toLowerAscii(s.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static int hashAscii(byte[] bytes, int offset, int length, int multiplier) {
+        int h = length;
+        for (int i = offset; i < offset + length; i++) {
+            h = h * multiplier + toLowerAscii(bytes[i] & 0xFF);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static int toLowerAscii(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
 }
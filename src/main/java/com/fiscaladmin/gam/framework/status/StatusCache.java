@@ -0,0 +1,221 @@
+package com.fiscaladmin.gam.framework.status;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, in-memory cache of {@code (EntityType, recordId) → Status}, placed
+ * in front of the record load in {@link StatusManager#transition}.
+ * <p>
+ * Each entity type has its own size limit and is split into
+ * {@value #STRIPES} independently locked LRU stripes, so lookups on different
+ * records rarely contend. Eviction is least-recently-used per stripe; entries
+ * also expire after a fixed time-to-live so that changes made outside this
+ * JVM are picked up eventually.
+ * <p>
+ * The cache is only an optimisation: {@link StatusManager} acts on a cached
+ * status only through {@link StatusPersistence#saveIfCurrent}, which writes
+ * the status and its audit entry only if the stored status still matches,
+ * and falls back to loading the record when the cached value turns out to be
+ * stale.
+ */
+public class StatusCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[][] stripes;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /** Creates a cache with {@link #DEFAULT_MAX_ENTRIES} per entity type and the default TTL. */
+    public StatusCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * @param maxEntriesPerEntity default size limit for each entity type
+     * @param ttlMillis           time after which an entry is treated as absent
+     */
+    public StatusCache(int maxEntriesPerEntity, long ttlMillis) {
+        this(maxEntriesPerEntity, ttlMillis, System::nanoTime);
+    }
+
+    StatusCache(int maxEntriesPerEntity, long ttlMillis, LongSupplier clock) {
+        if (maxEntriesPerEntity < 1 || ttlMillis < 1) {
+            throw new IllegalArgumentException("maxEntriesPerEntity and ttlMillis must be positive");
+        }
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.clock = clock;
+        this.stripes = new Stripe[EntityType.values().length][STRIPES];
+        for (Stripe[] entityStripes : stripes) {
+            for (int i = 0; i < STRIPES; i++) {
+                entityStripes[i] = new Stripe(stripeCapacity(maxEntriesPerEntity));
+            }
+        }
+    }
+
+    /**
+     * Overrides the size limit of one entity type, e.g. a large limit for
+     * {@code BANK_TRX} and a small one for {@code STATEMENT}.
+     */
+    public void setMaxEntries(EntityType entityType, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        int capacity = stripeCapacity(maxEntries);
+        for (Stripe stripe : stripes[entityType.ordinal()]) {
+            synchronized (stripe) {
+                stripe.capacity = capacity;
+                evictOverflow(stripe);
+            }
+        }
+    }
+
+    /** Returns the cached status, or {@code null} on a miss or an expired entry. */
+    public Status get(EntityType entityType, String recordId) {
+        Stripe stripe = stripeFor(entityType, recordId);
+        synchronized (stripe) {
+            Entry entry = stripe.map.get(recordId);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (clock.getAsLong() - entry.expiresAt > 0) {
+                stripe.map.remove(recordId);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.status;
+        }
+    }
+
+    /** Caches the status of a record; a {@code null} status removes the entry. */
+    public void put(EntityType entityType, String recordId, Status status) {
+        if (status == null) {
+            invalidate(entityType, recordId);
+            return;
+        }
+        Stripe stripe = stripeFor(entityType, recordId);
+        synchronized (stripe) {
+            stripe.map.put(recordId, new Entry(status, clock.getAsLong() + ttlNanos));
+            evictOverflow(stripe);
+        }
+    }
+
+    public void invalidate(EntityType entityType, String recordId) {
+        Stripe stripe = stripeFor(entityType, recordId);
+        synchronized (stripe) {
+            stripe.map.remove(recordId);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Stripe[] entityStripes : stripes) {
+            for (Stripe stripe : entityStripes) {
+                synchronized (stripe) {
+                    stripe.map.clear();
+                }
+            }
+        }
+    }
+
+    public void invalidateAll(EntityType entityType) {
+        for (Stripe stripe : stripes[entityType.ordinal()]) {
+            synchronized (stripe) {
+                stripe.map.clear();
+            }
+        }
+    }
+
+    /** Number of cached entries of one entity type, including not-yet-purged expired ones. */
+    public int size(EntityType entityType) {
+        int size = 0;
+        for (Stripe stripe : stripes[entityType.ordinal()]) {
+            synchronized (stripe) {
+                size += stripe.map.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /** Entries removed to respect a size limit. */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /** Entries dropped because their TTL had passed. */
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "StatusCache[hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + ", expirations=" + getExpirationCount() + "]";
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Private helpers
+    // ──────────────────────────────────────────────────────────────────
+
+    private Stripe stripeFor(EntityType entityType, String recordId) {
+        int h = recordId.hashCode();
+        h ^= h >>> 16;
+        return stripes[entityType.ordinal()][h & (STRIPES - 1)];
+    }
+
+    private void evictOverflow(Stripe stripe) {
+        Iterator<Map.Entry<String, Entry>> eldest = stripe.map.entrySet().iterator();
+        while (stripe.map.size() > stripe.capacity && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static int stripeCapacity(int maxEntries) {
+        return Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+    }
+
+    private static final class Stripe {
+        /** Access-ordered: iteration starts at the least recently used entry. */
+        final LinkedHashMap<String, Entry> map = new LinkedHashMap<>(16, 0.75f, true);
+        int capacity;
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    private static final class Entry {
+        final Status status;
+        final long expiresAt;
+
+        Entry(Status status, long expiresAt) {
+            this.status = status;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
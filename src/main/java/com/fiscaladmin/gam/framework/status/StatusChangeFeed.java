@@ -0,0 +1,318 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.commons.util.LogUtil;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@link StatusCache} and {@link StatusIndex} of several Joget nodes
+ * coherent through a change table in the shared database, without a message
+ * broker.
+ * <p>
+ * Every transition written by this node's {@link StatusManager} is appended to
+ * {@value #CHANGE_TABLE} (one JDBC batch per write); a
+ * {@link StatusManager#transitionWhere} is appended as a single entity-type
+ * wide row. Each node polls the table every {@code pollMillis} for rows with
+ * a higher sequence number and applies them in order: record rows
+ * update the cached and indexed status, entity-type rows invalidate the
+ * entity's cache and drop the from-status from the index. A remote change is
+ * therefore visible locally within about one poll interval.
+ * <p>
+ * Sequence numbers are assigned at insert but become visible at commit, so a
+ * poll can see a higher number before a lower one. The poller only advances
+ * its position past a gap once the gap is older than
+ * {@link #setGapTimeoutMillis the gap timeout}; rows after the gap are applied
+ * again in order on the next poll, which is harmless. Rows older than the
+ * retention period are deleted by the pollers.
+ * <p>
+ * The change row is written after the status commit, not in the same
+ * transaction; if it fails, other nodes rely on their cache TTL.
+ */
+public class StatusChangeFeed implements TransitionListener, AutoCloseable {
+
+    private static final String CLASS_NAME = StatusChangeFeed.class.getName();
+
+    /** Table holding the recent status changes of all nodes. */
+    public static final String CHANGE_TABLE = "gam_status_change";
+
+    public static final long DEFAULT_RETENTION_MILLIS = TimeUnit.HOURS.toMillis(1);
+    public static final long DEFAULT_GAP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private static final int POLL_BATCH_SIZE = 1_000;
+    private static final int PRUNE_EVERY_POLLS = 100;
+
+    private final StatusManager statusManager;
+    private final DataSource dataSource;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile long retentionMillis = DEFAULT_RETENTION_MILLIS;
+    private volatile long gapTimeoutMillis = DEFAULT_GAP_TIMEOUT_MILLIS;
+    private volatile boolean tableReady;
+
+    /** Highest sequence number below which every change has been applied; guarded by {@code this}. */
+    private long position = -1;
+    /** First sequence number of the oldest gap seen and when it was first seen; guarded by {@code this}. */
+    private long gapSeq = -1;
+    private long gapSince;
+    private long polls;
+
+    private final BackgroundTask poller = new BackgroundTask(CLASS_NAME, "gam-status-change-feed");
+
+    public StatusChangeFeed(StatusManager statusManager, DataSource dataSource) {
+        if (statusManager == null || dataSource == null) {
+            throw new IllegalArgumentException("statusManager and dataSource must not be null");
+        }
+        this.statusManager = statusManager;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Registers this feed with the manager and polls for other nodes' changes
+     * every {@code pollMillis} on a daemon thread. Only changes made after
+     * this call are applied.
+     */
+    public synchronized void start(long pollMillis) {
+        if (poller.isStarted()) {
+            throw new IllegalStateException("Status change feed already started");
+        }
+        if (pollMillis < 1) {
+            throw new IllegalArgumentException("pollMillis must be positive");
+        }
+        poll();
+        statusManager.addTransitionListener(this);
+        poller.start();
+        poller.schedule(this::poll, pollMillis, pollMillis, "Status change poll failed");
+    }
+
+    /**
+     * Stops polling and unregisters the feed from the manager. Not
+     * synchronized: it waits for a running poll, which needs the monitor.
+     */
+    @Override
+    public void close() {
+        statusManager.removeTransitionListener(this);
+        poller.close();
+    }
+
+    /**
+     * Applies the changes other nodes made since the last poll. The first
+     * call only records the current position.
+     *
+     * @return the number of other nodes' change rows applied
+     * @throws StatusStoreException if the database access fails
+     */
+    public synchronized int poll() {
+        int applied = 0;
+        try {
+            ensureTable();
+            try (Connection connection = dataSource.getConnection()) {
+                if (position < 0) {
+                    position = maxSeq(connection);
+                    return 0;
+                }
+                applied = applyChanges(connection);
+                if (++polls % PRUNE_EVERY_POLLS == 0) {
+                    prune(connection);
+                }
+            }
+        } catch (SQLException e) {
+            throw new StatusStoreException("Status change poll failed", e);
+        }
+        return applied;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /** How long change rows are kept; defaults to {@link #DEFAULT_RETENTION_MILLIS}. */
+    public void setRetentionMillis(long retentionMillis) {
+        this.retentionMillis = retentionMillis;
+    }
+
+    /**
+     * How long a poll waits for a missing sequence number to appear before
+     * skipping it; defaults to {@link #DEFAULT_GAP_TIMEOUT_MILLIS}.
+     */
+    public void setGapTimeoutMillis(long gapTimeoutMillis) {
+        this.gapTimeoutMillis = gapTimeoutMillis;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  TransitionListener — publish this node's changes
+    // ──────────────────────────────────────────────────────────────────
+
+    @Override
+    public void onTransition(TransitionResult result) {
+        onTransitions(Collections.singletonList(result));
+    }
+
+    @Override
+    public void onTransitions(List<TransitionResult> results) {
+        try {
+            ensureTable();
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement insert = connection.prepareStatement(insertSql())) {
+                long now = System.currentTimeMillis();
+                for (TransitionResult result : results) {
+                    bind(insert, result.getEntityType(), result.getRecordId(),
+                            result.getFromStatus(), result.getToStatus(), now);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        } catch (SQLException e) {
+            LogUtil.error(CLASS_NAME, e, "Cannot publish " + results.size() + " status changes");
+        }
+    }
+
+    @Override
+    public void onBulkTransition(EntityType entityType, RecordFilter filter,
+                                 Status fromStatus, Status toStatus, int count) {
+        try {
+            ensureTable();
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement insert = connection.prepareStatement(insertSql())) {
+                bind(insert, entityType, null, fromStatus, toStatus, System.currentTimeMillis());
+                insert.executeUpdate();
+            }
+        } catch (SQLException e) {
+            LogUtil.error(CLASS_NAME, e, "Cannot publish bulk status change of " + entityType);
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Private helpers
+    // ──────────────────────────────────────────────────────────────────
+
+    private int applyChanges(Connection connection) throws SQLException {
+        StatusCache cache = statusManager.getStatusCache();
+        StatusIndex index = statusManager.getStatusIndex();
+        int applied = 0;
+        long expected = position + 1;
+        long contiguous = position;
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT seq, entity_type, record_id, from_status, to_status, node_id FROM "
+                        + CHANGE_TABLE + " WHERE seq > ? ORDER BY seq LIMIT ?")) {
+            select.setLong(1, position);
+            select.setInt(2, POLL_BATCH_SIZE);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    long seq = rs.getLong(1);
+                    // Past an unexpired gap the position holds and later rows are re-read next time
+                    if (contiguous == expected - 1 && (seq == expected || gapExpired(expected))) {
+                        contiguous = seq;
+                    }
+                    expected = seq + 1;
+                    // Own rows are applied too, so re-read rows never leave an older status behind
+                    apply(cache, index, EntityType.valueOf(rs.getString(2)), rs.getString(3),
+                            Status.fromCodeOrDefault(rs.getString(4), null),
+                            Status.fromCodeOrDefault(rs.getString(5), null));
+                    if (!nodeId.equals(rs.getString(6))) {
+                        applied++;
+                    }
+                }
+            }
+        }
+        if (contiguous == expected - 1) {
+            gapSeq = -1;
+        }
+        position = contiguous;
+        return applied;
+    }
+
+    /**
+     * Returns {@code true} once the gap starting at {@code seq} has been seen
+     * for longer than the gap timeout.
+     */
+    private boolean gapExpired(long seq) {
+        long now = System.currentTimeMillis();
+        if (gapSeq != seq) {
+            gapSeq = seq;
+            gapSince = now;
+        }
+        return now - gapSince >= gapTimeoutMillis;
+    }
+
+    private void apply(StatusCache cache, StatusIndex index, EntityType entityType,
+                       String recordId, Status fromStatus, Status toStatus) {
+        if (recordId != null) {
+            if (cache != null) {
+                cache.put(entityType, recordId, toStatus);
+            }
+            if (index != null) {
+                index.put(entityType, recordId, toStatus);
+            }
+            return;
+        }
+        if (cache != null) {
+            cache.invalidateAll(entityType);
+        }
+        if (index != null && fromStatus != null) {
+            index.removeAll(entityType, fromStatus);
+        }
+    }
+
+    private static long maxSeq(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MAX(seq) FROM " + CHANGE_TABLE)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private void prune(Connection connection) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM " + CHANGE_TABLE + " WHERE changed_at < ?")) {
+            delete.setLong(1, System.currentTimeMillis() - retentionMillis);
+            delete.executeUpdate();
+        }
+    }
+
+    private String insertSql() {
+        return "INSERT INTO " + CHANGE_TABLE
+                + " (entity_type, record_id, from_status, to_status, node_id, changed_at)"
+                + " VALUES (?, ?, ?, ?, ?, ?)";
+    }
+
+    private void bind(PreparedStatement insert, EntityType entityType, String recordId,
+                      Status fromStatus, Status toStatus, long now) throws SQLException {
+        insert.setString(1, entityType.name());
+        if (recordId != null) {
+            insert.setString(2, recordId);
+        } else {
+            insert.setNull(2, Types.VARCHAR);
+        }
+        insert.setString(3, fromStatus != null ? fromStatus.getCode() : null);
+        insert.setString(4, toStatus.getCode());
+        insert.setString(5, nodeId);
+        insert.setLong(6, now);
+    }
+
+    private void ensureTable() throws SQLException {
+        if (tableReady) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + CHANGE_TABLE + " ("
+                    + "seq BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "entity_type VARCHAR(64) NOT NULL, "
+                    + "record_id VARCHAR(255), "
+                    + "from_status VARCHAR(64), "
+                    + "to_status VARCHAR(64) NOT NULL, "
+                    + "node_id VARCHAR(64) NOT NULL, "
+                    + "changed_at BIGINT NOT NULL)");
+        }
+        tableReady = true;
+    }
+}
@@ -0,0 +1,180 @@
+package com.fiscaladmin.gam.framework.status;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.fiscaladmin.gam.framework.status.JdbcStatusStore.STATUS_COLUMN;
+import static com.fiscaladmin.gam.framework.status.JdbcStatusStore.physicalTable;
+
+/**
+ * Number of records of each entity type in each status, for dashboards that
+ * would otherwise run {@code GROUP BY c_status} on every table on every
+ * refresh.
+ * <p>
+ * The counts are seeded by one aggregate query over all tracked tables
+ * ({@code UNION ALL} of one {@code GROUP BY} per table) and then kept current
+ * as a {@link TransitionListener}: install it with
+ * {@link StatusManager#setStatusHistogram}. Records inserted or deleted
+ * outside {@link StatusManager} are picked up by the next {@link #refresh()};
+ * {@link #startBackgroundRefresh} runs it periodically. Transitions that race
+ * with a refresh may be off by one until the next refresh.
+ */
+public class StatusHistogram implements TransitionListener, AutoCloseable {
+
+    private static final String CLASS_NAME = StatusHistogram.class.getName();
+
+    private static final int STATUS_COUNT = Status.values().length;
+
+    private final DataSource dataSource;
+    private final Set<EntityType> entityTypes;
+    private final String refreshSql;
+
+    /** Per entity type ordinal; {@code null} until the first refresh and for untracked types. */
+    private volatile AtomicLongArray[] counts;
+    private volatile long refreshedAt;
+    private final BackgroundTask refresher = new BackgroundTask(CLASS_NAME, "gam-status-histogram");
+
+    /** Tracks every {@link EntityType}. */
+    public StatusHistogram(DataSource dataSource) {
+        this(dataSource, EntityType.values());
+    }
+
+    public StatusHistogram(DataSource dataSource, EntityType... entityTypes) {
+        if (dataSource == null || entityTypes.length == 0) {
+            throw new IllegalArgumentException("dataSource and at least one entity type are required");
+        }
+        this.dataSource = dataSource;
+        Set<EntityType> types = EnumSet.noneOf(EntityType.class);
+        Collections.addAll(types, entityTypes);
+        this.entityTypes = Collections.unmodifiableSet(types);
+
+        StringBuilder sql = new StringBuilder();
+        for (EntityType type : types) {
+            if (sql.length() > 0) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append("SELECT '").append(type.name()).append("', ").append(STATUS_COLUMN)
+                    .append(", COUNT(*) FROM ").append(physicalTable(type))
+                    .append(" GROUP BY ").append(STATUS_COLUMN);
+        }
+        this.refreshSql = sql.toString();
+    }
+
+    /**
+     * Returns a snapshot of the counts for the entity type; statuses without
+     * records are omitted. Refreshes first if the histogram was never seeded.
+     *
+     * @throws IllegalArgumentException if the entity type is not tracked
+     * @throws StatusStoreException     if seeding fails
+     */
+    public EnumMap<Status, Long> getCounts(EntityType entityType) {
+        if (!entityTypes.contains(entityType)) {
+            throw new IllegalArgumentException(entityType + " is not tracked by this histogram");
+        }
+        if (counts == null) {
+            refresh();
+        }
+        AtomicLongArray typeCounts = counts[entityType.ordinal()];
+        EnumMap<Status, Long> result = new EnumMap<>(Status.class);
+        for (Status status : Status.values()) {
+            long count = typeCounts.get(status.ordinal());
+            if (count != 0) {
+                result.put(status, count);
+            }
+        }
+        return result;
+    }
+
+    public Set<EntityType> getEntityTypes() {
+        return entityTypes;
+    }
+
+    /** Time of the last successful refresh in epoch milliseconds, 0 before the first. */
+    public long getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  TransitionListener
+    // ──────────────────────────────────────────────────────────────────
+
+    @Override
+    public void onTransition(TransitionResult result) {
+        apply(result.getEntityType(), result.getFromStatus(), result.getToStatus(), 1);
+    }
+
+    @Override
+    public void onBulkTransition(EntityType entityType, RecordFilter filter,
+                                 Status fromStatus, Status toStatus, int count) {
+        apply(entityType, fromStatus, toStatus, count);
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Refresh
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * Replaces all counts with the result of one aggregate query.
+     * Unknown status codes and records without status are not counted.
+     *
+     * @throws StatusStoreException if the query fails
+     */
+    public void refresh() {
+        AtomicLongArray[] fresh = new AtomicLongArray[EntityType.values().length];
+        for (EntityType type : entityTypes) {
+            fresh[type.ordinal()] = new AtomicLongArray(STATUS_COUNT);
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(refreshSql);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                Status status = Status.fromCodeOrDefault(rs.getString(2), null);
+                if (status != null) {
+                    fresh[EntityType.valueOf(rs.getString(1)).ordinal()]
+                            .addAndGet(status.ordinal(), rs.getLong(3));
+                }
+            }
+        } catch (SQLException e) {
+            throw new StatusStoreException("Status histogram refresh failed", e);
+        }
+        counts = fresh;
+        refreshedAt = System.currentTimeMillis();
+    }
+
+    /** Refreshes every {@code periodMillis} on a daemon thread, starting now. */
+    public void startBackgroundRefresh(long periodMillis) {
+        if (!refresher.start()) {
+            throw new IllegalStateException("Background refresh already started");
+        }
+        refresher.schedule(this::refresh, 0, periodMillis, "Background status histogram refresh failed");
+    }
+
+    /** Stops the background refresh, if started. */
+    @Override
+    public void close() {
+        refresher.close();
+    }
+
+    private void apply(EntityType entityType, Status from, Status to, long count) {
+        AtomicLongArray[] current = counts;
+        if (current == null || from == to) {
+            return;
+        }
+        AtomicLongArray typeCounts = current[entityType.ordinal()];
+        if (typeCounts == null) {
+            return;
+        }
+        if (from != null) {
+            typeCounts.addAndGet(from.ordinal(), -count);
+        }
+        typeCounts.addAndGet(to.ordinal(), count);
+    }
+}
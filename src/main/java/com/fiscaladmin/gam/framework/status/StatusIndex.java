@@ -0,0 +1,307 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.commons.util.LogUtil;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact in-memory index of {@code (EntityType, recordId) → Status} for
+ * records in non-terminal statuses, letting
+ * {@link StatusManager#canTransitionRecord} answer without the database.
+ * <p>
+ * Each entity type is split into {@value #STRIPES} independently locked
+ * open-addressing hash tables held in three primitive arrays: the record ID's
+ * 128-bit fingerprint (two {@code long}s) and the status ordinal (one
+ * {@code byte}, 0 marking a free slot). An entry costs about 23 bytes and no
+ * objects, so millions of records add nothing for the garbage collector to
+ * trace. A false match would need two IDs with the same 128-bit fingerprint.
+ * <p>
+ * Install with {@link StatusManager#setStatusIndex}; the manager then keeps
+ * the index in sync with every transition it writes and drops records that
+ * reach a terminal status. {@link #load} fills it at startup. Status changes
+ * made outside {@link StatusManager} are not seen until the next load.
+ */
+public class StatusIndex implements TransitionListener {
+
+    private static final String CLASS_NAME = StatusIndex.class.getName();
+
+    private static final int STRIPES = 16;
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int LOAD_PAGE_SIZE = 10_000;
+    private static final Status[] STATUSES = Status.values();
+
+    private final Table[][] tables;
+
+    public StatusIndex() {
+        this.tables = new Table[EntityType.values().length][STRIPES];
+        for (Table[] entityTables : tables) {
+            for (int i = 0; i < STRIPES; i++) {
+                entityTables[i] = new Table(INITIAL_CAPACITY);
+            }
+        }
+    }
+
+    /** Returns the indexed status, or {@code null} if the record is not indexed. */
+    public Status get(EntityType entityType, String recordId) {
+        long hi = fingerprintHigh(recordId);
+        long lo = fingerprintLow(recordId);
+        Table table = table(entityType, hi);
+        int ordinal;
+        synchronized (table) {
+            ordinal = table.get(hi, lo);
+        }
+        return ordinal < 0 ? null : STATUSES[ordinal];
+    }
+
+    /**
+     * Records the status; a terminal status (or {@code null}) removes the
+     * record instead.
+     */
+    public void put(EntityType entityType, String recordId, Status status) {
+        if (status == null || StatusManager.isTerminal(entityType, status)) {
+            remove(entityType, recordId);
+            return;
+        }
+        long hi = fingerprintHigh(recordId);
+        long lo = fingerprintLow(recordId);
+        Table table = table(entityType, hi);
+        synchronized (table) {
+            table.put(hi, lo, (byte) (status.ordinal() + 1));
+        }
+    }
+
+    public void remove(EntityType entityType, String recordId) {
+        long hi = fingerprintHigh(recordId);
+        long lo = fingerprintLow(recordId);
+        Table table = table(entityType, hi);
+        synchronized (table) {
+            table.remove(hi, lo);
+        }
+    }
+
+    /** Removes every record of the entity type currently indexed in {@code status}. */
+    public void removeAll(EntityType entityType, Status status) {
+        byte code = (byte) (status.ordinal() + 1);
+        for (Table table : tables[entityType.ordinal()]) {
+            synchronized (table) {
+                table.removeAll(code);
+            }
+        }
+    }
+
+    public void clear() {
+        for (Table[] entityTables : tables) {
+            for (Table table : entityTables) {
+                synchronized (table) {
+                    table.clear();
+                }
+            }
+        }
+    }
+
+    /** Number of indexed records of the entity type. */
+    public long size(EntityType entityType) {
+        long size = 0;
+        for (Table table : tables[entityType.ordinal()]) {
+            synchronized (table) {
+                size += table.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Bulk-loads every record in a non-terminal status, one keyset-paginated
+     * scan per entity type and status (see {@link StatusManager#findByStatus}).
+     * Existing entries are kept and overwritten where the database differs.
+     *
+     * @return the number of records loaded
+     * @throws StatusStoreException if a query fails
+     */
+    public long load(DataSource dataSource) {
+        long loaded = 0;
+        List<String> noFields = Collections.emptyList();
+        for (EntityType entityType : EntityType.values()) {
+            for (Status status : STATUSES) {
+                if (StatusManager.isTerminal(entityType, status)) {
+                    continue;
+                }
+                StatusScan scan = new StatusScan(dataSource, entityType, status, LOAD_PAGE_SIZE, noFields);
+                long[] count = new long[1];
+                scan.forEachRemaining(row -> {
+                    put(entityType, row.getId(), status);
+                    count[0]++;
+                });
+                loaded += count[0];
+            }
+        }
+        LogUtil.info(CLASS_NAME, "Loaded " + loaded + " non-terminal records into the status index");
+        return loaded;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  TransitionListener
+    // ──────────────────────────────────────────────────────────────────
+
+    @Override
+    public void onTransition(TransitionResult result) {
+        put(result.getEntityType(), result.getRecordId(), result.getToStatus());
+    }
+
+    /**
+     * The moved records are not known, so every record indexed in
+     * {@code fromStatus} is dropped; lookups of the ones that did not move
+     * fall back to the database.
+     */
+    @Override
+    public void onBulkTransition(EntityType entityType, RecordFilter filter,
+                                 Status fromStatus, Status toStatus, int count) {
+        if (fromStatus != null) {
+            removeAll(entityType, fromStatus);
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Private helpers
+    // ──────────────────────────────────────────────────────────────────
+
+    private Table table(EntityType entityType, long hi) {
+        return tables[entityType.ordinal()][(int) (hi >>> 60) & (STRIPES - 1)];
+    }
+
+    /** FNV-1a over the characters, finished with the MurmurHash3 mixer. */
+    private static long fingerprintHigh(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /** An independent multiply-rotate hash over the characters, seeded by the length. */
+    private static long fingerprintLow(String id) {
+        long h = 0x9e3779b97f4a7c15L ^ id.length();
+        for (int i = 0; i < id.length(); i++) {
+            h = Long.rotateLeft((h + id.charAt(i)) * 0xc2b2ae3d27d4eb4fL, 31);
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Open-addressing table with linear probing and backward-shift deletion
+     * (no tombstones). Callers synchronize on the table.
+     */
+    private static final class Table {
+        long[] his;
+        long[] los;
+        /** Status ordinal + 1; 0 = free slot. */
+        byte[] codes;
+        int size;
+
+        Table(int capacity) {
+            allocate(capacity);
+        }
+
+        int get(long hi, long lo) {
+            int mask = codes.length - 1;
+            for (int i = (int) hi & mask; codes[i] != 0; i = (i + 1) & mask) {
+                if (his[i] == hi && los[i] == lo) {
+                    return codes[i] - 1;
+                }
+            }
+            return -1;
+        }
+
+        void put(long hi, long lo, byte code) {
+            int mask = codes.length - 1;
+            int i = (int) hi & mask;
+            for (; codes[i] != 0; i = (i + 1) & mask) {
+                if (his[i] == hi && los[i] == lo) {
+                    codes[i] = code;
+                    return;
+                }
+            }
+            his[i] = hi;
+            los[i] = lo;
+            codes[i] = code;
+            if (++size > codes.length * 3 / 4) {
+                resize(codes.length * 2);
+            }
+        }
+
+        void remove(long hi, long lo) {
+            int mask = codes.length - 1;
+            for (int i = (int) hi & mask; codes[i] != 0; i = (i + 1) & mask) {
+                if (his[i] == hi && los[i] == lo) {
+                    delete(i);
+                    return;
+                }
+            }
+        }
+
+        /** Rehashes the other entries into fresh arrays of the same capacity. */
+        void removeAll(byte code) {
+            long[] oldHis = his;
+            long[] oldLos = los;
+            byte[] oldCodes = codes;
+            allocate(oldCodes.length);
+            for (int i = 0; i < oldCodes.length; i++) {
+                if (oldCodes[i] != 0 && oldCodes[i] != code) {
+                    put(oldHis[i], oldLos[i], oldCodes[i]);
+                }
+            }
+        }
+
+        void clear() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        private void delete(int slot) {
+            int mask = codes.length - 1;
+            int gap = slot;
+            for (int i = (slot + 1) & mask; codes[i] != 0; i = (i + 1) & mask) {
+                int home = (int) his[i] & mask;
+                // Move the entry back if its home slot is not in (gap, i]
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    his[gap] = his[i];
+                    los[gap] = los[i];
+                    codes[gap] = codes[i];
+                    gap = i;
+                }
+            }
+            codes[gap] = 0;
+            size--;
+        }
+
+        private void resize(int capacity) {
+            long[] oldHis = his;
+            long[] oldLos = los;
+            byte[] oldCodes = codes;
+            allocate(capacity);
+            for (int i = 0; i < oldCodes.length; i++) {
+                if (oldCodes[i] != 0) {
+                    put(oldHis[i], oldLos[i], oldCodes[i]);
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            his = new long[capacity];
+            los = new long[capacity];
+            codes = new byte[capacity];
+            size = 0;
+        }
+    }
+}
@@ -3,10 +3,16 @@ package com.fiscaladmin.gam.framework.status;
 import org.joget.apps.app.service.AppUtil;
 import org.joget.apps.form.dao.FormDataDao;
 import org.joget.apps.form.model.FormRow;
-import org.joget.apps.form.model.FormRowSet;
 import org.joget.commons.util.LogUtil;
 
+import javax.sql.DataSource;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Centralised status lifecycle management for all GAM entities.
@@ -25,7 +31,9 @@ import java.util.*;
 public class StatusManager {
 
     private static final String CLASS_NAME = StatusManager.class.getName();
-    private static final String AUDIT_TABLE = "audit_log";
+
+    /** Lease of a claimed record when the caller does not give one: 10 minutes. */
+    public static final long DEFAULT_LEASE_MILLIS = 10 * 60 * 1000L;
 
     // ──────────────────────────────────────────────────────────────────
     //  Transition Map — single source of truth
@@ -116,6 +124,51 @@ public class StatusManager {
         TRANSITIONS = Collections.unmodifiableMap(map);
     }
 
+    /**
+     * Statuses a record may be given when it has no status yet: NEW for most
+     * entities, OPEN for exceptions, AUTO_ACCEPTED or PENDING_REVIEW for pairs,
+     * PENDING for posting operations.
+     */
+    private static final Map<EntityType, Set<Status>> INITIAL_STATUSES;
+
+    static {
+        Map<EntityType, Set<Status>> map = new EnumMap<>(EntityType.class);
+        map.put(EntityType.STATEMENT,         EnumSet.of(Status.NEW));
+        map.put(EntityType.BANK_TRX,          EnumSet.of(Status.NEW));
+        map.put(EntityType.SECU_TRX,          EnumSet.of(Status.NEW));
+        map.put(EntityType.ENRICHMENT,        EnumSet.of(Status.NEW));
+        map.put(EntityType.PAIR,              EnumSet.of(Status.AUTO_ACCEPTED, Status.PENDING_REVIEW));
+        map.put(EntityType.EXCEPTION,         EnumSet.of(Status.OPEN));
+        map.put(EntityType.POSTING_OPERATION, EnumSet.of(Status.PENDING));
+        INITIAL_STATUSES = Collections.unmodifiableMap(map);
+    }
+
+    /** {@link #TRANSITIONS} and {@link #INITIAL_STATUSES} compiled to bitmasks. */
+    private static final TransitionTable TABLE = TransitionTable.compile(TRANSITIONS, INITIAL_STATUSES);
+
+    /** As configured; {@link #auditSink} and {@link #persistence} add timing while metrics are set. */
+    private volatile AuditSink installedAuditSink = SynchronousAuditSink.INSTANCE;
+    private volatile AuditSink auditSink = installedAuditSink;
+    private final StatusPersistence defaultPersistence =
+            new FormDataDaoStatusPersistence(() -> auditSink);
+    private volatile StatusPersistence installedPersistence = defaultPersistence;
+    private volatile StatusPersistence persistence = defaultPersistence;
+    private volatile JdbcStatusStore jdbcStore;
+    private volatile StatusCache statusCache;
+    private volatile boolean claimSkipLocked;
+    private volatile GroupCommitter groupCommitter;
+    private final List<CascadeRule> cascadeRules = new CopyOnWriteArrayList<>();
+    private final List<TransitionListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile StatusHistogram statusHistogram;
+    private volatile StatusIndex statusIndex;
+    private volatile IdempotencyCache idempotencyCache = new IdempotencyCache();
+    private volatile boolean sameStatusNoOp = true;
+    private volatile boolean stacklessExceptions;
+    private volatile RecordLocks recordLocks = new RecordLocks();
+    private volatile Executor asyncExecutor = AsyncExecutors.defaultExecutor();
+    private volatile TransitionLimiter transitionLimiter;
+    private volatile TransitionMetrics transitionMetrics;
+
     // ──────────────────────────────────────────────────────────────────
     //  Public API
     // ──────────────────────────────────────────────────────────────────
@@ -123,6 +176,13 @@ public class StatusManager {
     /**
      * Transition an entity's status. Validates the transition, writes the new
      * status to the entity's form table, and creates an audit log entry.
+     * <p>
+     * If {@link CascadeRule}s apply to the transition, the affected children
+     * are loaded with one query per rule, validated, and written in the same
+     * batch as the parent; an invalid child rejects the whole transition.
+     * <p>
+     * A record already in {@code targetStatus} is left untouched, without an
+     * audit entry (see {@link #setSameStatusNoOp}).
      *
      * @param dao          Joget FormDataDao (pass in, or use {@link #getFormDataDao()})
      * @param entityType   the entity being transitioned
@@ -131,52 +191,802 @@ public class StatusManager {
      * @param triggeredBy  plugin name (e.g., "statement-importer") or "OPERATOR"
      * @param reason       human-readable explanation
      * @throws InvalidTransitionException if the transition is not allowed
+     * @throws TransitionThrottledException if a {@link TransitionLimiter} rejects the call
      */
     public void transition(FormDataDao dao, EntityType entityType, String recordId,
                            Status targetStatus, String triggeredBy, String reason)
             throws InvalidTransitionException {
+        transitionOnce(dao, entityType, recordId, targetStatus, triggeredBy, reason);
+    }
+
+    /**
+     * {@link #transition} with an idempotency key, for callers that retry,
+     * e.g. the GL engine re-sending {@code POSTING → POSTED}. The first call
+     * with a key runs the transition; repeats within the
+     * {@link IdempotencyCache} window (default ten minutes) return its result
+     * or rethrow its {@link InvalidTransitionException} without touching the
+     * database. A repeat that arrives while the first call is still running
+     * waits for it.
+     *
+     * @param idempotencyKey identifies the request, scoped to the record;
+     *                       {@code null} behaves like {@link #transition}
+     * @return the outcome ({@link TransitionResult.Outcome#OK}) of the first call;
+     *         from- and to-status are equal if the record was already in
+     *         {@code targetStatus}
+     * @throws InvalidTransitionException if the (first) transition was not allowed
+     * @throws IllegalArgumentException   if the key was used for another target
+     *                                    status of the record within the window
+     */
+    public TransitionResult transition(FormDataDao dao, EntityType entityType, String recordId,
+                                       Status targetStatus, String triggeredBy, String reason,
+                                       String idempotencyKey)
+            throws InvalidTransitionException {
+        if (idempotencyKey == null) {
+            return transitionOnce(dao, entityType, recordId, targetStatus, triggeredBy, reason);
+        }
+        return idempotencyCache.execute(entityType, recordId, idempotencyKey, targetStatus,
+                () -> transitionOnce(dao, entityType, recordId, targetStatus, triggeredBy, reason));
+    }
+
+    /**
+     * Non-throwing {@link #transition}, for workers whose attempts are
+     * routinely rejected, e.g. racing on {@code UNMATCHED → PAIRED}. No
+     * exception, stack trace or message is created for a rejection.
+     *
+     * @return {@link TransitionResult.Outcome#OK} if written (or already in
+     *         {@code targetStatus}); {@code INVALID} if the record's status does
+     *         not allow the target — for a cascade, the result names the
+     *         rejected child; {@code NOT_FOUND} if the record does not exist;
+     *         {@code LOST_RACE} if the {@link StatusCache} allowed the
+     *         transition but a concurrent change got there first. For the last
+     *         two, the from-status is the status actually found.
+     *         {@code THROTTLED} if the {@link TransitionLimiter} rejected the call.
+     * @throws IllegalArgumentException if the stored status code is unknown
+     * @throws StatusStoreException     if the database access fails
+     */
+    public TransitionResult tryTransition(FormDataDao dao, EntityType entityType, String recordId,
+                                          Status targetStatus, String triggeredBy, String reason) {
+        return attemptTransition(dao, entityType, recordId, targetStatus, triggeredBy, reason);
+    }
+
+    /**
+     * {@link #tryTransition} on the async executor, so that request threads
+     * do not block on the database. A UI action fanning out to many records can
+     * start one call per record and join them with
+     * {@link CompletableFuture#allOf}.
+     * <p>
+     * The default executor runs each call on a virtual thread on Java 21+ and
+     * on a bounded pool of daemon threads on older JVMs; see
+     * {@link #setAsyncExecutor}.
+     *
+     * @return a future completed with the result (including {@code INVALID},
+     *         {@code NOT_FOUND}, {@code LOST_RACE} and {@code THROTTLED}), or exceptionally with
+     *         e.g. a {@link StatusStoreException} or {@link RecordLockTimeoutException}
+     */
+    public CompletableFuture<TransitionResult> transitionAsync(FormDataDao dao, EntityType entityType,
+                                                               String recordId, Status targetStatus,
+                                                               String triggeredBy, String reason) {
+        return CompletableFuture.supplyAsync(
+                () -> tryTransition(dao, entityType, recordId, targetStatus, triggeredBy, reason),
+                asyncExecutor);
+    }
+
+    private TransitionResult transitionOnce(FormDataDao dao, EntityType entityType, String recordId,
+                                            Status targetStatus, String triggeredBy, String reason)
+            throws InvalidTransitionException {
+        TransitionResult result = attemptTransition(dao, entityType, recordId,
+                targetStatus, triggeredBy, reason);
+        switch (result.getOutcome()) {
+            case OK:
+                return result;
+            case NOT_FOUND:
+                throw new IllegalStateException(
+                        "Record not found: " + result.getEntityType() + " / " + result.getRecordId());
+            case THROTTLED:
+                throw throttled(result.getEntityType(), result.getRecordId());
+            default:
+                throw invalidTransition(result.getEntityType(), result.getRecordId(),
+                        result.getFromStatus(), result.getToStatus());
+        }
+    }
+
+    /** {@link #transition} reporting rejections as results. */
+    private TransitionResult attemptTransition(FormDataDao dao, EntityType entityType, String recordId,
+                                               Status targetStatus, String triggeredBy, String reason) {
+        TransitionResult result;
+        try (TransitionLimiter.Permit permit = admit(entityType, triggeredBy)) {
+            result = permit.isGranted()
+                    ? admittedTransition(dao, entityType, recordId, targetStatus, triggeredBy, reason)
+                    : TransitionResult.throttled(entityType, recordId, targetStatus);
+        }
+        TransitionMetrics metrics = transitionMetrics;
+        if (metrics != null) {
+            metrics.recordRejection(result);
+        }
+        return result;
+    }
+
+    private TransitionResult admittedTransition(FormDataDao dao, EntityType entityType, String recordId,
+                                                Status targetStatus, String triggeredBy, String reason) {
+
+        // Cascading transitions write the parent and its children together
+        if (hasCascade(entityType, targetStatus)) {
+            return transitionWithCascade(dao, entityType, recordId, targetStatus, triggeredBy, reason);
+        }
+
+        // Group commit: hand the call to the current batch leader
+        GroupCommitter committer = groupCommitter;
+        if (committer != null) {
+            GroupCommitter.Request request = new GroupCommitter.Request(
+                    dao, entityType, recordId, targetStatus, triggeredBy, reason);
+            committer.submit(request, this::writeGroup);
+            if (request.getError() != null) {
+                throw (RuntimeException) request.getError();
+            }
+            return request.getResult();
+        }
+
+        // Listeners run once the lock is released
+        List<TransitionResult> written = new ArrayList<>(1);
+        TransitionResult result;
+        try (RecordLocks.Held held = lockRecord(entityType, recordId)) {
+            result = transitionRecord(dao, entityType, recordId, targetStatus, triggeredBy, reason, written);
+        }
+        notifyListeners(written);
+        return result;
+    }
+
+    /**
+     * Single-record {@link #attemptTransition}; the caller holds the record's
+     * lock and notifies listeners of the results added to {@code written}.
+     */
+    private TransitionResult transitionRecord(FormDataDao dao, EntityType entityType, String recordId,
+                                              Status targetStatus, String triggeredBy, String reason,
+                                              List<TransitionResult> written) {
+        StatusPersistence persistence = this.persistence;
+        TransitionMetrics metrics = transitionMetrics;
 
-        String tableName = entityType.getTableName();
+        // 0. Cached status: skip the load and write through the persistence's
+        //    conditional save. A stale entry loses it and falls through to the load.
+        StatusCache cache = statusCache;
+        boolean raced = false;
+        if (cache != null && persistence.supportsSaveIfCurrent()) {
+            Status cached = cache.get(entityType, recordId);
+            if (cached != null && canTransition(entityType, cached, targetStatus)) {
+                TransitionAuditEntry audit = new TransitionAuditEntry(
+                        entityType.toString(), recordId,
+                        cached.getCode(), targetStatus.getCode(),
+                        triggeredBy, reason);
+                if (persistence.saveIfCurrent(dao, entityType, recordId, cached, targetStatus, audit)) {
+                    return transitioned(entityType, recordId, cached, targetStatus, cache, metrics, written);
+                }
+                raced = true;
+            }
+        }
 
         // 1. Load current record
-        FormRow row = dao.load(tableName, tableName, recordId);
-        if (row == null) {
-            throw new IllegalStateException(
-                    "Record not found: " + entityType + " / " + recordId);
+        StatusRecord record = persistence.load(dao, entityType, recordId);
+        if (record == null) {
+            if (cache != null) {
+                cache.invalidate(entityType, recordId);
+            }
+            return TransitionResult.notFound(entityType, recordId, targetStatus);
         }
 
         // 2. Read current status
-        String currentStatusCode = row.getProperty("status");
-        Status currentStatus = null;
-        if (currentStatusCode != null && !currentStatusCode.isEmpty()) {
-            currentStatus = Status.fromCode(currentStatusCode);
+        long started = metrics != null ? System.nanoTime() : 0;
+        Status currentStatus = parseStatus(record.getStatusCode());
+        if (cache != null) {
+            cache.put(entityType, recordId, currentStatus);
         }
 
-        // 3. Validate
-        if (!canTransition(entityType, currentStatus, targetStatus)) {
-            throw new InvalidTransitionException(entityType, recordId,
-                    currentStatus, targetStatus);
+        // 3. Validate; a record already in the target status is left alone
+        boolean unchanged = currentStatus == targetStatus && sameStatusNoOp;
+        boolean allowed = unchanged || canTransition(entityType, currentStatus, targetStatus);
+        if (metrics != null) {
+            metrics.record(TransitionMetrics.Phase.VALIDATE, started);
+        }
+        if (unchanged) {
+            LogUtil.debug(CLASS_NAME, "Status transition skipped: " + entityType
+                    + " " + recordId + " already " + targetStatus.getCode());
+            return TransitionResult.ok(entityType, recordId, currentStatus, targetStatus);
+        }
+        if (!allowed) {
+            return raced
+                    ? TransitionResult.lostRace(entityType, recordId, currentStatus, targetStatus)
+                    : TransitionResult.invalid(entityType, recordId, currentStatus, targetStatus);
         }
 
-        // 4. Write new status
-        row.setProperty("status", targetStatus.getCode());
-        FormRowSet rowSet = new FormRowSet();
-        rowSet.add(row);
-        dao.saveOrUpdate(tableName, tableName, rowSet);
-
-        // 5. Write audit
+        // 4. Write new status and audit
         String fromCode = currentStatus != null ? currentStatus.getCode() : "null";
         TransitionAuditEntry audit = new TransitionAuditEntry(
                 entityType.toString(), recordId,
                 fromCode, targetStatus.getCode(),
                 triggeredBy, reason);
-        FormRowSet auditRowSet = new FormRowSet();
-        auditRowSet.add(audit.toFormRow());
-        dao.saveOrUpdate(AUDIT_TABLE, AUDIT_TABLE, auditRowSet);
+        record.setStatusCode(targetStatus.getCode());
+        persistence.save(dao, entityType, Collections.singletonList(record), Collections.singletonList(audit));
+        return transitioned(entityType, recordId, currentStatus, targetStatus, cache, metrics, written);
+    }
+
+    /** Refreshes the cache, collects the result for the listeners and logs a written single-record transition. */
+    private TransitionResult transitioned(EntityType entityType, String recordId, Status fromStatus,
+                                          Status targetStatus, StatusCache cache, TransitionMetrics metrics,
+                                          List<TransitionResult> written) {
+        if (cache != null) {
+            cache.put(entityType, recordId, targetStatus);
+        }
+        TransitionResult result = TransitionResult.ok(entityType, recordId, fromStatus, targetStatus);
+        written.add(result);
+
+        // 5. Log
+        long started = metrics != null ? System.nanoTime() : 0;
+        LogUtil.info(CLASS_NAME, "Status transition: " + entityType + " " + recordId + " "
+                + (fromStatus != null ? fromStatus.getCode() : "null") + " → " + targetStatus.getCode());
+        if (metrics != null) {
+            metrics.record(TransitionMetrics.Phase.LOG, started);
+        }
+        return result;
+    }
+
+    /**
+     * Moves a record along several transitions in one unit of work, e.g.
+     * {@code NEW → PROCESSING → ENRICHED}.
+     * <p>
+     * The whole path is validated against the transition map before anything
+     * is written: the hops among themselves up front, then the first hop
+     * against the record's loaded status. Only the final status is written,
+     * once, and an audit entry for every hop goes out in the same save. If a
+     * {@link CascadeRule} applies to any hop, the hops are instead applied one
+     * by one with {@link #transition} so that every cascade fires.
+     *
+     * @param dao          Joget FormDataDao (pass in, or use {@link #getFormDataDao()})
+     * @param entityType   the entity being transitioned
+     * @param recordId     the primary key of the record
+     * @param hops         the statuses to pass through, in order, ending with the
+     *                     final status; see {@link #shortestPath}
+     * @param triggeredBy  plugin name (e.g., "statement-importer") or "OPERATOR"
+     * @param reason       human-readable explanation, recorded on every hop
+     * @throws InvalidTransitionException if any hop is not allowed; its from- and
+     *                                    to-status name the offending hop
+     */
+    public void transitionPath(FormDataDao dao, EntityType entityType, String recordId,
+                               List<Status> hops, String triggeredBy, String reason)
+            throws InvalidTransitionException {
+        if (hops == null || hops.isEmpty()) {
+            throw new IllegalArgumentException("hops must contain at least one status");
+        }
+        if (hops.size() == 1) {
+            transition(dao, entityType, recordId, hops.get(0), triggeredBy, reason);
+            return;
+        }
+
+        // 1. Validate the path itself, before any database access
+        boolean cascades = hasCascade(entityType, hops.get(0));
+        for (int i = 1; i < hops.size(); i++) {
+            if (!canTransition(entityType, hops.get(i - 1), hops.get(i))) {
+                recordRejection(entityType, TransitionResult.Outcome.INVALID);
+                throw invalidTransition(entityType, recordId, hops.get(i - 1), hops.get(i));
+            }
+            cascades |= hasCascade(entityType, hops.get(i));
+        }
+        if (cascades) {
+            for (Status hop : hops) {
+                transition(dao, entityType, recordId, hop, triggeredBy, reason);
+            }
+            return;
+        }
+
+        List<TransitionResult> results = new ArrayList<>(hops.size());
+        try (TransitionLimiter.Permit permit = admitOrThrow(entityType, recordId, triggeredBy);
+             RecordLocks.Held held = lockRecord(entityType, recordId)) {
+            // 2. Load and validate the first hop
+            StatusPersistence persistence = this.persistence;
+            StatusCache cache = statusCache;
+            StatusRecord record = persistence.load(dao, entityType, recordId);
+            if (record == null) {
+                if (cache != null) {
+                    cache.invalidate(entityType, recordId);
+                }
+                recordRejection(entityType, TransitionResult.Outcome.NOT_FOUND);
+                throw new IllegalStateException(
+                        "Record not found: " + entityType + " / " + recordId);
+            }
+            TransitionMetrics metrics = transitionMetrics;
+            long started = metrics != null ? System.nanoTime() : 0;
+            Status currentStatus = parseStatus(record.getStatusCode());
+            boolean allowed = canTransition(entityType, currentStatus, hops.get(0));
+            if (metrics != null) {
+                metrics.record(TransitionMetrics.Phase.VALIDATE, started);
+            }
+            if (!allowed) {
+                recordRejection(entityType, TransitionResult.Outcome.INVALID);
+                throw invalidTransition(entityType, recordId, currentStatus, hops.get(0));
+            }
+
+            // 3. Write the final status once, with one audit entry per hop
+            List<TransitionAuditEntry> audits = new ArrayList<>(hops.size());
+            Status from = currentStatus;
+            for (Status hop : hops) {
+                audits.add(new TransitionAuditEntry(entityType.toString(), recordId,
+                        from != null ? from.getCode() : "null", hop.getCode(), triggeredBy, reason));
+                results.add(TransitionResult.ok(entityType, recordId, from, hop));
+                from = hop;
+            }
+            Status finalStatus = hops.get(hops.size() - 1);
+            record.setStatusCode(finalStatus.getCode());
+            persistence.save(dao, entityType, Collections.singletonList(record), audits);
+            if (cache != null) {
+                cache.put(entityType, recordId, finalStatus);
+            }
+
+            // 4. Log
+            started = metrics != null ? System.nanoTime() : 0;
+            LogUtil.info(CLASS_NAME, "Status transition: " + entityType + " " + recordId + " "
+                    + (currentStatus != null ? currentStatus.getCode() : "null") + " → "
+                    + finalStatus.getCode() + " via " + (hops.size() - 1) + " intermediate statuses");
+            if (metrics != null) {
+                metrics.record(TransitionMetrics.Phase.LOG, started);
+            }
+        }
+        notifyListeners(results);
+    }
+
+    /**
+     * Transition many records of one entity type to the same target status.
+     * <p>
+     * Records are loaded in bulk, validated individually against the transition
+     * map, and all accepted changes are written with a single entity
+     * {@code saveOrUpdate}; their audit entries go to the {@link AuditSink} as
+     * one batch.
+     * Invalid or missing records do not abort the batch; each record's outcome
+     * is reported in the returned map instead. The batch takes one
+     * {@link TransitionLimiter} token per distinct ID; if the limiter rejects
+     * it, every record is reported as {@code THROTTLED}.
+     *
+     * @param dao          Joget FormDataDao (pass in, or use {@link #getFormDataDao()})
+     * @param entityType   the entity being transitioned
+     * @param recordIds    primary keys of the records; duplicates are processed once
+     * @param targetStatus the desired new status
+     * @param triggeredBy  plugin name (e.g., "statement-importer") or "OPERATOR"
+     * @param reason       human-readable explanation
+     * @return per-record results, in the iteration order of {@code recordIds}
+     */
+    public Map<String, TransitionResult> transitionAll(FormDataDao dao, EntityType entityType,
+                                                       Collection<String> recordIds,
+                                                       Status targetStatus, String triggeredBy,
+                                                       String reason) {
+        Map<String, TransitionResult> results = new LinkedHashMap<>();
+        if (recordIds == null || recordIds.isEmpty()) {
+            return results;
+        }
+
+        StatusPersistence persistence = this.persistence;
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(recordIds));
+        List<TransitionResult> written = new ArrayList<>();
+
+        try (TransitionLimiter.Permit permit = admit(entityType, triggeredBy, ids.size());
+             RecordLocks.Held held = permit.isGranted()
+                     ? lockRecords(Collections.singletonMap(entityType, ids)) : null) {
+            if (!permit.isGranted()) {
+                for (String recordId : ids) {
+                    results.put(recordId, TransitionResult.throttled(entityType, recordId, targetStatus));
+                }
+                recordRejections(results.values());
+                return results;
+            }
+
+            // 1. Load current records in chunks
+            Map<String, StatusRecord> records = persistence.loadAll(dao, entityType, ids);
+
+            // 2. Validate each record and collect accepted changes
+            List<StatusRecord> changed = new ArrayList<>();
+            List<TransitionAuditEntry> audits = new ArrayList<>();
+            int invalid = 0;
+            int notFound = 0;
+            int unchanged = 0;
+            for (String recordId : ids) {
+                StatusRecord record = records.get(recordId);
+                if (record == null) {
+                    results.put(recordId, TransitionResult.notFound(entityType, recordId, targetStatus));
+                    notFound++;
+                    continue;
+                }
+
+                Status currentStatus;
+                try {
+                    currentStatus = parseStatus(record.getStatusCode());
+                } catch (IllegalArgumentException e) {
+                    LogUtil.warn(CLASS_NAME, e.getMessage() + " on " + entityType + " " + recordId);
+                    results.put(recordId, TransitionResult.invalid(entityType, recordId,
+                            null, targetStatus));
+                    invalid++;
+                    continue;
+                }
+                if (currentStatus == targetStatus && sameStatusNoOp) {
+                    results.put(recordId, TransitionResult.ok(entityType, recordId,
+                            currentStatus, targetStatus));
+                    unchanged++;
+                    continue;
+                }
+                if (!canTransition(entityType, currentStatus, targetStatus)) {
+                    results.put(recordId, TransitionResult.invalid(entityType, recordId,
+                            currentStatus, targetStatus));
+                    invalid++;
+                    continue;
+                }
+
+                record.setStatusCode(targetStatus.getCode());
+                changed.add(record);
+                String fromCode = currentStatus != null ? currentStatus.getCode() : "null";
+                audits.add(new TransitionAuditEntry(
+                        entityType.toString(), recordId,
+                        fromCode, targetStatus.getCode(),
+                        triggeredBy, reason));
+                results.put(recordId, TransitionResult.ok(entityType, recordId,
+                        currentStatus, targetStatus));
+            }
+
+            // 3. Write all new statuses, then all audit entries
+            if (!changed.isEmpty()) {
+                persistence.save(dao, entityType, changed, audits);
+                StatusCache cache = statusCache;
+                if (cache != null) {
+                    for (StatusRecord record : changed) {
+                        cache.put(entityType, record.getId(), targetStatus);
+                    }
+                }
+                for (TransitionResult result : results.values()) {
+                    if (result.isSuccess() && result.getFromStatus() != result.getToStatus()) {
+                        written.add(result);
+                    }
+                }
+            }
+
+            // 4. Log
+            recordRejections(results.values());
+            LogUtil.info(CLASS_NAME, "Batch status transition: " + entityType
+                    + " → " + targetStatus.getCode() + ": " + changed.size() + " ok, "
+                    + unchanged + " unchanged, " + invalid + " invalid, " + notFound + " not found");
+        }
+        notifyListeners(written);
+        return results;
+    }
 
-        // 6. Log
+    /**
+     * Conditional transition: moves the record to {@code targetStatus} only if
+     * it is currently in {@code expectedFrom}, using a single
+     * {@code UPDATE ... SET c_status = ?, dateModified = ? WHERE id = ? AND c_status = ?}.
+     * <p>
+     * Unlike {@link #transition}, the record is not loaded first and only the
+     * status column and modified date are written, so concurrent callers cannot overwrite each
+     * other's status. The audit entry is written only when the update wins,
+     * directly to {@code audit_log} in the update's transaction, bypassing the
+     * {@link AuditSink}.
+     * With {@link RecordLocks}, the update holds the record's lock, so a
+     * concurrent {@link #transition} cannot save its loaded row over it.
+     *
+     * @param dao          unused; kept for source compatibility
+     * @param entityType   the entity being transitioned
+     * @param recordId     the primary key of the record
+     * @param expectedFrom the status the caller believes the record is in;
+     *                     {@code null} for a record without status
+     * @param targetStatus the desired new status
+     * @param triggeredBy  plugin name (e.g., "statement-importer") or "OPERATOR"
+     * @param reason       human-readable explanation
+     * @return {@link TransitionResult.Outcome#OK} on success;
+     *         {@code INVALID} if {@code expectedFrom → targetStatus} is not in the
+     *         transition map (no database access); {@code NOT_FOUND} if the
+     *         record does not exist; {@code LOST_RACE} if it exists but was not
+     *         in {@code expectedFrom}, with the actual status as from-status;
+     *         {@code THROTTLED} if the {@link TransitionLimiter} rejected the call
+     * @throws StatusStoreException if the database access fails
+     */
+    public TransitionResult transitionIfCurrent(FormDataDao dao, EntityType entityType,
+                                                String recordId, Status expectedFrom,
+                                                Status targetStatus, String triggeredBy,
+                                                String reason) {
+        if (!canTransition(entityType, expectedFrom, targetStatus)) {
+            recordRejection(entityType, TransitionResult.Outcome.INVALID);
+            return TransitionResult.invalid(entityType, recordId, expectedFrom, targetStatus);
+        }
+        try (TransitionLimiter.Permit permit = admit(entityType, triggeredBy, 1)) {
+            if (!permit.isGranted()) {
+                recordRejection(entityType, TransitionResult.Outcome.THROTTLED);
+                return TransitionResult.throttled(entityType, recordId, targetStatus);
+            }
+            // Locked against a transition() of the same record, which would
+            // otherwise save its full row over this change; listeners run once
+            // the lock is released
+            TransitionResult result;
+            try (RecordLocks.Held held = lockRecord(entityType, recordId)) {
+                result = admittedTransitionIfCurrent(entityType, recordId, expectedFrom,
+                        targetStatus, triggeredBy, reason);
+            }
+            if (result.isSuccess()) {
+                notifyListeners(Collections.singletonList(result));
+            } else {
+                recordRejection(entityType, result.getOutcome());
+            }
+            return result;
+        }
+    }
+
+    private TransitionResult admittedTransitionIfCurrent(EntityType entityType,
+                                                         String recordId, Status expectedFrom,
+                                                         Status targetStatus, String triggeredBy,
+                                                         String reason) {
+
+        JdbcStatusStore store = getJdbcStore();
+        StatusCache cache = statusCache;
+        String fromCode = expectedFrom != null ? expectedFrom.getCode() : "null";
+        TransitionAuditEntry audit = new TransitionAuditEntry(entityType.toString(), recordId,
+                fromCode, targetStatus.getCode(), triggeredBy, reason);
+        try {
+            if (!store.compareAndSet(entityType, recordId, expectedFrom, targetStatus, audit)) {
+                String actualCode = store.readStatusCode(entityType, recordId);
+                if (actualCode == null) {
+                    if (cache != null) {
+                        cache.invalidate(entityType, recordId);
+                    }
+                    return TransitionResult.notFound(entityType, recordId, targetStatus);
+                }
+                Status actual = null;
+                try {
+                    actual = parseStatus(actualCode);
+                } catch (IllegalArgumentException e) {
+                    LogUtil.warn(CLASS_NAME, e.getMessage() + " on " + entityType + " " + recordId);
+                }
+                if (cache != null) {
+                    cache.put(entityType, recordId, actual);
+                }
+                return TransitionResult.lostRace(entityType, recordId, actual, targetStatus);
+            }
+        } catch (SQLException e) {
+            if (cache != null) {
+                cache.invalidate(entityType, recordId);
+            }
+            throw new StatusStoreException("Conditional status update failed: "
+                    + entityType + " / " + recordId, e);
+        }
+        if (cache != null) {
+            cache.put(entityType, recordId, targetStatus);
+        }
         LogUtil.info(CLASS_NAME, "Status transition: " + entityType
                 + " " + recordId + " " + fromCode + " → " + targetStatus.getCode());
+        return TransitionResult.ok(entityType, recordId, expectedFrom, targetStatus);
+    }
+
+    /**
+     * Set-based transition: moves every record of {@code entityType} that
+     * matches {@code filter} and is currently in {@code fromStatus} to
+     * {@code targetStatus}, e.g. all bank transactions of a statement from
+     * ENRICHED to POSTING_READY.
+     * <p>
+     * The transition is validated once against the transition map, then the
+     * database does the rest in one transaction: an
+     * {@code INSERT ... SELECT} into {@code audit_log} and an
+     * {@code UPDATE ... WHERE}. No records are loaded into the JVM, and audit
+     * entries are written directly, bypassing the {@link AuditSink}. Cached
+     * statuses of the affected records are not updated; a stale cache entry
+     * only costs {@link #transition} its fast path.
+     *
+     * @param entityType   the entity being transitioned
+     * @param filter       selects the records, e.g.
+     *                     {@code RecordFilter.where("statement_id", id)}
+     * @param fromStatus   the status records must currently be in;
+     *                     {@code null} for records without status
+     * @param targetStatus the desired new status
+     * @param triggeredBy  plugin name (e.g., "statement-importer") or "OPERATOR"
+     * @param reason       human-readable explanation
+     * @return the number of records transitioned
+     * @throws InvalidTransitionException  if {@code fromStatus → targetStatus}
+     *                                     is not allowed; its record ID is {@code null}
+     * @throws TransitionThrottledException if the {@link TransitionLimiter}
+     *                                     rejected the call, which takes one
+     *                                     token whatever the number of records
+     * @throws StatusStoreException        if the database access fails or the
+     *                                     records changed concurrently
+     */
+    public int transitionWhere(EntityType entityType, RecordFilter filter, Status fromStatus,
+                               Status targetStatus, String triggeredBy, String reason)
+            throws InvalidTransitionException {
+        if (filter == null) {
+            throw new IllegalArgumentException("filter must not be null; use RecordFilter.all()");
+        }
+        if (!canTransition(entityType, fromStatus, targetStatus)) {
+            throw invalidTransition(entityType, null, fromStatus, targetStatus);
+        }
+
+        String fromCode = fromStatus != null ? fromStatus.getCode() : "null";
+        int count;
+        try (TransitionLimiter.Permit permit = admitOrThrow(entityType, null, triggeredBy, 1)) {
+            count = getJdbcStore().transitionWhere(entityType, filter, fromStatus, targetStatus,
+                    triggeredBy, reason);
+        } catch (SQLException e) {
+            throw new StatusStoreException("Bulk transition failed: " + entityType + " where "
+                    + filter + " " + fromCode + " → " + targetStatus.getCode(), e);
+        }
+
+        if (count > 0) {
+            for (TransitionListener listener : listeners) {
+                try {
+                    listener.onBulkTransition(entityType, filter, fromStatus, targetStatus, count);
+                } catch (RuntimeException e) {
+                    LogUtil.error(CLASS_NAME, e, "Transition listener failed: " + listener);
+                }
+            }
+        }
+
+        LogUtil.info(CLASS_NAME, "Bulk status transition: " + entityType + " where " + filter
+                + " " + fromCode + " → " + targetStatus.getCode() + ": " + count + " records");
+        return count;
+    }
+
+    /**
+     * Atomically claims up to {@code maxRows} records for one worker, e.g.
+     * {@code NEW → PROCESSING} for enrichment or {@code PENDING → POSTING} for
+     * GL posting, with the {@link #DEFAULT_LEASE_MILLIS default lease}.
+     *
+     * @see #claim(EntityType, Status, Status, int, String, long)
+     */
+    public List<String> claim(EntityType entityType, Status fromStatus, Status claimingStatus,
+                              int maxRows, String workerId) {
+        return claim(entityType, fromStatus, claimingStatus, maxRows, workerId, DEFAULT_LEASE_MILLIS);
+    }
+
+    /**
+     * Atomically claims up to {@code maxRows} records for one worker.
+     * <p>
+     * Records in {@code fromStatus} are moved to {@code claimingStatus} with a
+     * conditional update, so two workers (on any number of Joget nodes) never
+     * receive the same record. Each claim carries a lease; a record whose lease
+     * expired while still in {@code claimingStatus} is handed to the next
+     * claimer, so rows left behind by a crashed worker are picked up again.
+     * Workers that need longer call {@link #renewLease} and, once done,
+     * {@link #releaseLease}.
+     * <p>
+     * Status updates, leases and audit entries are written in one transaction
+     * directly to {@code audit_log}, bypassing the {@link AuditSink}.
+     * <p>
+     * With a {@link TransitionLimiter}, the call is admitted against
+     * {@code maxRows} tokens and returns those of rows it did not claim. The
+     * limiter key is the {@code workerId} itself, as it is the audit
+     * triggered-by: limit claiming workers with
+     * {@link TransitionLimiter#limitTriggeredBy} per worker ID or with
+     * {@link TransitionLimiter#limitEntityType}; a plugin-name limit does not
+     * match worker IDs such as {@code rows-enrichment-3}.
+     *
+     * @param entityType     the entity being claimed
+     * @param fromStatus     status of records available for claiming
+     * @param claimingStatus status that marks a record as taken; must be a
+     *                       valid transition from {@code fromStatus}
+     * @param maxRows        maximum number of records to claim
+     * @param workerId       identifies the worker; recorded as triggered-by
+     * @param leaseMillis    how long the claim holds before it can be reclaimed
+     * @return the claimed record IDs, oldest first; empty when there is no work
+     *         (under contention possibly fewer than {@code maxRows})
+     * @throws IllegalArgumentException     if {@code fromStatus → claimingStatus}
+     *                                      is not in the transition map
+     * @throws TransitionThrottledException if the {@link TransitionLimiter}
+     *                                      rejected the call
+     * @throws StatusStoreException         if the database access fails
+     */
+    public List<String> claim(EntityType entityType, Status fromStatus, Status claimingStatus,
+                              int maxRows, String workerId, long leaseMillis) {
+        if (fromStatus == null || !canTransition(entityType, fromStatus, claimingStatus)) {
+            throw new IllegalArgumentException("Cannot claim " + entityType + " records: "
+                    + fromStatus + " → " + claimingStatus + " is not a valid transition");
+        }
+        if (maxRows < 1 || leaseMillis < 1) {
+            throw new IllegalArgumentException("maxRows and leaseMillis must be positive");
+        }
+
+        List<TransitionResult> results;
+        try (TransitionLimiter.Permit permit = admitOrThrow(entityType, null, workerId, maxRows)) {
+            results = getJdbcStore().claim(entityType, fromStatus, claimingStatus,
+                    maxRows, workerId, leaseMillis, claimSkipLocked);
+            // An idle poller must not use up its rate
+            permit.refund(maxRows - results.size());
+        } catch (SQLException e) {
+            throw new StatusStoreException("Claim failed: " + entityType + " "
+                    + fromStatus.getCode() + " → " + claimingStatus.getCode(), e);
+        }
+
+        List<String> claimed = new ArrayList<>(results.size());
+        List<TransitionResult> moved = new ArrayList<>(results.size());
+        StatusCache cache = statusCache;
+        for (TransitionResult result : results) {
+            claimed.add(result.getRecordId());
+            if (result.getFromStatus() != claimingStatus) {
+                moved.add(result);
+            }
+            if (cache != null) {
+                cache.put(entityType, result.getRecordId(), claimingStatus);
+            }
+        }
+        notifyListeners(moved);
+        if (!claimed.isEmpty()) {
+            LogUtil.info(CLASS_NAME, "Claimed " + claimed.size() + " " + entityType
+                    + " records for " + workerId + ": " + fromStatus.getCode()
+                    + " → " + claimingStatus.getCode());
+        }
+        return claimed;
+    }
+
+    /**
+     * Lazily iterates over the records of {@code entityType} in {@code status},
+     * ordered by ID, reading {@code pageSize} rows per query with keyset
+     * pagination ({@code WHERE id > :lastId ORDER BY id LIMIT :pageSize}) so
+     * only one page is on the heap at a time. Nothing needs closing: each page
+     * borrows a connection only for its own query.
+     * <p>
+     * The returned rows hold the ID and the requested fields only. Records
+     * that change status during the iteration may or may not be returned.
+     *
+     * @param status   the status to scan; {@code null} for records without status
+     * @param pageSize rows per query
+     * @param fields   form field IDs to read, e.g. {@code "statement_id"}
+     * @throws StatusStoreException if a page query fails (thrown from the iterator)
+     */
+    public Iterator<FormRow> findByStatus(EntityType entityType, Status status, int pageSize,
+                                          String... fields) {
+        return Spliterators.iterator(scanByStatus(entityType, status, pageSize, fields));
+    }
+
+    /**
+     * {@link #findByStatus} as a stream. A parallel stream splits the scan
+     * into disjoint ID ranges (found with one median query per split) so that
+     * fork-join workers share it; each range is still read page by page.
+     */
+    public Stream<FormRow> streamByStatus(EntityType entityType, Status status, int pageSize,
+                                          boolean parallel, String... fields) {
+        return StreamSupport.stream(scanByStatus(entityType, status, pageSize, fields), parallel);
+    }
+
+    /**
+     * Extends the lease on a claimed record.
+     *
+     * @return {@code false} if {@code workerId} no longer holds the lease, i.e.
+     *         it expired and the record was reclaimed by another worker
+     * @throws StatusStoreException if the database access fails
+     */
+    public boolean renewLease(EntityType entityType, String recordId, String workerId,
+                              long leaseMillis) {
+        try {
+            return getJdbcStore().renewLease(entityType, recordId, workerId, leaseMillis);
+        } catch (SQLException e) {
+            throw new StatusStoreException("Lease renewal failed: " + entityType + " / " + recordId, e);
+        }
+    }
+
+    /**
+     * Releases the lease on a claimed record once the worker is done with it.
+     *
+     * @return {@code false} if {@code workerId} did not hold the lease
+     * @throws StatusStoreException if the database access fails
+     */
+    public boolean releaseLease(EntityType entityType, String recordId, String workerId) {
+        try {
+            return getJdbcStore().releaseLease(entityType, recordId, workerId);
+        } catch (SQLException e) {
+            throw new StatusStoreException("Lease release failed: " + entityType + " / " + recordId, e);
+        }
+    }
+
+    /**
+     * Returns how many records of the entity type are in each status, from
+     * the installed {@link StatusHistogram} rather than a table scan.
+     *
+     * @throws IllegalStateException    if no histogram is installed
+     * @throws IllegalArgumentException if the histogram does not track the entity type
+     * @see #setStatusHistogram
+     */
+    public EnumMap<Status, Long> getStatusCounts(EntityType entityType) {
+        StatusHistogram histogram = statusHistogram;
+        if (histogram == null) {
+            throw new IllegalStateException("No status histogram installed");
+        }
+        return histogram.getCounts(entityType);
     }
 
     /**
@@ -192,42 +1002,336 @@ public class StatusManager {
         if (entityType == null || targetStatus == null) {
             return false;
         }
+        return TABLE.allows(entityType, currentStatus, targetStatus);
+    }
 
-        Map<Status, Set<Status>> entityMap = TRANSITIONS.get(entityType);
-        if (entityMap == null) {
+    /**
+     * Returns {@code true} if the record, in its current status, may move to
+     * {@code targetStatus}. With a {@link StatusIndex} installed the status of
+     * a non-terminal record is read from the index without database access;
+     * otherwise (or on an index miss) the record is loaded and, if
+     * non-terminal, added to the index.
+     *
+     * @param dao Joget FormDataDao (pass in, or use {@link #getFormDataDao()})
+     * @return {@code false} also if the record does not exist or has an
+     *         unknown status code
+     */
+    public boolean canTransitionRecord(FormDataDao dao, EntityType entityType, String recordId,
+                                       Status targetStatus) {
+        StatusIndex index = statusIndex;
+        if (index != null) {
+            Status indexed = index.get(entityType, recordId);
+            if (indexed != null) {
+                return canTransition(entityType, indexed, targetStatus);
+            }
+        }
+
+        StatusRecord record = persistence.load(dao, entityType, recordId);
+        if (record == null) {
+            return false;
+        }
+        Status currentStatus;
+        try {
+            currentStatus = parseStatus(record.getStatusCode());
+        } catch (IllegalArgumentException e) {
+            LogUtil.warn(CLASS_NAME, e.getMessage() + " on " + entityType + " " + recordId);
             return false;
         }
+        if (index != null) {
+            index.put(entityType, recordId, currentStatus);
+        }
+        return canTransition(entityType, currentStatus, targetStatus);
+    }
 
-        // Handle null current status (new record without status yet)
-        if (currentStatus == null) {
-            return isInitialStatus(entityType, targetStatus);
+    /**
+     * Plans the shortest route through the transition map, answered from a
+     * table precomputed at class init (no graph walk at call time). The
+     * result can be passed to {@link #transitionPath}.
+     *
+     * @param from the current status; {@code null} for a record without status
+     * @return the statuses to pass through, ending with {@code to}; empty if
+     *         {@code from == to}; {@code null} if {@code to} cannot be reached
+     */
+    public List<Status> shortestPath(EntityType entityType, Status from, Status to) {
+        if (entityType == null || to == null) {
+            throw new IllegalArgumentException("entityType and to must not be null");
+        }
+        if (from == to) {
+            return Collections.emptyList();
         }
+        return TABLE.shortestPath(entityType, from, to);
+    }
 
-        Set<Status> validTargets = entityMap.get(currentStatus);
-        if (validTargets == null) {
+    /**
+     * Returns {@code true} if {@code to} can be reached from {@code from} in
+     * one or more transitions.
+     */
+    public boolean isReachable(EntityType entityType, Status from, Status to) {
+        if (entityType == null || to == null) {
             return false;
         }
-        return validTargets.contains(targetStatus);
+        return (TABLE.reachableMask(entityType, from) & (1L << to.ordinal())) != 0;
     }
 
     /**
      * Returns the set of valid target statuses for the given entity and
      * current status. Returns an empty set if the current status is terminal
      * or if the entity/status combination is not found.
+     * <p>
+     * The returned set is unmodifiable and shared between calls.
      */
     public Set<Status> getValidTransitions(EntityType entityType, Status currentStatus) {
         if (entityType == null || currentStatus == null) {
             return Collections.emptySet();
         }
-        Map<Status, Set<Status>> entityMap = TRANSITIONS.get(entityType);
-        if (entityMap == null) {
-            return Collections.emptySet();
+        return TABLE.targets(entityType, currentStatus);
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Configuration
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * Replaces the audit sink used for all subsequent transitions. Defaults to
+     * {@link SynchronousAuditSink}; pass an {@link AsyncAuditSink} to move the
+     * {@code audit_log} insert off the caller's thread.
+     */
+    public synchronized void setAuditSink(AuditSink auditSink) {
+        this.installedAuditSink = auditSink != null ? auditSink : SynchronousAuditSink.INSTANCE;
+        applyTiming();
+    }
+
+    public AuditSink getAuditSink() {
+        return installedAuditSink;
+    }
+
+    /**
+     * Installs an optional read-through status cache, or removes it when
+     * {@code null}. With a cache and a {@link StatusPersistence} that
+     * {@linkplain StatusPersistence#supportsSaveIfCurrent supports conditional
+     * saves} (e.g. {@link JdbcStatusPersistence}), {@link #transition} skips
+     * the record load on a hit and writes status and audit entry through
+     * {@link StatusPersistence#saveIfCurrent}; a stale entry loses that save
+     * and the call falls back to the normal load. With other backends the
+     * cache is kept current but not used by {@link #transition}. Every
+     * successful transition refreshes the cache.
+     */
+    public void setStatusCache(StatusCache statusCache) {
+        this.statusCache = statusCache;
+    }
+
+    public StatusCache getStatusCache() {
+        return statusCache;
+    }
+
+    /**
+     * Sets the data source used by the direct-JDBC operations such as
+     * {@link #transitionIfCurrent}. When not set, Joget's
+     * {@code setupDataSource} bean is looked up on first use.
+     */
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcStore = dataSource != null ? new JdbcStatusStore(dataSource) : null;
+    }
+
+    /**
+     * Replaces the storage backend, e.g. with a {@link JdbcStatusPersistence}
+     * that writes status and audit in one JDBC transaction. {@code null}
+     * restores the default, which goes through {@code FormDataDao} and the
+     * {@link AuditSink}.
+     */
+    public synchronized void setStatusPersistence(StatusPersistence persistence) {
+        this.installedPersistence = persistence != null ? persistence : defaultPersistence;
+        applyTiming();
+    }
+
+    public StatusPersistence getStatusPersistence() {
+        return installedPersistence;
+    }
+
+    /**
+     * Registers a cascade rule, applied by every later {@link #transition}
+     * whose entity type and target match the rule's parent side.
+     */
+    public void addCascadeRule(CascadeRule rule) {
+        if (rule == null) {
+            throw new IllegalArgumentException("rule must not be null");
         }
-        Set<Status> targets = entityMap.get(currentStatus);
-        if (targets == null) {
-            return Collections.emptySet();
+        cascadeRules.add(rule);
+    }
+
+    public boolean removeCascadeRule(CascadeRule rule) {
+        return cascadeRules.remove(rule);
+    }
+
+    public List<CascadeRule> getCascadeRules() {
+        return Collections.unmodifiableList(cascadeRules);
+    }
+
+    /**
+     * Registers a listener notified after every written transition, including
+     * batch, cascaded, group-committed and claimed ones, and after every
+     * {@link #transitionWhere}.
+     */
+    public void addTransitionListener(TransitionListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener must not be null");
+        }
+        listeners.add(listener);
+    }
+
+    public boolean removeTransitionListener(TransitionListener listener) {
+        return listeners.remove(listener);
+    }
+
+    /**
+     * Installs the histogram behind {@link #getStatusCounts} and registers it
+     * as a transition listener, replacing (and unregistering) any previous
+     * one; {@code null} removes it. The caller owns its background refresh.
+     */
+    public synchronized void setStatusHistogram(StatusHistogram histogram) {
+        StatusHistogram previous = statusHistogram;
+        if (previous != null) {
+            listeners.remove(previous);
+        }
+        if (histogram != null) {
+            listeners.add(histogram);
+        }
+        statusHistogram = histogram;
+    }
+
+    public StatusHistogram getStatusHistogram() {
+        return statusHistogram;
+    }
+
+    /**
+     * Installs the index behind {@link #canTransitionRecord} and registers it
+     * as a transition listener so that it follows every transition written
+     * here, replacing (and unregistering) any previous one; {@code null}
+     * removes it. Fill it with {@link StatusIndex#load} first.
+     */
+    public synchronized void setStatusIndex(StatusIndex index) {
+        StatusIndex previous = statusIndex;
+        if (previous != null) {
+            listeners.remove(previous);
+        }
+        if (index != null) {
+            listeners.add(index);
         }
-        return Collections.unmodifiableSet(targets);
+        statusIndex = index;
+    }
+
+    public StatusIndex getStatusIndex() {
+        return statusIndex;
+    }
+
+    /**
+     * Enables group commit when given a {@link GroupCommitter}, or disables it
+     * when {@code null}. With group commit, concurrent {@link #transition}
+     * calls are gathered into batches that are loaded, written and audited
+     * together; each caller still gets its own result or exception.
+     */
+    public void setGroupCommitter(GroupCommitter groupCommitter) {
+        this.groupCommitter = groupCommitter;
+    }
+
+    public GroupCommitter getGroupCommitter() {
+        return groupCommitter;
+    }
+
+    /**
+     * Makes {@link #claim} select candidates with {@code FOR UPDATE SKIP LOCKED}
+     * so concurrent claimers skip each other's rows instead of waiting for
+     * them. Requires MySQL 8+ (or PostgreSQL); off by default.
+     */
+    public void setClaimSkipLocked(boolean claimSkipLocked) {
+        this.claimSkipLocked = claimSkipLocked;
+    }
+
+    /**
+     * Replaces the cache behind keyed {@link #transition} calls, e.g. to change
+     * the replay window; {@code null} restores a default cache.
+     */
+    public void setIdempotencyCache(IdempotencyCache idempotencyCache) {
+        this.idempotencyCache = idempotencyCache != null ? idempotencyCache : new IdempotencyCache();
+    }
+
+    public IdempotencyCache getIdempotencyCache() {
+        return idempotencyCache;
+    }
+
+    /**
+     * When on (the default), transitioning a record to the status it already
+     * has succeeds without writing, auditing or notifying listeners. When off,
+     * it is validated like any other transition and usually rejected.
+     */
+    public void setSameStatusNoOp(boolean sameStatusNoOp) {
+        this.sameStatusNoOp = sameStatusNoOp;
+    }
+
+    /**
+     * Throws {@link InvalidTransitionException}s without a stack trace, for
+     * callers that only catch them as a rejection signal. Off by default.
+     */
+    public void setStacklessExceptions(boolean stacklessExceptions) {
+        this.stacklessExceptions = stacklessExceptions;
+    }
+
+    /**
+     * Replaces the striped locks that serialize concurrent transitions of the
+     * same record in this JVM, e.g. to change the stripe count or add a lock
+     * timeout; {@code null} disables locking. On by default with
+     * {@value RecordLocks#DEFAULT_STRIPES} stripes and no timeout.
+     */
+    public void setRecordLocks(RecordLocks recordLocks) {
+        this.recordLocks = recordLocks;
+    }
+
+    public RecordLocks getRecordLocks() {
+        return recordLocks;
+    }
+
+    /**
+     * Sets the executor for {@link #transitionAsync}, e.g. a container-managed
+     * pool; {@code null} restores the default (virtual threads on Java 21+,
+     * otherwise a shared bounded pool).
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor != null ? asyncExecutor : AsyncExecutors.defaultExecutor();
+    }
+
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Installs per-plugin and per-entity-type rate limits and bulkheads for
+     * {@link #transition}, {@link #tryTransition}, {@link #transitionAsync},
+     * {@link #transitionAll}, {@link #transitionPath},
+     * {@link #transitionIfCurrent}, {@link #transitionWhere} and
+     * {@link #claim}, or removes them when {@code null}.
+     */
+    public void setTransitionLimiter(TransitionLimiter transitionLimiter) {
+        this.transitionLimiter = transitionLimiter;
+    }
+
+    public TransitionLimiter getTransitionLimiter() {
+        return transitionLimiter;
+    }
+
+    /**
+     * Installs per-edge counters, rejection counters and phase latency
+     * histograms, or removes them when {@code null} (the default), in which
+     * case nothing is recorded and no clock is read. Load and save latencies
+     * are taken at the {@link StatusPersistence} and {@link AuditSink}
+     * boundaries, so they cover every transition method that goes through them.
+     */
+    public synchronized void setTransitionMetrics(TransitionMetrics transitionMetrics) {
+        this.transitionMetrics = transitionMetrics;
+        applyTiming();
+    }
+
+    public TransitionMetrics getTransitionMetrics() {
+        return transitionMetrics;
     }
 
     // ──────────────────────────────────────────────────────────────────
@@ -242,6 +1346,13 @@ public class StatusManager {
         return (FormDataDao) AppUtil.getApplicationContext().getBean("formDataDao");
     }
 
+    /**
+     * Returns Joget's primary data source from the Spring application context.
+     */
+    public static DataSource getDataSource() {
+        return (DataSource) AppUtil.getApplicationContext().getBean("setupDataSource");
+    }
+
     // ──────────────────────────────────────────────────────────────────
     //  Package-private for testing
     // ──────────────────────────────────────────────────────────────────
@@ -253,31 +1364,428 @@ public class StatusManager {
         return TRANSITIONS;
     }
 
+    /**
+     * Returns the initial-status map for testing purposes.
+     */
+    static Map<EntityType, Set<Status>> getInitialStatuses() {
+        return INITIAL_STATUSES;
+    }
+
+    /** Returns {@code true} if the status has no outgoing transitions for the entity type. */
+    static boolean isTerminal(EntityType entityType, Status status) {
+        return status != null && TABLE.targets(entityType, status).isEmpty();
+    }
+
     // ──────────────────────────────────────────────────────────────────
     //  Private helpers
     // ──────────────────────────────────────────────────────────────────
 
+    private JdbcStatusStore getJdbcStore() {
+        JdbcStatusStore store = jdbcStore;
+        if (store == null) {
+            store = new JdbcStatusStore(getDataSource());
+            jdbcStore = store;
+        }
+        return store;
+    }
+
+    private StatusScan scanByStatus(EntityType entityType, Status status, int pageSize,
+                                    String... fields) {
+        if (entityType == null || pageSize < 1) {
+            throw new IllegalArgumentException("entityType is required and pageSize must be positive");
+        }
+        return new StatusScan(getJdbcStore().getDataSource(), entityType, status, pageSize,
+                Collections.unmodifiableList(new ArrayList<>(Arrays.asList(fields))));
+    }
+
+    private TransitionLimiter.Permit admit(EntityType entityType, String triggeredBy) {
+        return admit(entityType, triggeredBy, 1);
+    }
+
+    /** @param tokens number of records the call may move */
+    private TransitionLimiter.Permit admit(EntityType entityType, String triggeredBy, int tokens) {
+        TransitionLimiter limiter = transitionLimiter;
+        return limiter != null
+                ? limiter.acquire(entityType, triggeredBy, tokens)
+                : TransitionLimiter.Permit.UNLIMITED;
+    }
+
+    private TransitionLimiter.Permit admitOrThrow(EntityType entityType, String recordId,
+                                                  String triggeredBy) {
+        return admitOrThrow(entityType, recordId, triggeredBy, 1);
+    }
+
+    private TransitionLimiter.Permit admitOrThrow(EntityType entityType, String recordId,
+                                                  String triggeredBy, int tokens) {
+        TransitionLimiter.Permit permit = admit(entityType, triggeredBy, tokens);
+        if (!permit.isGranted()) {
+            recordRejection(entityType, TransitionResult.Outcome.THROTTLED);
+            throw throttled(entityType, recordId);
+        }
+        return permit;
+    }
+
+    private TransitionThrottledException throttled(EntityType entityType, String recordId) {
+        return new TransitionThrottledException(entityType, recordId, "Transition limit exceeded: "
+                + entityType + (recordId != null ? " / " + recordId : " batch"));
+    }
+
+    private void recordRejection(EntityType entityType, TransitionResult.Outcome cause) {
+        TransitionMetrics metrics = transitionMetrics;
+        if (metrics != null) {
+            metrics.recordRejection(entityType, cause);
+        }
+    }
+
+    private void recordRejections(Collection<TransitionResult> results) {
+        TransitionMetrics metrics = transitionMetrics;
+        if (metrics != null) {
+            for (TransitionResult result : results) {
+                metrics.recordRejection(result);
+            }
+        }
+    }
+
+    /** Wraps the installed persistence and audit sink in timing decorators while metrics are set. */
+    private void applyTiming() {
+        TransitionMetrics metrics = transitionMetrics;
+        persistence = metrics != null
+                ? new TimedStatusPersistence(installedPersistence, metrics)
+                : installedPersistence;
+        auditSink = metrics != null
+                ? new TimedAuditSink(installedAuditSink, metrics)
+                : installedAuditSink;
+    }
+
+    /** Locks the record's stripe, or returns {@code null} if locking is disabled. */
+    private RecordLocks.Held lockRecord(EntityType entityType, String recordId) {
+        RecordLocks locks = recordLocks;
+        return locks != null ? locks.lock(entityType, recordId) : null;
+    }
+
+    private RecordLocks.Held lockRecords(Map<EntityType, ? extends Collection<String>> recordIds) {
+        RecordLocks locks = recordLocks;
+        return locks != null ? locks.lockAll(recordIds) : null;
+    }
+
+    private InvalidTransitionException invalidTransition(EntityType entityType, String recordId,
+                                                         Status fromStatus, Status toStatus) {
+        return new InvalidTransitionException(entityType, recordId, fromStatus, toStatus,
+                !stacklessExceptions);
+    }
+
+    private boolean hasCascade(EntityType entityType, Status targetStatus) {
+        for (CascadeRule rule : cascadeRules) {
+            if (rule.appliesTo(entityType, targetStatus)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
-     * Checks whether the target status is a valid initial status for the entity.
-     * This handles the case where a record has no status field set yet.
-     */
-    private boolean isInitialStatus(EntityType entityType, Status targetStatus) {
-        switch (entityType) {
-            case STATEMENT:
-            case BANK_TRX:
-            case SECU_TRX:
-                return targetStatus == Status.NEW;
-            case ENRICHMENT:
-                return targetStatus == Status.NEW;
-            case PAIR:
-                return targetStatus == Status.AUTO_ACCEPTED
-                        || targetStatus == Status.PENDING_REVIEW;
-            case EXCEPTION:
-                return targetStatus == Status.OPEN;
-            case POSTING_OPERATION:
-                return targetStatus == Status.PENDING;
-            default:
-                return false;
+     * {@link #transition} with cascade rules, holding the locks of the parent
+     * and of every child it writes or rejects. Children are only known after
+     * reading them, so the first attempt locks the parent alone; if it meets
+     * children outside the locked set, it releases everything and retries with
+     * parent and children locked together in ascending stripe order,
+     * reloading every record under the locks.
+     */
+    private TransitionResult transitionWithCascade(FormDataDao dao, EntityType entityType,
+                                                   String recordId, Status targetStatus,
+                                                   String triggeredBy, String reason) {
+        Map<EntityType, Set<String>> locked = new EnumMap<>(EntityType.class);
+        locked.computeIfAbsent(entityType, t -> new LinkedHashSet<>()).add(recordId);
+        List<TransitionResult> written = new ArrayList<>();
+        TransitionResult result = null;
+        while (result == null) {
+            try (RecordLocks.Held held = lockRecords(locked)) {
+                result = cascadeLocked(dao, entityType, recordId, targetStatus,
+                        triggeredBy, reason, held != null ? locked : null, written);
+            }
+        }
+        notifyListeners(written);
+        return result;
+    }
+
+    /**
+     * One attempt of {@link #transitionWithCascade}: validates the parent,
+     * then resolves the rules level by level — one {@code findBy} per rule and
+     * level — and saves every change with one
+     * {@link StatusPersistence#saveAll}. Nothing is written if any record
+     * fails validation.
+     *
+     * @param locked  records whose stripes are held, or {@code null} if locking
+     *                is disabled
+     * @param written receives the written transitions, for the listeners
+     * @return {@code null} if children outside {@code locked} were met; they
+     *         have been added to it and nothing was written
+     */
+    private TransitionResult cascadeLocked(FormDataDao dao, EntityType entityType,
+                                           String recordId, Status targetStatus,
+                                           String triggeredBy, String reason,
+                                           Map<EntityType, Set<String>> locked,
+                                           List<TransitionResult> written) {
+        StatusPersistence persistence = this.persistence;
+        StatusCache cache = statusCache;
+
+        // 1. Load and validate the parent
+        StatusRecord parent = persistence.load(dao, entityType, recordId);
+        if (parent == null) {
+            if (cache != null) {
+                cache.invalidate(entityType, recordId);
+            }
+            return TransitionResult.notFound(entityType, recordId, targetStatus);
+        }
+        Status parentStatus = parseStatus(parent.getStatusCode());
+        if (parentStatus == targetStatus && sameStatusNoOp) {
+            return TransitionResult.ok(entityType, recordId, parentStatus, targetStatus);
+        }
+        if (!canTransition(entityType, parentStatus, targetStatus)) {
+            return TransitionResult.invalid(entityType, recordId, parentStatus, targetStatus);
+        }
+
+        Map<EntityType, Map<String, StatusRecord>> changed = new EnumMap<>(EntityType.class);
+        List<TransitionAuditEntry> audits = new ArrayList<>();
+        List<TransitionResult> results = new ArrayList<>();
+        changed.computeIfAbsent(entityType, t -> new LinkedHashMap<>()).put(recordId, parent);
+        results.add(TransitionResult.ok(entityType, recordId, parentStatus, targetStatus));
+        audits.add(new TransitionAuditEntry(entityType.toString(), recordId,
+                parentStatus != null ? parentStatus.getCode() : "null", targetStatus.getCode(),
+                triggeredBy, reason));
+
+        // 2. Resolve the rules level by level; each level's moves are the next level's parents
+        Map<EntityType, Map<Status, List<String>>> level = new EnumMap<>(EntityType.class);
+        level.computeIfAbsent(entityType, t -> new EnumMap<>(Status.class))
+                .put(targetStatus, new ArrayList<>(Collections.singletonList(recordId)));
+        String cascadeReason = reason + " (cascade from " + entityType + " " + recordId + ")";
+        boolean unlocked = false;
+        while (!level.isEmpty()) {
+            Map<EntityType, Map<Status, List<String>>> next = new EnumMap<>(EntityType.class);
+            for (Map.Entry<EntityType, Map<Status, List<String>>> byType : level.entrySet()) {
+                for (Map.Entry<Status, List<String>> byTarget : byType.getValue().entrySet()) {
+                    for (CascadeRule rule : cascadeRules) {
+                        if (!rule.appliesTo(byType.getKey(), byTarget.getKey())) {
+                            continue;
+                        }
+                        EntityType childType = rule.getChildType();
+                        Map<String, StatusRecord> changedOfType =
+                                changed.computeIfAbsent(childType, t -> new LinkedHashMap<>());
+                        for (StatusRecord child : persistence.findBy(dao, childType,
+                                rule.getForeignKeyField(), byTarget.getValue())) {
+                            if (changedOfType.containsKey(child.getId())) {
+                                continue;
+                            }
+                            Status childStatus = parseStatus(child.getStatusCode());
+                            if (!rule.selects(childStatus)) {
+                                continue;
+                            }
+                            if (locked != null && locked.computeIfAbsent(childType,
+                                    t -> new LinkedHashSet<>()).add(child.getId())) {
+                                unlocked = true;
+                            }
+                            if (!canTransition(childType, childStatus, rule.getChildTarget())) {
+                                // Read without its lock: check again once it is held
+                                return unlocked ? null : TransitionResult.invalid(childType,
+                                        child.getId(), childStatus, rule.getChildTarget());
+                            }
+                            audits.add(new TransitionAuditEntry(childType.toString(), child.getId(),
+                                    childStatus != null ? childStatus.getCode() : "null",
+                                    rule.getChildTarget().getCode(), triggeredBy, cascadeReason));
+                            results.add(TransitionResult.ok(childType, child.getId(),
+                                    childStatus, rule.getChildTarget()));
+                            changedOfType.put(child.getId(), child);
+                            next.computeIfAbsent(childType, t -> new EnumMap<>(Status.class))
+                                    .computeIfAbsent(rule.getChildTarget(), s -> new ArrayList<>())
+                                    .add(child.getId());
+                        }
+                    }
+                }
+            }
+            level = next;
+        }
+        if (unlocked) {
+            return null;
+        }
+        for (TransitionResult result : results) {
+            changed.get(result.getEntityType()).get(result.getRecordId())
+                    .setStatusCode(result.getToStatus().getCode());
+        }
+
+        // 3. Write parent, children and all audit entries together
+        Map<EntityType, List<StatusRecord>> records = new EnumMap<>(EntityType.class);
+        for (Map.Entry<EntityType, Map<String, StatusRecord>> entry : changed.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                records.put(entry.getKey(), new ArrayList<>(entry.getValue().values()));
+            }
+        }
+        persistence.saveAll(dao, records, audits);
+        if (cache != null) {
+            for (Map.Entry<EntityType, List<StatusRecord>> entry : records.entrySet()) {
+                for (StatusRecord record : entry.getValue()) {
+                    cache.put(entry.getKey(), record.getId(), Status.fromCode(record.getStatusCode()));
+                }
+            }
+        }
+        written.addAll(results);
+
+        // 4. Log
+        LogUtil.info(CLASS_NAME, "Status transition: " + entityType + " " + recordId + " "
+                + (parentStatus != null ? parentStatus.getCode() : "null") + " → "
+                + targetStatus.getCode() + " with " + (audits.size() - 1) + " cascaded children");
+        return results.get(0);
+    }
+
+    /**
+     * Writes one group-commit batch. Requests are split by DAO so that a
+     * failure through one DAO does not fail the others.
+     */
+    private void writeGroup(List<GroupCommitter.Request> batch) {
+        Map<FormDataDao, List<GroupCommitter.Request>> byDao = new IdentityHashMap<>();
+        for (GroupCommitter.Request request : batch) {
+            byDao.computeIfAbsent(request.dao, d -> new ArrayList<>()).add(request);
+        }
+        for (Map.Entry<FormDataDao, List<GroupCommitter.Request>> entry : byDao.entrySet()) {
+            try {
+                writeGroup(entry.getKey(), entry.getValue());
+            } catch (RuntimeException e) {
+                for (GroupCommitter.Request request : entry.getValue()) {
+                    if (request.getError() == null) {
+                        request.fail(e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the steps of {@link #transition} to many requests at once: one
+     * bulk load and one save (statuses plus audit entries) per entity type.
+     * Requests are validated in arrival order, so a later request
+     * for the same record sees the status set by an earlier one.
+     */
+    private void writeGroup(FormDataDao dao, List<GroupCommitter.Request> requests) {
+        StatusPersistence persistence = this.persistence;
+        StatusCache cache = statusCache;
+
+        // 1. Load every record involved
+        Map<EntityType, Set<String>> ids = new EnumMap<>(EntityType.class);
+        for (GroupCommitter.Request request : requests) {
+            ids.computeIfAbsent(request.entityType, t -> new LinkedHashSet<>()).add(request.recordId);
+        }
+        List<TransitionResult> notified = new ArrayList<>();
+        try (RecordLocks.Held held = lockRecords(ids)) {
+            Map<EntityType, Map<String, StatusRecord>> records = new EnumMap<>(EntityType.class);
+            for (Map.Entry<EntityType, Set<String>> entry : ids.entrySet()) {
+                records.put(entry.getKey(), persistence.loadAll(dao, entry.getKey(),
+                        new ArrayList<>(entry.getValue())));
+            }
+
+            // 2. Validate in arrival order
+            Map<EntityType, Map<String, StatusRecord>> changed = new EnumMap<>(EntityType.class);
+            Map<EntityType, Map<GroupCommitter.Request, TransitionAuditEntry>> accepted =
+                    new EnumMap<>(EntityType.class);
+            Map<EntityType, List<TransitionResult>> results = new EnumMap<>(EntityType.class);
+            for (GroupCommitter.Request request : requests) {
+                EntityType entityType = request.entityType;
+                StatusRecord record = records.get(entityType).get(request.recordId);
+                if (record == null) {
+                    if (cache != null) {
+                        cache.invalidate(entityType, request.recordId);
+                    }
+                    request.complete(TransitionResult.notFound(entityType, request.recordId,
+                            request.targetStatus));
+                    continue;
+                }
+
+                Status currentStatus;
+                try {
+                    currentStatus = parseStatus(record.getStatusCode());
+                } catch (IllegalArgumentException e) {
+                    request.fail(e);
+                    continue;
+                }
+                TransitionResult result = TransitionResult.ok(entityType, request.recordId,
+                        currentStatus, request.targetStatus);
+                if (currentStatus == request.targetStatus && sameStatusNoOp) {
+                    request.complete(result);
+                    continue;
+                }
+                if (!canTransition(entityType, currentStatus, request.targetStatus)) {
+                    request.complete(TransitionResult.invalid(entityType, request.recordId,
+                            currentStatus, request.targetStatus));
+                    continue;
+                }
+                request.complete(result);
+
+                record.setStatusCode(request.targetStatus.getCode());
+                changed.computeIfAbsent(entityType, t -> new LinkedHashMap<>()).put(request.recordId, record);
+                String fromCode = currentStatus != null ? currentStatus.getCode() : "null";
+                accepted.computeIfAbsent(entityType, t -> new LinkedHashMap<>()).put(request,
+                        new TransitionAuditEntry(
+                                entityType.toString(), request.recordId,
+                                fromCode, request.targetStatus.getCode(),
+                                request.triggeredBy, request.reason));
+                results.computeIfAbsent(entityType, t -> new ArrayList<>()).add(result);
+            }
+
+            // 3. Write new statuses and audit entries, one save per entity type
+            int written = 0;
+            for (Map.Entry<EntityType, Map<String, StatusRecord>> entry : changed.entrySet()) {
+                EntityType entityType = entry.getKey();
+                Map<GroupCommitter.Request, TransitionAuditEntry> audits = accepted.get(entityType);
+                try {
+                    persistence.save(dao, entityType, new ArrayList<>(entry.getValue().values()),
+                            new ArrayList<>(audits.values()));
+                } catch (RuntimeException e) {
+                    for (GroupCommitter.Request request : audits.keySet()) {
+                        request.fail(e);
+                    }
+                    continue;
+                }
+                written += audits.size();
+                if (cache != null) {
+                    for (StatusRecord record : entry.getValue().values()) {
+                        cache.put(entityType, record.getId(), Status.fromCode(record.getStatusCode()));
+                    }
+                }
+                notified.addAll(results.get(entityType));
+            }
+
+            // 4. Log
+            LogUtil.info(CLASS_NAME, "Group status transition: " + written
+                    + " of " + requests.size() + " written");
+        }
+        notifyListeners(notified);
+    }
+
+    /** Passes written transitions to every listener; a failing listener is logged and skipped. */
+    private void notifyListeners(List<TransitionResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        TransitionMetrics metrics = transitionMetrics;
+        if (metrics != null) {
+            metrics.recordTransitions(results);
+        }
+        for (TransitionListener listener : listeners) {
+            try {
+                listener.onTransitions(results);
+            } catch (RuntimeException e) {
+                LogUtil.error(CLASS_NAME, e, "Transition listener failed: " + listener);
+            }
+        }
+    }
+
+    /**
+     * Parses a stored status code; blank means "no status yet" and yields {@code null}.
+     *
+     * @throws IllegalArgumentException if the code is not a known status
+     */
+    private Status parseStatus(String code) {
+        if (code == null || code.isEmpty()) {
+            return null;
         }
+        return Status.fromCode(code);
     }
 }
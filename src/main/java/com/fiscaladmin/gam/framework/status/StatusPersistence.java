@@ -0,0 +1,79 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.apps.form.dao.FormDataDao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage backend used by {@link StatusManager} to read record statuses and
+ * write status changes together with their audit entries.
+ * <p>
+ * The default backend goes through Joget's {@link FormDataDao}. Install
+ * {@link JdbcStatusPersistence} with
+ * {@link StatusManager#setStatusPersistence} to write the status column and
+ * the audit rows directly over JDBC in one transaction.
+ */
+public interface StatusPersistence {
+
+    /**
+     * Loads one record.
+     *
+     * @return the record, or {@code null} if it does not exist
+     */
+    StatusRecord load(FormDataDao dao, EntityType entityType, String recordId);
+
+    /**
+     * Loads many records of one entity type. Records that do not exist are
+     * absent from the returned map.
+     */
+    Map<String, StatusRecord> loadAll(FormDataDao dao, EntityType entityType, List<String> recordIds);
+
+    /**
+     * Persists the new status of each record (as set with
+     * {@link StatusRecord#setStatusCode}) and the audit entries describing
+     * the changes.
+     */
+    void save(FormDataDao dao, EntityType entityType, List<StatusRecord> records,
+              List<TransitionAuditEntry> audits);
+
+    /**
+     * Whether {@link #saveIfCurrent} is supported. {@link StatusManager} only
+     * acts on cached statuses with backends that support it.
+     */
+    default boolean supportsSaveIfCurrent() {
+        return false;
+    }
+
+    /**
+     * Conditional {@link #save} of one record that has not been loaded: sets
+     * {@code targetStatus} and persists the audit entry only if the stored
+     * status is still {@code expected}, atomically with the check.
+     *
+     * @param expected the status the record must be in; {@code null} matches
+     *                 a record with no status yet
+     * @return {@code true} if written; {@code false} if the record is not in
+     *         {@code expected} or does not exist, in which case nothing is written
+     * @throws UnsupportedOperationException if {@link #supportsSaveIfCurrent()}
+     *                                       is {@code false}
+     */
+    default boolean saveIfCurrent(FormDataDao dao, EntityType entityType, String recordId,
+                                  Status expected, Status targetStatus, TransitionAuditEntry audit) {
+        throw new UnsupportedOperationException("Conditional save not supported by " + getClass().getName());
+    }
+
+    /**
+     * Loads the records of one entity type whose {@code field} (a form field
+     * ID, e.g. {@code statement_id}) has one of the given values.
+     */
+    List<StatusRecord> findBy(FormDataDao dao, EntityType entityType, String field,
+                              Collection<String> values);
+
+    /**
+     * Like {@link #save}, for records of several entity types at once. Backends
+     * that support transactions write everything in one.
+     */
+    void saveAll(FormDataDao dao, Map<EntityType, List<StatusRecord>> records,
+                 List<TransitionAuditEntry> audits);
+}
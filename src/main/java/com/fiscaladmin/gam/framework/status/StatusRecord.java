@@ -0,0 +1,51 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.apps.form.model.FormRow;
+
+/**
+ * A record's ID and status as read by a {@link StatusPersistence}. The
+ * {@code FormDataDao} backend also keeps the full form row, so that saving
+ * it writes back every field it was loaded with.
+ */
+public final class StatusRecord {
+
+    private final String id;
+    private final FormRow row;
+    private String statusCode;
+
+    /**
+     * @param id         the record's primary key
+     * @param statusCode the stored status code; {@code null} or empty if unset
+     */
+    public StatusRecord(String id, String statusCode) {
+        this.id = id;
+        this.row = null;
+        this.statusCode = statusCode;
+    }
+
+    StatusRecord(FormRow row) {
+        this.id = row.getId();
+        this.row = row;
+        this.statusCode = row.getProperty("status");
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getStatusCode() {
+        return statusCode;
+    }
+
+    public void setStatusCode(String statusCode) {
+        this.statusCode = statusCode;
+        if (row != null) {
+            row.setProperty("status", statusCode);
+        }
+    }
+
+    /** The backing form row, or {@code null} if the record was not loaded through {@code FormDataDao}. */
+    FormRow getRow() {
+        return row;
+    }
+}
@@ -0,0 +1,423 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.commons.util.LogUtil;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.fiscaladmin.gam.framework.status.JdbcStatusStore.STATUS_COLUMN;
+import static com.fiscaladmin.gam.framework.status.JdbcStatusStore.physicalTable;
+
+/**
+ * Per-parent counters of child records by status, e.g. how many
+ * {@code BANK_TRX} and {@code SECU_TRX} rows of each statement are in each
+ * status, so that questions like "are all children of statement X
+ * terminal?" are answered without scanning the child tables.
+ * <p>
+ * Register the rollup as a {@link TransitionListener}; every transition of a
+ * tracked child type then applies a delta (old status −1, new status +1) to
+ * its parent's counters. The parent of a child is read from the child's
+ * foreign-key column on first sight and remembered in a bounded cache. That
+ * read never runs on the transitioning thread: transitions of children whose
+ * parent is not cached are queued and applied by the background task, or by
+ * the next query, whichever comes first. A child first seen leaving a status
+ * it was never counted in (e.g. created outside {@link StatusManager} since
+ * the last rebuild) is counted from then on and not taken as drift.
+ * <p>
+ * Counters can drift, e.g. when records are deleted outside
+ * {@link StatusManager}, or through a {@link StatusManager#transitionWhere}
+ * whose filter is not a single parent. {@link #rebuild()} replaces them with
+ * a fresh {@code GROUP BY} snapshot; {@link #startBackgroundRebuild} runs it
+ * periodically, and drift detected by the rollup itself triggers an early
+ * rebuild. Deltas that race with a rebuild may be off until the next one.
+ */
+public class StatusRollup implements TransitionListener, AutoCloseable {
+
+    private static final String CLASS_NAME = StatusRollup.class.getName();
+    private static final String REBUILD_FAILED = "Background status rollup rebuild failed";
+
+    private static final int STATUS_COUNT = Status.values().length;
+    /** Slot index for children without a status (or with an unknown code). */
+    private static final int NO_STATUS = STATUS_COUNT;
+    private static final int SLOTS_PER_TYPE = STATUS_COUNT + 1;
+
+    private static final int PARENT_CACHE_SIZE = 50_000;
+    private static final int PENDING_LIMIT = 100_000;
+
+    private final DataSource dataSource;
+    private final String parentField;
+    private final String parentColumn;
+    private final List<EntityType> childTypes;
+    /** Position of each tracked child type in the counter arrays, -1 if untracked. */
+    private final int[] typeIndex = new int[EntityType.values().length];
+    /** Per child type: bitmask of statuses with no outgoing transition. */
+    private final long[] terminalMasks;
+
+    private volatile Map<String, AtomicLongArray> counters = new ConcurrentHashMap<>();
+    private final Map<String, String> parentOf = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > PARENT_CACHE_SIZE;
+        }
+    };
+    /** Transitions of children whose parent is not cached yet; see {@link #applyPending}. */
+    private final BlockingQueue<TransitionResult> pending = new LinkedBlockingQueue<>(PENDING_LIMIT);
+    private volatile boolean stale;
+    private final BackgroundTask rebuilder = new BackgroundTask(CLASS_NAME, "gam-status-rollup");
+
+    /**
+     * @param dataSource  database holding the {@code app_fd_*} tables
+     * @param parentField form field ID on the children holding the parent's ID,
+     *                    e.g. {@code statement_id}
+     * @param childTypes  the child entity types to count
+     */
+    public StatusRollup(DataSource dataSource, String parentField, EntityType... childTypes) {
+        if (dataSource == null || childTypes.length == 0) {
+            throw new IllegalArgumentException("dataSource and at least one child type are required");
+        }
+        this.dataSource = dataSource;
+        this.parentField = parentField;
+        this.parentColumn = RecordFilter.checkField(parentField);
+        this.childTypes = Collections.unmodifiableList(Arrays.asList(childTypes.clone()));
+        Arrays.fill(typeIndex, -1);
+        this.terminalMasks = new long[childTypes.length];
+        for (int i = 0; i < childTypes.length; i++) {
+            typeIndex[childTypes[i].ordinal()] = i;
+            for (Status status : Status.values()) {
+                if (StatusManager.isTerminal(childTypes[i], status)) {
+                    terminalMasks[i] |= 1L << status.ordinal();
+                }
+            }
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Queries — constant time per parent once queued transitions are applied
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Number of children of the type in the status; {@code null} status counts children without one. */
+    public long count(String parentId, EntityType childType, Status status) {
+        applyPending();
+        AtomicLongArray counts = counters.get(parentId);
+        int type = typeIndex[childType.ordinal()];
+        if (counts == null || type < 0) {
+            return 0;
+        }
+        return counts.get(slot(type, status));
+    }
+
+    /** Status → count for one child type of the parent; statuses with no children are omitted. */
+    public Map<Status, Long> counts(String parentId, EntityType childType) {
+        Map<Status, Long> result = new EnumMap<>(Status.class);
+        applyPending();
+        AtomicLongArray counts = counters.get(parentId);
+        int type = typeIndex[childType.ordinal()];
+        if (counts != null && type >= 0) {
+            for (Status status : Status.values()) {
+                long count = counts.get(slot(type, status));
+                if (count != 0) {
+                    result.put(status, count);
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Total number of tracked children of the parent. */
+    public long total(String parentId) {
+        applyPending();
+        AtomicLongArray counts = counters.get(parentId);
+        long total = 0;
+        if (counts != null) {
+            for (int i = 0; i < counts.length(); i++) {
+                total += counts.get(i);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns {@code true} if every tracked child of the parent is in one of
+     * {@code statuses} (vacuously true for a parent without children).
+     */
+    public boolean allIn(String parentId, Collection<Status> statuses) {
+        long mask = 0;
+        for (Status status : statuses) {
+            mask |= 1L << status.ordinal();
+        }
+        long[] masks = new long[childTypes.size()];
+        Arrays.fill(masks, mask);
+        return allWithin(parentId, masks);
+    }
+
+    /**
+     * Returns {@code true} if every tracked child of the parent is in a
+     * terminal status of its entity type (one with no outgoing transitions).
+     */
+    public boolean allTerminal(String parentId) {
+        return allWithin(parentId, terminalMasks);
+    }
+
+    public List<EntityType> getChildTypes() {
+        return childTypes;
+    }
+
+    public String getParentField() {
+        return parentField;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  TransitionListener
+    // ──────────────────────────────────────────────────────────────────
+
+    @Override
+    public void onTransition(TransitionResult result) {
+        onTransitions(Collections.singletonList(result));
+    }
+
+    @Override
+    public void onTransitions(List<TransitionResult> results) {
+        for (TransitionResult result : results) {
+            int type = typeIndex[result.getEntityType().ordinal()];
+            if (type < 0 || result.getFromStatus() == result.getToStatus()) {
+                continue;
+            }
+            String parentId;
+            synchronized (parentOf) {
+                parentId = parentOf.get(result.getRecordId());
+            }
+            if (parentId != null) {
+                applyDelta(parentId, type, result.getFromStatus(), result.getToStatus(), 1, false);
+            } else if (!pending.offer(result)) {
+                // Nobody is draining the queue; the next rebuild recounts
+                markStale();
+            }
+        }
+    }
+
+    @Override
+    public void onBulkTransition(EntityType entityType, RecordFilter filter,
+                                 Status fromStatus, Status toStatus, int count) {
+        int type = typeIndex[entityType.ordinal()];
+        if (type < 0 || count == 0) {
+            return;
+        }
+        String parentId = filter.equalityValue(parentField);
+        if (parentId != null) {
+            applyDelta(parentId, type, fromStatus, toStatus, count, false);
+        } else {
+            markStale();
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Rebuild
+    // ──────────────────────────────────────────────────────────────────
+
+    /**
+     * Recounts all children with one {@code GROUP BY} per child type and
+     * replaces the counters.
+     *
+     * @throws StatusStoreException if the database access fails
+     */
+    public void rebuild() {
+        Map<String, AtomicLongArray> fresh = new ConcurrentHashMap<>();
+        stale = false;
+        // Queued transitions are already committed, so the snapshot counts them
+        pending.clear();
+        try (Connection connection = dataSource.getConnection()) {
+            for (int type = 0; type < childTypes.size(); type++) {
+                String sql = "SELECT " + parentColumn + ", " + STATUS_COLUMN + ", COUNT(*) FROM "
+                        + physicalTable(childTypes.get(type)) + " WHERE " + parentColumn
+                        + " IS NOT NULL GROUP BY " + parentColumn + ", " + STATUS_COLUMN;
+                try (PreparedStatement statement = connection.prepareStatement(sql);
+                     ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        AtomicLongArray counts = fresh.computeIfAbsent(rs.getString(1),
+                                k -> new AtomicLongArray(childTypes.size() * SLOTS_PER_TYPE));
+                        counts.addAndGet(slot(type, Status.fromCodeOrDefault(rs.getString(2), null)),
+                                rs.getLong(3));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            stale = true;
+            throw new StatusStoreException("Status rollup rebuild failed", e);
+        }
+        counters = fresh;
+        LogUtil.info(CLASS_NAME, "Rebuilt status rollup by " + parentField + " for "
+                + childTypes + ": " + fresh.size() + " parents");
+    }
+
+    /**
+     * Rebuilds now and then every {@code periodMillis} on a daemon thread;
+     * detected drift triggers an extra rebuild within a second, and queued
+     * transitions are applied every second.
+     */
+    public void startBackgroundRebuild(long periodMillis) {
+        if (!rebuilder.start()) {
+            throw new IllegalStateException("Background rebuild already started");
+        }
+        rebuilder.schedule(this::rebuild, 0, periodMillis, REBUILD_FAILED);
+        rebuilder.schedule(() -> {
+            if (stale) {
+                rebuild();
+            } else {
+                applyPending();
+            }
+        }, 1_000, 1_000, REBUILD_FAILED);
+    }
+
+    /** Returns {@code true} if the counters are known to have drifted since the last rebuild. */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /** Stops the background rebuild, if started. */
+    @Override
+    public void close() {
+        rebuilder.close();
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Private helpers
+    // ──────────────────────────────────────────────────────────────────
+
+    private boolean allWithin(String parentId, long[] allowedMasks) {
+        applyPending();
+        AtomicLongArray counts = counters.get(parentId);
+        if (counts == null) {
+            return true;
+        }
+        for (int type = 0; type < childTypes.size(); type++) {
+            if (counts.get(type * SLOTS_PER_TYPE + NO_STATUS) != 0) {
+                return false;
+            }
+            for (Status status : Status.values()) {
+                if ((allowedMasks[type] & (1L << status.ordinal())) == 0
+                        && counts.get(slot(type, status)) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resolves the parents of the queued transitions and applies their
+     * deltas; they are first seen, as their parents were not cached.
+     */
+    private void applyPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<TransitionResult> queued = new ArrayList<>();
+        pending.drainTo(queued);
+        Map<EntityType, List<TransitionResult>> byType = new EnumMap<>(EntityType.class);
+        for (TransitionResult result : queued) {
+            byType.computeIfAbsent(result.getEntityType(), t -> new ArrayList<>()).add(result);
+        }
+        for (Map.Entry<EntityType, List<TransitionResult>> entry : byType.entrySet()) {
+            int type = typeIndex[entry.getKey().ordinal()];
+            Map<String, String> parents = resolveParents(entry.getKey(), entry.getValue());
+            for (TransitionResult result : entry.getValue()) {
+                String parentId = parents.get(result.getRecordId());
+                if (parentId != null) {
+                    applyDelta(parentId, type, result.getFromStatus(), result.getToStatus(), 1, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param firstSeen the children were not seen by the rollup before, so a
+     *                  {@code from} count that would go negative means they
+     *                  were never counted there, not drift
+     */
+    private void applyDelta(String parentId, int type, Status from, Status to, long count,
+                            boolean firstSeen) {
+        AtomicLongArray counts = counters.computeIfAbsent(parentId,
+                k -> new AtomicLongArray(childTypes.size() * SLOTS_PER_TYPE));
+        // A record created without status is counted when it first gets one
+        if (from != null) {
+            if (firstSeen) {
+                counts.getAndUpdate(slot(type, from), c -> Math.max(0, c - count));
+            } else if (counts.addAndGet(slot(type, from), -count) < 0) {
+                markStale();
+            }
+        }
+        counts.addAndGet(slot(type, to), count);
+    }
+
+    /** Parent IDs of the records, from the cache or one query per chunk of misses. */
+    private Map<String, String> resolveParents(EntityType childType, List<TransitionResult> results) {
+        Map<String, String> parents = new HashMap<>(results.size() * 2);
+        List<String> misses = new ArrayList<>();
+        synchronized (parentOf) {
+            for (TransitionResult result : results) {
+                String parentId = parentOf.get(result.getRecordId());
+                if (parentId != null) {
+                    parents.put(result.getRecordId(), parentId);
+                } else {
+                    misses.add(result.getRecordId());
+                }
+            }
+        }
+        if (misses.isEmpty()) {
+            return parents;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            for (List<String> chunk : InLists.chunks(misses)) {
+                StringBuilder sql = InLists.appendIn(new StringBuilder("SELECT id, ").append(parentColumn)
+                        .append(" FROM ").append(physicalTable(childType)).append(" WHERE id"), chunk.size());
+                try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                    InLists.bind(statement, chunk);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            if (rs.getString(2) != null) {
+                                parents.put(rs.getString(1), rs.getString(2));
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LogUtil.error(CLASS_NAME, e, "Cannot resolve parents of " + misses.size() + " "
+                    + childType + " records; rollup marked stale");
+            markStale();
+        }
+        synchronized (parentOf) {
+            for (String id : misses) {
+                String parentId = parents.get(id);
+                if (parentId != null) {
+                    parentOf.put(id, parentId);
+                }
+            }
+        }
+        return parents;
+    }
+
+    private void markStale() {
+        stale = true;
+    }
+
+    private static int slot(int type, Status status) {
+        return type * SLOTS_PER_TYPE + (status != null ? status.ordinal() : NO_STATUS);
+    }
+}
@@ -0,0 +1,203 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.apps.form.model.FormRow;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static com.fiscaladmin.gam.framework.status.JdbcStatusStore.physicalTable;
+
+/**
+ * Lazy scan over the records of one entity type in one status, read a page at
+ * a time with keyset pagination on {@code id}:
+ * {@code ... WHERE c_status = ? AND id > :lastId ORDER BY id LIMIT :pageSize}.
+ * Only the page being consumed is on the heap, and each page borrows a
+ * connection just for its own query.
+ * <p>
+ * {@link #trySplit()} halves the remaining key range at its median ID (one
+ * {@code LIMIT 1 OFFSET} query), so a parallel stream's fork-join workers scan
+ * disjoint ranges. Splitting is only possible before the first page is read.
+ * <p>
+ * The scan is not a snapshot: records that change status while it runs may or
+ * may not be returned.
+ */
+final class StatusScan implements Spliterator<FormRow> {
+
+    private final DataSource dataSource;
+    private final EntityType entityType;
+    private final Status status;
+    private final int pageSize;
+    private final List<String> fields;
+    private final String selectSql;
+
+    /** Exclusive lower bound of the remaining range; {@code null} before the first record. */
+    private String lastId;
+    /** Inclusive upper bound; {@code null} for the end of the table. */
+    private String upperId;
+    private long estimate;
+    private boolean started;
+    private boolean exhausted;
+    private final ArrayDeque<FormRow> page = new ArrayDeque<>();
+
+    StatusScan(DataSource dataSource, EntityType entityType, Status status, int pageSize,
+               List<String> fields) {
+        this.dataSource = dataSource;
+        this.entityType = entityType;
+        this.status = status;
+        this.pageSize = pageSize;
+        this.fields = fields;
+        StringBuilder sql = new StringBuilder("SELECT id");
+        for (String field : fields) {
+            sql.append(", ").append(RecordFilter.checkField(field));
+        }
+        this.selectSql = sql.append(" FROM ").append(physicalTable(entityType)).toString();
+        this.estimate = -1;
+    }
+
+    private StatusScan(StatusScan parent, String lastId, String upperId, long estimate) {
+        this.dataSource = parent.dataSource;
+        this.entityType = parent.entityType;
+        this.status = parent.status;
+        this.pageSize = parent.pageSize;
+        this.fields = parent.fields;
+        this.selectSql = parent.selectSql;
+        this.lastId = lastId;
+        this.upperId = upperId;
+        this.estimate = estimate;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super FormRow> action) {
+        if (page.isEmpty() && !fetch()) {
+            return false;
+        }
+        action.accept(page.poll());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super FormRow> action) {
+        while (!page.isEmpty() || fetch()) {
+            while (!page.isEmpty()) {
+                action.accept(page.poll());
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<FormRow> trySplit() {
+        if (started || estimateSize() < 2L * pageSize) {
+            return null;
+        }
+        long half = estimate / 2;
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = rangeQuery("SELECT id FROM " + physicalTable(entityType), params)
+                .append(" ORDER BY id LIMIT 1 OFFSET ").append(half - 1);
+        List<String> median = query(sql.toString(), params);
+        if (median.isEmpty()) {
+            return null;
+        }
+        StatusScan prefix = new StatusScan(this, lastId, median.get(0), half);
+        lastId = median.get(0);
+        estimate -= half;
+        return prefix;
+    }
+
+    /** Exact for an unsplit scan that has not started; counted once on first call. */
+    @Override
+    public long estimateSize() {
+        if (estimate < 0) {
+            List<Object> params = new ArrayList<>();
+            String sql = rangeQuery("SELECT COUNT(*) FROM " + physicalTable(entityType), params).toString();
+            estimate = Long.parseLong(query(sql, params).get(0));
+        }
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | NONNULL;
+    }
+
+    /** Reads the next page into {@link #page}; returns {@code false} at the end of the range. */
+    private boolean fetch() {
+        if (exhausted) {
+            return false;
+        }
+        started = true;
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = rangeQuery(selectSql, params)
+                .append(" ORDER BY id LIMIT ").append(pageSize);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            bind(statement, params);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    FormRow row = new FormRow();
+                    row.setId(rs.getString(1));
+                    for (int i = 0; i < fields.size(); i++) {
+                        String value = rs.getString(i + 2);
+                        if (value != null) {
+                            row.setProperty(fields.get(i), value);
+                        }
+                    }
+                    page.add(row);
+                }
+            }
+        } catch (SQLException e) {
+            throw new StatusStoreException("Status scan failed: " + entityType + " after " + lastId, e);
+        }
+        if (page.size() < pageSize) {
+            exhausted = true;
+        }
+        if (page.isEmpty()) {
+            return false;
+        }
+        lastId = page.peekLast().getId();
+        return true;
+    }
+
+    private StringBuilder rangeQuery(String select, List<Object> params) {
+        StringBuilder sql = new StringBuilder(select).append(" WHERE ");
+        JdbcStatusStore.appendStatusCondition(sql, "", status, params);
+        if (lastId != null) {
+            sql.append(" AND id > ?");
+            params.add(lastId);
+        }
+        if (upperId != null) {
+            sql.append(" AND id <= ?");
+            params.add(upperId);
+        }
+        return sql;
+    }
+
+    private List<String> query(String sql, List<Object> params) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, params);
+            List<String> values = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    values.add(rs.getString(1));
+                }
+            }
+            return values;
+        } catch (SQLException e) {
+            throw new StatusStoreException("Status scan failed: " + entityType, e);
+        }
+    }
+
+    private static void bind(PreparedStatement statement, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            statement.setObject(i + 1, params.get(i));
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.fiscaladmin.gam.framework.status;
+
+/**
+ * Unchecked exception thrown when a direct JDBC status operation fails.
+ * Wraps the underlying {@link java.sql.SQLException}.
+ */
+public class StatusStoreException extends RuntimeException {
+
+    public StatusStoreException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
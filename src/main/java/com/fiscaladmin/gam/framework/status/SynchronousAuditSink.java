@@ -0,0 +1,33 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.apps.form.dao.FormDataDao;
+import org.joget.apps.form.model.FormRowSet;
+
+import java.util.List;
+
+/**
+ * Writes audit entries to {@code audit_log} immediately, in the caller's
+ * thread, with one {@code saveOrUpdate} per batch. This is the default sink.
+ */
+public final class SynchronousAuditSink implements AuditSink {
+
+    /** Shared stateless instance. */
+    public static final SynchronousAuditSink INSTANCE = new SynchronousAuditSink();
+
+    private SynchronousAuditSink() {
+    }
+
+    @Override
+    public void write(FormDataDao dao, List<TransitionAuditEntry> entries) {
+        String table = TransitionAuditEntry.TABLE_NAME;
+        dao.saveOrUpdate(table, table, toRowSet(entries));
+    }
+
+    static FormRowSet toRowSet(List<TransitionAuditEntry> entries) {
+        FormRowSet rowSet = new FormRowSet();
+        for (TransitionAuditEntry entry : entries) {
+            rowSet.add(entry.toFormRow());
+        }
+        return rowSet;
+    }
+}
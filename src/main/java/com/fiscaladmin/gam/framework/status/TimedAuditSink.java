@@ -0,0 +1,31 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.apps.form.dao.FormDataDao;
+
+import java.util.List;
+
+/**
+ * {@link AuditSink} decorator that records
+ * {@link TransitionMetrics.Phase#AUDIT_SAVE}. Installed by
+ * {@link StatusManager} while {@link TransitionMetrics} are set.
+ */
+final class TimedAuditSink implements AuditSink {
+
+    private final AuditSink delegate;
+    private final TransitionMetrics metrics;
+
+    TimedAuditSink(AuditSink delegate, TransitionMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void write(FormDataDao dao, List<TransitionAuditEntry> entries) {
+        long started = System.nanoTime();
+        try {
+            delegate.write(dao, entries);
+        } finally {
+            metrics.record(TransitionMetrics.Phase.AUDIT_SAVE, started);
+        }
+    }
+}
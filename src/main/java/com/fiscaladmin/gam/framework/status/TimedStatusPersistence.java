@@ -0,0 +1,89 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.apps.form.dao.FormDataDao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link StatusPersistence} decorator that records
+ * {@link TransitionMetrics.Phase#LOAD} and
+ * {@link TransitionMetrics.Phase#STATUS_SAVE} for every call, whichever
+ * {@link StatusManager} method made it. Installed by the manager while
+ * {@link TransitionMetrics} are set.
+ */
+final class TimedStatusPersistence implements StatusPersistence {
+
+    private final StatusPersistence delegate;
+    private final TransitionMetrics metrics;
+
+    TimedStatusPersistence(StatusPersistence delegate, TransitionMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public StatusRecord load(FormDataDao dao, EntityType entityType, String recordId) {
+        long started = System.nanoTime();
+        try {
+            return delegate.load(dao, entityType, recordId);
+        } finally {
+            metrics.record(TransitionMetrics.Phase.LOAD, started);
+        }
+    }
+
+    @Override
+    public Map<String, StatusRecord> loadAll(FormDataDao dao, EntityType entityType, List<String> recordIds) {
+        long started = System.nanoTime();
+        try {
+            return delegate.loadAll(dao, entityType, recordIds);
+        } finally {
+            metrics.record(TransitionMetrics.Phase.LOAD, started);
+        }
+    }
+
+    @Override
+    public void save(FormDataDao dao, EntityType entityType, List<StatusRecord> records,
+                     List<TransitionAuditEntry> audits) {
+        long started = System.nanoTime();
+        try {
+            delegate.save(dao, entityType, records, audits);
+        } finally {
+            metrics.record(TransitionMetrics.Phase.STATUS_SAVE, started);
+        }
+    }
+
+    @Override
+    public boolean supportsSaveIfCurrent() {
+        return delegate.supportsSaveIfCurrent();
+    }
+
+    @Override
+    public boolean saveIfCurrent(FormDataDao dao, EntityType entityType, String recordId,
+                                 Status expected, Status targetStatus, TransitionAuditEntry audit) {
+        long started = System.nanoTime();
+        try {
+            return delegate.saveIfCurrent(dao, entityType, recordId, expected, targetStatus, audit);
+        } finally {
+            metrics.record(TransitionMetrics.Phase.STATUS_SAVE, started);
+        }
+    }
+
+    @Override
+    public List<StatusRecord> findBy(FormDataDao dao, EntityType entityType, String field,
+                                     Collection<String> values) {
+        return delegate.findBy(dao, entityType, field, values);
+    }
+
+    @Override
+    public void saveAll(FormDataDao dao, Map<EntityType, List<StatusRecord>> records,
+                        List<TransitionAuditEntry> audits) {
+        long started = System.nanoTime();
+        try {
+            delegate.saveAll(dao, records, audits);
+        } finally {
+            metrics.record(TransitionMetrics.Phase.STATUS_SAVE, started);
+        }
+    }
+}
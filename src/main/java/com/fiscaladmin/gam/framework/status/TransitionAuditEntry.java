@@ -8,10 +8,14 @@ import java.util.UUID;
 /**
  * Immutable DTO representing one status transition audit log record.
  * <p>
- * Timestamp is auto-generated at creation time using ISO 8601 format.
+ * ID and timestamp (ISO 8601) are auto-generated at creation time.
  */
 public class TransitionAuditEntry {
 
+    /** Bare name of the Joget form table that stores audit entries. */
+    public static final String TABLE_NAME = "audit_log";
+
+    private final String id;
     private final String entityType;
     private final String entityId;
     private final String fromStatus;
@@ -33,13 +37,33 @@ public class TransitionAuditEntry {
     public TransitionAuditEntry(String entityType, String entityId,
                                 String fromStatus, String toStatus,
                                 String triggeredBy, String reason) {
+        this(UUID.randomUUID().toString(), entityType, entityId, fromStatus, toStatus,
+                triggeredBy, reason, Instant.now().toString());
+    }
+
+    /**
+     * Restores an entry with its original ID and timestamp, e.g. when
+     * replaying it from an {@link AuditJournal}.
+     */
+    TransitionAuditEntry(String id, String entityType, String entityId,
+                         String fromStatus, String toStatus,
+                         String triggeredBy, String reason, String timestamp) {
+        this.id = id;
         this.entityType = entityType;
         this.entityId = entityId;
         this.fromStatus = fromStatus;
         this.toStatus = toStatus;
         this.triggeredBy = triggeredBy;
         this.reason = reason;
-        this.timestamp = Instant.now().toString();
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Returns the {@code audit_log} primary key. It is fixed at creation so
+     * that writing the same entry twice updates one row instead of adding two.
+     */
+    public String getId() {
+        return id;
     }
 
     public String getEntityType() {
@@ -76,7 +100,7 @@ public class TransitionAuditEntry {
      */
     public FormRow toFormRow() {
         FormRow row = new FormRow();
-        row.setId(UUID.randomUUID().toString());
+        row.setId(id);
         row.setProperty("entity_type", entityType);
         row.setProperty("entity_id", entityId);
         row.setProperty("from_status", fromStatus);
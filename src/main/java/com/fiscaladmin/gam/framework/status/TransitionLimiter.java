@@ -0,0 +1,308 @@
+package com.fiscaladmin.gam.framework.status;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate limits and bulkheads on transitions, per {@code triggeredBy} (plugin
+ * name) and per {@link EntityType}, so that one flooding plugin cannot starve
+ * the connection pool for all the others.
+ * <p>
+ * Each {@link Limit} combines a token bucket ({@code permitsPerSecond},
+ * refilled continuously up to {@code burst}) with a cap on calls in flight. A
+ * call must pass the limit of its {@code triggeredBy} and of its entity type.
+ * An over-limit call waits up to {@code maxWaitMillis} and is then rejected:
+ * {@link StatusManager#tryTransition} reports
+ * {@link TransitionResult.Outcome#THROTTLED} and {@link StatusManager#transition}
+ * throws {@link TransitionThrottledException}. With {@code maxWaitMillis} 0,
+ * over-limit calls fail fast.
+ * <p>
+ * Install with {@link StatusManager#setTransitionLimiter}. A call takes one
+ * token per record it asks to move: one for a single-record transition,
+ * one per distinct ID for {@link StatusManager#transitionAll} and
+ * {@code maxRows} for {@link StatusManager#claim}. The exception is
+ * {@link StatusManager#transitionWhere}, whose record count is only known
+ * after its single statement ran; it takes one token. Every call takes one
+ * in-flight slot.
+ */
+public class TransitionLimiter {
+
+    private final long maxWaitNanos;
+    private final ConcurrentHashMap<String, Limit> byTriggeredBy = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<EntityType, Limit> byEntityType = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxWaitMillis how long an over-limit call waits before it is
+     *                      rejected; 0 rejects immediately
+     */
+    public TransitionLimiter(long maxWaitMillis) {
+        if (maxWaitMillis < 0) {
+            throw new IllegalArgumentException("maxWaitMillis must not be negative");
+        }
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    }
+
+    /**
+     * Limits the transitions of one plugin; replaces any previous limit.
+     *
+     * @param permitsPerSecond sustained rate; 0 for no rate limit
+     * @param burst            calls allowed at once after an idle period
+     * @param maxInFlight      calls running at once; 0 for no cap
+     */
+    public Limit limitTriggeredBy(String triggeredBy, double permitsPerSecond, int burst, int maxInFlight) {
+        Limit limit = new Limit("triggeredBy " + triggeredBy, permitsPerSecond, burst, maxInFlight);
+        byTriggeredBy.put(triggeredBy, limit);
+        return limit;
+    }
+
+    /** Limits the transitions of one entity type; see {@link #limitTriggeredBy}. */
+    public Limit limitEntityType(EntityType entityType, double permitsPerSecond, int burst, int maxInFlight) {
+        Limit limit = new Limit("entity type " + entityType, permitsPerSecond, burst, maxInFlight);
+        byEntityType.put(entityType, limit);
+        return limit;
+    }
+
+    public Limit getLimit(String triggeredBy) {
+        return byTriggeredBy.get(triggeredBy);
+    }
+
+    public Limit getLimit(EntityType entityType) {
+        return byEntityType.get(entityType);
+    }
+
+    /** All configured limits, for monitoring. */
+    public Collection<Limit> getLimits() {
+        List<Limit> limits = new ArrayList<>(byTriggeredBy.values());
+        limits.addAll(byEntityType.values());
+        return limits;
+    }
+
+    /** {@link #acquire(EntityType, String, int)} for a single record. */
+    Permit acquire(EntityType entityType, String triggeredBy) {
+        return acquire(entityType, triggeredBy, 1);
+    }
+
+    /**
+     * Passes the call through its limits, waiting up to the configured time.
+     * Close the returned permit when the call is done.
+     *
+     * @param tokens number of records the call may move
+     */
+    Permit acquire(EntityType entityType, String triggeredBy, int tokens) {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        Limit first = triggeredBy != null ? byTriggeredBy.get(triggeredBy) : null;
+        Limit second = byEntityType.get(entityType);
+        if (first != null && !first.acquire(deadline, tokens)) {
+            return new Permit(null, null, first);
+        }
+        if (second != null && !second.acquire(deadline, tokens)) {
+            if (first != null) {
+                first.cancel(tokens);
+            }
+            return new Permit(null, null, second);
+        }
+        return new Permit(first, second, null);
+    }
+
+    /**
+     * One configured limit with its live usage. Counters are cumulative since
+     * the limit was configured.
+     */
+    public static final class Limit {
+        private final String name;
+        private final double permitsPerNano;
+        private final double burst;
+        private final int maxInFlight;
+        private final Semaphore bulkhead;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        /** Guarded by {@code this}. */
+        private double tokens;
+        private long refilledAt;
+
+        Limit(String name, double permitsPerSecond, int burst, int maxInFlight) {
+            if (permitsPerSecond < 0 || burst < 1 || maxInFlight < 0) {
+                throw new IllegalArgumentException(
+                        "permitsPerSecond and maxInFlight must not be negative, burst must be positive");
+            }
+            this.name = name;
+            this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.burst = burst;
+            this.maxInFlight = maxInFlight;
+            this.bulkhead = maxInFlight > 0 ? new Semaphore(maxInFlight) : null;
+            this.tokens = burst;
+            this.refilledAt = System.nanoTime();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Calls currently running under this limit. */
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        /** 0 if in-flight calls are not capped. */
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        /** Tokens in the bucket now; negative while waiting calls hold reservations. */
+        public synchronized double getAvailableTokens() {
+            if (permitsPerNano == 0) {
+                return burst;
+            }
+            refill(System.nanoTime());
+            return tokens;
+        }
+
+        public long getAdmittedCount() {
+            return admitted.sum();
+        }
+
+        public long getRejectedCount() {
+            return rejected.sum();
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + getInFlight() + " in flight, " + getAdmittedCount() + " admitted, "
+                    + getRejectedCount() + " rejected";
+        }
+
+        /** Takes the tokens and an in-flight slot; on rejection the tokens are returned. */
+        private boolean acquire(long deadline, int count) {
+            long wait = reserve(deadline, count);
+            if (wait < 0) {
+                rejected.increment();
+                return false;
+            }
+            try {
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                if (bulkhead != null && !bulkhead.tryAcquire(
+                        Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    refund(count);
+                    rejected.increment();
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                refund(count);
+                rejected.increment();
+                return false;
+            }
+            inFlight.incrementAndGet();
+            admitted.increment();
+            return true;
+        }
+
+        private void release() {
+            inFlight.decrementAndGet();
+            if (bulkhead != null) {
+                bulkhead.release();
+            }
+        }
+
+        /** Undoes {@link #acquire} for a call another limit rejected. */
+        private void cancel(int count) {
+            release();
+            refund(count);
+            admitted.decrement();
+        }
+
+        /** Returns tokens taken by {@link #reserve} for a call that was not admitted. */
+        private synchronized void refund(int count) {
+            if (permitsPerNano != 0) {
+                tokens = Math.min(burst, tokens + count);
+            }
+        }
+
+        /**
+         * Takes {@code count} tokens, reserving future ones if the bucket holds
+         * fewer. A call for more than {@code burst} tokens only waits for a
+         * full bucket and leaves it in debt, so it can be admitted at all;
+         * later calls wait until the debt is refilled.
+         *
+         * @return nanoseconds to wait for the tokens, or -1 if that is past the deadline
+         */
+        private synchronized long reserve(long deadline, int count) {
+            if (permitsPerNano == 0) {
+                return 0;
+            }
+            long now = System.nanoTime();
+            refill(now);
+            double needed = Math.min(count, burst);
+            long wait = tokens >= needed ? 0 : (long) Math.ceil((needed - tokens) / permitsPerNano);
+            if (wait > 0 && now + wait - deadline > 0) {
+                return -1;
+            }
+            tokens -= count;
+            return wait;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+            refilledAt = now;
+        }
+    }
+
+    /** Admission of one call; {@link #close()} frees its in-flight slots. */
+    static final class Permit implements AutoCloseable {
+
+        /** Used when no limiter is installed. */
+        static final Permit UNLIMITED = new Permit(null, null, null);
+
+        private final Limit first;
+        private final Limit second;
+        private final Limit rejectedBy;
+
+        private Permit(Limit first, Limit second, Limit rejectedBy) {
+            this.first = first;
+            this.second = second;
+            this.rejectedBy = rejectedBy;
+        }
+
+        boolean isGranted() {
+            return rejectedBy == null;
+        }
+
+        /** Returns tokens of a granted call that moved fewer records than it was charged for. */
+        void refund(int tokens) {
+            if (tokens <= 0) {
+                return;
+            }
+            if (first != null) {
+                first.refund(tokens);
+            }
+            if (second != null) {
+                second.refund(tokens);
+            }
+        }
+
+        /** The limit that rejected the call, or {@code null} if granted. */
+        Limit getRejectedBy() {
+            return rejectedBy;
+        }
+
+        @Override
+        public void close() {
+            if (first != null) {
+                first.release();
+            }
+            if (second != null) {
+                second.release();
+            }
+        }
+    }
+}
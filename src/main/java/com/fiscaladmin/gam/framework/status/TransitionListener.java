@@ -0,0 +1,40 @@
+package com.fiscaladmin.gam.framework.status;
+
+import java.util.List;
+
+/**
+ * Callback notified by {@link StatusManager} after transitions have been
+ * written. Register with {@link StatusManager#addTransitionListener}.
+ * <p>
+ * Listeners run on the thread that performed the write, after its
+ * {@link RecordLocks} stripes have been released, so a listener's own I/O
+ * does not block transitions of other records sharing a stripe. They must be
+ * thread-safe; as they delay the caller, they should be quick. An exception
+ * thrown by a listener is logged and does not affect the (already written)
+ * transition.
+ */
+public interface TransitionListener {
+
+    /** Called once per written transition, with outcome {@link TransitionResult.Outcome#OK}. */
+    void onTransition(TransitionResult result);
+
+    /**
+     * Called for transitions written together (batches, cascades, group
+     * commits). The default forwards each one to {@link #onTransition}.
+     */
+    default void onTransitions(List<TransitionResult> results) {
+        for (TransitionResult result : results) {
+            onTransition(result);
+        }
+    }
+
+    /**
+     * Called after {@link StatusManager#transitionWhere}, whose individual
+     * records are not known to the JVM.
+     *
+     * @param count number of records moved from {@code fromStatus} to {@code toStatus}
+     */
+    default void onBulkTransition(EntityType entityType, RecordFilter filter,
+                                  Status fromStatus, Status toStatus, int count) {
+    }
+}
@@ -0,0 +1,256 @@
+package com.fiscaladmin.gam.framework.status;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for {@link StatusManager}, installed with
+ * {@link StatusManager#setTransitionMetrics}:
+ * <ul>
+ *   <li>status changes per edge ({@link EntityType}, from, to), counting every
+ *       record written by any transition method, cascaded children included;</li>
+ *   <li>rejections per entity type and cause ({@code INVALID}, {@code NOT_FOUND},
+ *       {@code LOST_RACE}, {@code THROTTLED}) of {@code transition},
+ *       {@code tryTransition}, {@code transitionPath}, {@code transitionAll}
+ *       and {@code transitionIfCurrent};</li>
+ *   <li>latency per {@link Phase}: every load and save through the
+ *       {@link StatusPersistence} and every write to the {@link AuditSink},
+ *       whichever method made it (the direct-JDBC {@code transitionIfCurrent},
+ *       {@code transitionWhere} and {@code claim} write their audit rows
+ *       themselves and touch neither), plus validation and logging of single-record and multi-hop
+ *       transitions.</li>
+ * </ul>
+ * Recording is lock-free ({@link LongAdder}s throughout). Without metrics
+ * installed, the manager skips recording and reading the clock altogether.
+ * The snapshots are readable through the getters or, after
+ * {@link #registerMBean}, over JMX.
+ */
+public class TransitionMetrics implements TransitionMetricsMXBean {
+
+    /** Default JMX name used by {@link #registerMBean()}. */
+    public static final String OBJECT_NAME = "com.fiscaladmin.gam:type=TransitionMetrics";
+
+    /** Timed steps of a transition. */
+    public enum Phase {
+        /** One {@code load} or {@code loadAll} of the {@link StatusPersistence}. */
+        LOAD,
+        /** Parsing the stored status and checking the transition map. */
+        VALIDATE,
+        /**
+         * One {@code save}, {@code saveIfCurrent} or {@code saveAll} of the
+         * {@link StatusPersistence}, including the audit entries it writes
+         * with the statuses.
+         */
+        STATUS_SAVE,
+        /**
+         * One write to the manager's {@link AuditSink}. The default
+         * persistence writes its audit entries this way, so for it this is
+         * part of {@link #STATUS_SAVE}.
+         */
+        AUDIT_SAVE,
+        /** Writing the log line. */
+        LOG
+    }
+
+    private static final int STATUS_COUNT = Status.values().length;
+    private static final TransitionResult.Outcome[] OUTCOMES = TransitionResult.Outcome.values();
+
+    /** Indexed by {@link #edgeIndex}; adders are created on first use. */
+    private final AtomicReferenceArray<LongAdder> edges =
+            new AtomicReferenceArray<>(EntityType.values().length * (STATUS_COUNT + 1) * STATUS_COUNT);
+    /** Indexed by entity type ordinal × outcome count + outcome ordinal. */
+    private final LongAdder[] rejections = new LongAdder[EntityType.values().length * OUTCOMES.length];
+    private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+
+    private volatile ObjectName registeredName;
+
+    public TransitionMetrics() {
+        for (int i = 0; i < rejections.length; i++) {
+            rejections[i] = new LongAdder();
+        }
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new LatencyHistogram();
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Recording (called by StatusManager)
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Counts the edge of every successful result. */
+    void recordTransitions(List<TransitionResult> results) {
+        for (TransitionResult result : results) {
+            if (result.isSuccess()) {
+                edgeAdder(edgeIndex(result.getEntityType(), result.getFromStatus(), result.getToStatus()))
+                        .increment();
+            }
+        }
+    }
+
+    /** Counts the result if it is a rejection. */
+    void recordRejection(TransitionResult result) {
+        if (!result.isSuccess()) {
+            recordRejection(result.getEntityType(), result.getOutcome());
+        }
+    }
+
+    void recordRejection(EntityType entityType, TransitionResult.Outcome cause) {
+        rejections[entityType.ordinal() * OUTCOMES.length + cause.ordinal()].increment();
+    }
+
+    /**
+     * Records the time since {@code startedNanos} for the phase.
+     *
+     * @return the current {@link System#nanoTime()}, the start of the next phase
+     */
+    long record(Phase phase, long startedNanos) {
+        long now = System.nanoTime();
+        phases[phase.ordinal()].record(now - startedNanos);
+        return now;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Snapshots
+    // ──────────────────────────────────────────────────────────────────
+
+    /** @param fromStatus {@code null} for records that had no status */
+    public long getEdgeCount(EntityType entityType, Status fromStatus, Status toStatus) {
+        LongAdder adder = edges.get(edgeIndex(entityType, fromStatus, toStatus));
+        return adder != null ? adder.sum() : 0;
+    }
+
+    public long getRejectionCount(EntityType entityType, TransitionResult.Outcome cause) {
+        return rejections[entityType.ordinal() * OUTCOMES.length + cause.ordinal()].sum();
+    }
+
+    public LatencyHistogram.Snapshot getLatency(Phase phase) {
+        return phases[phase.ordinal()].snapshot();
+    }
+
+    @Override
+    public long getTransitionCount() {
+        long total = 0;
+        for (int i = 0; i < edges.length(); i++) {
+            LongAdder adder = edges.get(i);
+            if (adder != null) {
+                total += adder.sum();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public long getRejectionCount() {
+        long total = 0;
+        for (LongAdder adder : rejections) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Long> getEdgeCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        Status[] statuses = Status.values();
+        for (EntityType entityType : EntityType.values()) {
+            for (int from = -1; from < STATUS_COUNT; from++) {
+                Status fromStatus = from >= 0 ? statuses[from] : null;
+                for (Status toStatus : statuses) {
+                    long count = getEdgeCount(entityType, fromStatus, toStatus);
+                    if (count > 0) {
+                        counts.put(entityType + ":" + (fromStatus != null ? fromStatus.getCode() : "null")
+                                + "->" + toStatus.getCode(), count);
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getRejectionCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (EntityType entityType : EntityType.values()) {
+            for (TransitionResult.Outcome cause : OUTCOMES) {
+                long count = getRejectionCount(entityType, cause);
+                if (count > 0) {
+                    counts.put(entityType + ":" + cause, count);
+                }
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, LatencyHistogram.Snapshot> getPhaseLatencies() {
+        Map<String, LatencyHistogram.Snapshot> latencies = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            latencies.put(phase.name(), getLatency(phase));
+        }
+        return latencies;
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  JMX
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Registers this instance with the platform MBean server under {@link #OBJECT_NAME}. */
+    public ObjectName registerMBean() {
+        return registerMBean(OBJECT_NAME);
+    }
+
+    /**
+     * Registers this instance with the platform MBean server, e.g. under a
+     * name per app when several apps run in one JVM.
+     *
+     * @throws IllegalStateException if the name is invalid or already taken
+     */
+    public synchronized ObjectName registerMBean(String objectName) {
+        try {
+            ObjectName name = new ObjectName(objectName);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            registeredName = name;
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register transition metrics as " + objectName, e);
+        }
+    }
+
+    /** Removes the registration made by {@link #registerMBean}, if any. */
+    public synchronized void unregisterMBean() {
+        ObjectName name = registeredName;
+        if (name == null) {
+            return;
+        }
+        registeredName = null;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister transition metrics " + name, e);
+        }
+    }
+
+    private LongAdder edgeAdder(int index) {
+        LongAdder adder = edges.get(index);
+        if (adder == null) {
+            LongAdder created = new LongAdder();
+            adder = edges.compareAndSet(index, null, created) ? created : edges.get(index);
+        }
+        return adder;
+    }
+
+    private static int edgeIndex(EntityType entityType, Status fromStatus, Status toStatus) {
+        int from = fromStatus != null ? fromStatus.ordinal() + 1 : 0;
+        return (entityType.ordinal() * (STATUS_COUNT + 1) + from) * STATUS_COUNT + toStatus.ordinal();
+    }
+}
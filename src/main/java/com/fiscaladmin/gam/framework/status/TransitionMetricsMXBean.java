@@ -0,0 +1,25 @@
+package com.fiscaladmin.gam.framework.status;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link TransitionMetrics}, registered with
+ * {@link TransitionMetrics#registerMBean}. Every attribute is a fresh snapshot.
+ */
+public interface TransitionMetricsMXBean {
+
+    /** Status changes written, over all edges. */
+    long getTransitionCount();
+
+    /** Transitions refused, over all causes. */
+    long getRejectionCount();
+
+    /** Per edge, keyed {@code ENTITY_TYPE:from->to}; edges never taken are absent. */
+    Map<String, Long> getEdgeCounts();
+
+    /** Per entity type and cause, keyed {@code ENTITY_TYPE:OUTCOME}, e.g. {@code BANK_TRX:INVALID}. */
+    Map<String, Long> getRejectionCounts();
+
+    /** Latencies in nanoseconds per {@link TransitionMetrics.Phase}, keyed by phase name. */
+    Map<String, LatencyHistogram.Snapshot> getPhaseLatencies();
+}
@@ -0,0 +1,108 @@
+package com.fiscaladmin.gam.framework.status;
+
+/**
+ * Immutable outcome of a single record's status transition.
+ * <p>
+ * Returned by the non-throwing APIs (e.g. {@link StatusManager#tryTransition},
+ * {@link StatusManager#transitionAll}) so that callers processing many records
+ * can inspect every record's result instead of stopping at the first
+ * {@link InvalidTransitionException}. Nothing is formatted until
+ * {@link #toString()} is called.
+ */
+public final class TransitionResult {
+
+    /** What happened to the record. */
+    public enum Outcome {
+        /** The transition was validated and written. */
+        OK,
+        /** The record's current status does not allow the requested target. */
+        INVALID,
+        /** No record with the given ID exists in the entity's table. */
+        NOT_FOUND,
+        /**
+         * A conditional transition found the record in a different status than
+         * expected, typically because a concurrent caller changed it first.
+         */
+        LOST_RACE,
+        /**
+         * A {@link TransitionLimiter} rate or in-flight limit rejected the
+         * call; nothing was read or written.
+         */
+        THROTTLED
+    }
+
+    private final Outcome outcome;
+    private final EntityType entityType;
+    private final String recordId;
+    private final Status fromStatus;
+    private final Status toStatus;
+
+    private TransitionResult(Outcome outcome, EntityType entityType, String recordId,
+                             Status fromStatus, Status toStatus) {
+        this.outcome = outcome;
+        this.entityType = entityType;
+        this.recordId = recordId;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+    }
+
+    static TransitionResult ok(EntityType entityType, String recordId,
+                               Status fromStatus, Status toStatus) {
+        return new TransitionResult(Outcome.OK, entityType, recordId, fromStatus, toStatus);
+    }
+
+    static TransitionResult invalid(EntityType entityType, String recordId,
+                                    Status fromStatus, Status toStatus) {
+        return new TransitionResult(Outcome.INVALID, entityType, recordId, fromStatus, toStatus);
+    }
+
+    static TransitionResult notFound(EntityType entityType, String recordId, Status toStatus) {
+        return new TransitionResult(Outcome.NOT_FOUND, entityType, recordId, null, toStatus);
+    }
+
+    static TransitionResult lostRace(EntityType entityType, String recordId,
+                                     Status actualStatus, Status toStatus) {
+        return new TransitionResult(Outcome.LOST_RACE, entityType, recordId, actualStatus, toStatus);
+    }
+
+    static TransitionResult throttled(EntityType entityType, String recordId, Status toStatus) {
+        return new TransitionResult(Outcome.THROTTLED, entityType, recordId, null, toStatus);
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /** Returns {@code true} if the transition was written. */
+    public boolean isSuccess() {
+        return outcome == Outcome.OK;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public String getRecordId() {
+        return recordId;
+    }
+
+    /**
+     * Status the record was in before the attempt; {@code null} if unknown or
+     * unset. For {@link Outcome#LOST_RACE} this is the status actually found.
+     */
+    public Status getFromStatus() {
+        return fromStatus;
+    }
+
+    /** The requested target status. */
+    public Status getToStatus() {
+        return toStatus;
+    }
+
+    @Override
+    public String toString() {
+        return outcome + " " + entityType + " " + recordId + ": "
+                + (fromStatus != null ? fromStatus.getCode() : "null")
+                + " → " + (toStatus != null ? toStatus.getCode() : "null");
+    }
+}
@@ -0,0 +1,250 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.apps.form.dao.FormDataDao;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of a {@link StatusManager}: transitions run in
+ * priority lanes so that an operator's click is not queued behind a nightly
+ * import's bulk traffic for database connections.
+ * <p>
+ * At most {@code maxConcurrent} transitions run at once across both lanes.
+ * {@link Priority#BULK} work may only use the slots left after
+ * {@code reservedInteractive}, so interactive calls always find a free slot
+ * unless interactive traffic alone fills the limit. When a slot frees up,
+ * queued interactive work starts before queued bulk work; within a lane the
+ * order is first come, first served.
+ * <p>
+ * The lane is derived from {@code triggeredBy} ({@value #OPERATOR} is
+ * interactive, plugin names are bulk) or passed explicitly. Calls through the
+ * manager itself bypass the scheduler.
+ */
+public class TransitionScheduler {
+
+    /** Scheduling class of a transition. */
+    public enum Priority {
+        /** A user is waiting, e.g. confirming a pair or resolving an exception. */
+        INTERACTIVE,
+        /** Pipeline traffic; uses the capacity interactive work leaves over. */
+        BULK
+    }
+
+    /** {@code triggeredBy} of transitions made by a user in the UI. */
+    public static final String OPERATOR = "OPERATOR";
+
+    public static final int DEFAULT_MAX_CONCURRENT = 16;
+    public static final int DEFAULT_RESERVED_INTERACTIVE = 4;
+
+    private final StatusManager statusManager;
+    private final int maxConcurrent;
+    private final int maxBulk;
+
+    private final Object lock = new Object();
+    /** Per {@link Priority} ordinal; guarded by {@link #lock}. */
+    private final ArrayDeque<Runnable>[] queues;
+    private final int[] running = new int[Priority.values().length];
+
+    public TransitionScheduler(StatusManager statusManager) {
+        this(statusManager, DEFAULT_MAX_CONCURRENT, DEFAULT_RESERVED_INTERACTIVE);
+    }
+
+    /**
+     * @param maxConcurrent       transitions running at once, e.g. the share of
+     *                            the connection pool given to status changes
+     * @param reservedInteractive slots bulk work may not use
+     */
+    @SuppressWarnings("unchecked")
+    public TransitionScheduler(StatusManager statusManager, int maxConcurrent, int reservedInteractive) {
+        if (statusManager == null) {
+            throw new IllegalArgumentException("statusManager must not be null");
+        }
+        if (maxConcurrent < 1 || reservedInteractive < 0 || reservedInteractive >= maxConcurrent) {
+            throw new IllegalArgumentException(
+                    "maxConcurrent must be positive and reservedInteractive in [0, maxConcurrent)");
+        }
+        this.statusManager = statusManager;
+        this.maxConcurrent = maxConcurrent;
+        this.maxBulk = maxConcurrent - reservedInteractive;
+        this.queues = new ArrayDeque[Priority.values().length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+    }
+
+    /** {@link Priority#INTERACTIVE} for {@value #OPERATOR}, otherwise {@link Priority#BULK}. */
+    public Priority priorityOf(String triggeredBy) {
+        return OPERATOR.equalsIgnoreCase(triggeredBy) ? Priority.INTERACTIVE : Priority.BULK;
+    }
+
+    /** {@link StatusManager#transition} in the lane of {@code triggeredBy}, waiting for a slot. */
+    public void transition(FormDataDao dao, EntityType entityType, String recordId,
+                           Status targetStatus, String triggeredBy, String reason)
+            throws InvalidTransitionException {
+        Priority priority = priorityOf(triggeredBy);
+        acquire(priority);
+        try {
+            statusManager.transition(dao, entityType, recordId, targetStatus, triggeredBy, reason);
+        } finally {
+            release(priority);
+        }
+    }
+
+    /** {@link StatusManager#tryTransition} in the lane of {@code triggeredBy}, waiting for a slot. */
+    public TransitionResult tryTransition(FormDataDao dao, EntityType entityType, String recordId,
+                                          Status targetStatus, String triggeredBy, String reason) {
+        return tryTransition(dao, entityType, recordId, targetStatus, triggeredBy, reason,
+                priorityOf(triggeredBy));
+    }
+
+    /** {@link StatusManager#tryTransition} in the given lane, waiting for a slot. */
+    public TransitionResult tryTransition(FormDataDao dao, EntityType entityType, String recordId,
+                                          Status targetStatus, String triggeredBy, String reason,
+                                          Priority priority) {
+        return run(priority, () -> statusManager.tryTransition(dao, entityType, recordId,
+                targetStatus, triggeredBy, reason));
+    }
+
+    /** {@link StatusManager#transitionAll} as one slot in the lane of {@code triggeredBy}. */
+    public Map<String, TransitionResult> transitionAll(FormDataDao dao, EntityType entityType,
+                                                       Collection<String> recordIds,
+                                                       Status targetStatus, String triggeredBy,
+                                                       String reason) {
+        return run(priorityOf(triggeredBy), () -> statusManager.transitionAll(dao, entityType,
+                recordIds, targetStatus, triggeredBy, reason));
+    }
+
+    /** Queues {@link StatusManager#tryTransition} in the lane of {@code triggeredBy}. */
+    public CompletableFuture<TransitionResult> transitionAsync(FormDataDao dao, EntityType entityType,
+                                                               String recordId, Status targetStatus,
+                                                               String triggeredBy, String reason) {
+        return transitionAsync(dao, entityType, recordId, targetStatus, triggeredBy, reason,
+                priorityOf(triggeredBy));
+    }
+
+    /**
+     * Queues {@link StatusManager#tryTransition} in the given lane without
+     * blocking the caller; it runs on the manager's
+     * {@linkplain StatusManager#setAsyncExecutor async executor} once a slot is free.
+     */
+    public CompletableFuture<TransitionResult> transitionAsync(FormDataDao dao, EntityType entityType,
+                                                               String recordId, Status targetStatus,
+                                                               String triggeredBy, String reason,
+                                                               Priority priority) {
+        return submit(priority, statusManager.getAsyncExecutor(), () -> statusManager.tryTransition(
+                dao, entityType, recordId, targetStatus, triggeredBy, reason));
+    }
+
+    /** Number of transitions of the lane currently running. */
+    public int getRunning(Priority priority) {
+        synchronized (lock) {
+            return running[priority.ordinal()];
+        }
+    }
+
+    /** Number of transitions of the lane waiting for a slot. */
+    public int getQueued(Priority priority) {
+        synchronized (lock) {
+            return queues[priority.ordinal()].size();
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────────
+    //  Admission
+    // ──────────────────────────────────────────────────────────────────
+
+    /** Runs {@code work} on the calling thread once the lane has a slot. */
+    <T> T run(Priority priority, Supplier<T> work) {
+        acquire(priority);
+        try {
+            return work.get();
+        } finally {
+            release(priority);
+        }
+    }
+
+    /** Runs {@code work} on {@code executor} once the lane has a slot. */
+    <T> CompletableFuture<T> submit(Priority priority, Executor executor, Supplier<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        schedule(priority, () -> {
+            try {
+                executor.execute(() -> {
+                    T result = null;
+                    Throwable failure = null;
+                    try {
+                        result = work.get();
+                    } catch (Throwable e) {
+                        failure = e;
+                    }
+                    // Free the slot before dependants of the future run
+                    release(priority);
+                    if (failure != null) {
+                        future.completeExceptionally(failure);
+                    } else {
+                        future.complete(result);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                release(priority);
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private void acquire(Priority priority) {
+        CompletableFuture<Void> granted = new CompletableFuture<>();
+        schedule(priority, () -> granted.complete(null));
+        granted.join();
+    }
+
+    /**
+     * Starts {@code start} now if the lane has a free slot and no queued work
+     * ahead of it, otherwise queues it. The slot is taken before it runs.
+     */
+    private void schedule(Priority priority, Runnable start) {
+        synchronized (lock) {
+            boolean ahead = !queues[Priority.INTERACTIVE.ordinal()].isEmpty()
+                    || priority == Priority.BULK && !queues[Priority.BULK.ordinal()].isEmpty();
+            if (ahead || !hasSlot(priority)) {
+                queues[priority.ordinal()].add(start);
+                return;
+            }
+            running[priority.ordinal()]++;
+        }
+        start.run();
+    }
+
+    /** Frees a slot and starts queued work, interactive first. */
+    private void release(Priority priority) {
+        List<Runnable> starts = new ArrayList<>(2);
+        synchronized (lock) {
+            running[priority.ordinal()]--;
+            for (Priority lane : Priority.values()) {
+                ArrayDeque<Runnable> queue = queues[lane.ordinal()];
+                while (!queue.isEmpty() && hasSlot(lane)) {
+                    running[lane.ordinal()]++;
+                    starts.add(queue.poll());
+                }
+            }
+        }
+        for (Runnable start : starts) {
+            start.run();
+        }
+    }
+
+    /** Guarded by {@link #lock}. */
+    private boolean hasSlot(Priority priority) {
+        int total = running[Priority.INTERACTIVE.ordinal()] + running[Priority.BULK.ordinal()];
+        return total < maxConcurrent
+                && (priority == Priority.INTERACTIVE || running[Priority.BULK.ordinal()] < maxBulk);
+    }
+}
@@ -0,0 +1,172 @@
+package com.fiscaladmin.gam.framework.status;
+
+import java.util.*;
+
+/**
+ * Dense, immutable form of the transition map, compiled once at class init.
+ * <p>
+ * Each {@code (entity, from-status)} pair maps to a {@code long} bitmask with
+ * one bit per {@link Status} ordinal, and each entity has a bitmask of its
+ * initial statuses (used when a record has no status yet). Lookups are two
+ * array reads and a bit test, with no allocation. The sets handed out by
+ * {@link #targets} are built once and shared.
+ * <p>
+ * For route planning the table also holds all-pairs reachability bitmasks and
+ * a next-hop table of shortest paths, computed with one breadth-first search
+ * per {@code (entity, from-status)}.
+ */
+final class TransitionTable {
+
+    private static final int STATUS_COUNT = Status.values().length;
+
+    static {
+        if (STATUS_COUNT > Long.SIZE) {
+            throw new IllegalStateException("TransitionTable supports at most " + Long.SIZE
+                    + " statuses, found " + STATUS_COUNT);
+        }
+    }
+
+    /** {@code targets[entity][from]} — bitmask of allowed target ordinals. */
+    private final long[][] targets;
+    /** {@code initial[entity]} — bitmask of statuses allowed when there is none yet. */
+    private final long[] initial;
+    /** {@code views[entity][from]} — shared unmodifiable view of {@code targets}. */
+    private final Set<Status>[][] views;
+    /**
+     * {@code reachable[entity][from]} — bitmask of statuses reachable in one or
+     * more steps; index {@link #STATUS_COUNT} stands for "no status yet".
+     */
+    private final long[][] reachable;
+    /**
+     * {@code nextHop[entity][from][to]} — ordinal of the first status on a
+     * shortest path, or -1; same {@code from} indexing as {@link #reachable}.
+     */
+    private final byte[][][] nextHop;
+
+    private TransitionTable(long[][] targets, long[] initial, Set<Status>[][] views) {
+        this.targets = targets;
+        this.initial = initial;
+        this.views = views;
+        int entityCount = targets.length;
+        this.reachable = new long[entityCount][STATUS_COUNT + 1];
+        this.nextHop = new byte[entityCount][STATUS_COUNT + 1][STATUS_COUNT];
+        for (int e = 0; e < entityCount; e++) {
+            for (int from = 0; from <= STATUS_COUNT; from++) {
+                search(e, from);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static TransitionTable compile(Map<EntityType, Map<Status, Set<Status>>> transitions,
+                                   Map<EntityType, Set<Status>> initialStatuses) {
+        int entityCount = EntityType.values().length;
+        long[][] targets = new long[entityCount][STATUS_COUNT];
+        long[] initial = new long[entityCount];
+        Set<Status>[][] views = new Set[entityCount][STATUS_COUNT];
+
+        for (EntityType entityType : EntityType.values()) {
+            int e = entityType.ordinal();
+            Arrays.fill(views[e], Collections.<Status>emptySet());
+
+            Map<Status, Set<Status>> entityMap = transitions.get(entityType);
+            if (entityMap != null) {
+                for (Map.Entry<Status, Set<Status>> entry : entityMap.entrySet()) {
+                    int from = entry.getKey().ordinal();
+                    targets[e][from] = mask(entry.getValue());
+                    if (!entry.getValue().isEmpty()) {
+                        views[e][from] = Collections.unmodifiableSet(EnumSet.copyOf(entry.getValue()));
+                    }
+                }
+            }
+            Set<Status> initialSet = initialStatuses.get(entityType);
+            if (initialSet != null) {
+                initial[e] = mask(initialSet);
+            }
+        }
+        return new TransitionTable(targets, initial, views);
+    }
+
+    /**
+     * Returns {@code true} if {@code from → to} is allowed for the entity.
+     * A {@code null} from-status checks the entity's initial statuses.
+     */
+    boolean allows(EntityType entityType, Status from, Status to) {
+        long bits = from == null
+                ? initial[entityType.ordinal()]
+                : targets[entityType.ordinal()][from.ordinal()];
+        return (bits & (1L << to.ordinal())) != 0;
+    }
+
+    /** Bitmask of targets allowed from {@code from}; {@code null} means initial statuses. */
+    long targetMask(EntityType entityType, Status from) {
+        return from == null
+                ? initial[entityType.ordinal()]
+                : targets[entityType.ordinal()][from.ordinal()];
+    }
+
+    /** Shared unmodifiable set of targets allowed from {@code from}. */
+    Set<Status> targets(EntityType entityType, Status from) {
+        return views[entityType.ordinal()][from.ordinal()];
+    }
+
+    /** Bitmask of statuses reachable in one or more steps; {@code null} means no status yet. */
+    long reachableMask(EntityType entityType, Status from) {
+        return reachable[entityType.ordinal()][from == null ? STATUS_COUNT : from.ordinal()];
+    }
+
+    /**
+     * Statuses visited on a shortest path from {@code from} to {@code to},
+     * excluding {@code from} and ending with {@code to}; {@code null} if
+     * {@code to} is not reachable.
+     */
+    List<Status> shortestPath(EntityType entityType, Status from, Status to) {
+        int e = entityType.ordinal();
+        int start = from == null ? STATUS_COUNT : from.ordinal();
+        if ((reachable[e][start] & (1L << to.ordinal())) == 0) {
+            return null;
+        }
+        Status[] statuses = Status.values();
+        List<Status> path = new ArrayList<>();
+        int current = start;
+        while (current != to.ordinal()) {
+            current = nextHop[e][current][to.ordinal()];
+            path.add(statuses[current]);
+        }
+        return Collections.unmodifiableList(path);
+    }
+
+    /** Breadth-first search filling {@code reachable[e][from]} and {@code nextHop[e][from]}. */
+    private void search(int e, int from) {
+        byte[] hops = nextHop[e][from];
+        Arrays.fill(hops, (byte) -1);
+        long first = from == STATUS_COUNT ? initial[e] : targets[e][from];
+        long seen = first;
+        int[] queue = new int[STATUS_COUNT];
+        int head = 0;
+        int tail = 0;
+        for (long bits = first; bits != 0; bits &= bits - 1) {
+            int to = Long.numberOfTrailingZeros(bits);
+            hops[to] = (byte) to;
+            queue[tail++] = to;
+        }
+        while (head < tail) {
+            int status = queue[head++];
+            for (long bits = targets[e][status] & ~seen; bits != 0; bits &= bits - 1) {
+                int to = Long.numberOfTrailingZeros(bits);
+                hops[to] = hops[status];
+                seen |= 1L << to;
+                queue[tail++] = to;
+            }
+        }
+        reachable[e][from] = seen;
+    }
+
+    private static long mask(Set<Status> statuses) {
+        long bits = 0;
+        for (Status status : statuses) {
+            bits |= 1L << status.ordinal();
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,27 @@
+package com.fiscaladmin.gam.framework.status;
+
+/**
+ * Unchecked exception thrown when a {@link TransitionLimiter} rejects a
+ * transition because a rate or in-flight limit was exceeded. Nothing has been
+ * written; the caller may retry later.
+ */
+public class TransitionThrottledException extends RuntimeException {
+
+    private final EntityType entityType;
+    private final String recordId;
+
+    public TransitionThrottledException(EntityType entityType, String recordId, String message) {
+        super(message);
+        this.entityType = entityType;
+        this.recordId = recordId;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    /** {@code null} for a rejected batch. */
+    public String getRecordId() {
+        return recordId;
+    }
+}
@@ -0,0 +1,27 @@
+package com.fiscaladmin.gam.framework.status;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Default executor for {@link StatusManager#transitionAsync}, Java 21+
+ * version: one virtual thread per task, so a fan-out to hundreds of records
+ * needs no platform threads while the transitions wait on the database.
+ */
+final class AsyncExecutors {
+
+    static final String THREAD_NAME_PREFIX = "gam-status-async-";
+
+    private AsyncExecutors() {
+    }
+
+    /** Shared by all managers, created on first use. */
+    static Executor defaultExecutor() {
+        return Holder.EXECUTOR;
+    }
+
+    private static final class Holder {
+        static final Executor EXECUTOR = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name(THREAD_NAME_PREFIX, 0).factory());
+    }
+}
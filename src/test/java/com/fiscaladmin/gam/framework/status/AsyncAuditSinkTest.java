@@ -0,0 +1,206 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.apps.form.dao.FormDataDao;
+import org.joget.apps.form.model.FormRowSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for {@link AsyncAuditSink} — batching, flush, backpressure and close.
+ */
+public class AsyncAuditSinkTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private FormDataDao writerDao;
+
+    @Mock
+    private FormDataDao callerDao;
+
+    private AsyncAuditSink sink;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @After
+    public void tearDown() {
+        if (sink != null) {
+            sink.close();
+        }
+    }
+
+    private static List<TransitionAuditEntry> entries(int count) {
+        List<TransitionAuditEntry> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            list.add(new TransitionAuditEntry("BANK_TRX", "BT" + i,
+                    "new", "processing", "test", "batch"));
+        }
+        return list;
+    }
+
+    @Test
+    public void entriesAreWrittenInBatchesThroughWriterDao() throws Exception {
+        sink = new AsyncAuditSink(writerDao, 100, 4, 50, 100);
+        sink.write(callerDao, entries(10));
+
+        assertTrue(sink.flush(5_000));
+        assertEquals(0, sink.getPendingCount());
+
+        ArgumentCaptor<FormRowSet> captor = ArgumentCaptor.forClass(FormRowSet.class);
+        verify(writerDao, atLeast(3)).saveOrUpdate(eq("audit_log"), eq("audit_log"), captor.capture());
+        int total = 0;
+        for (FormRowSet rowSet : captor.getAllValues()) {
+            assertTrue(rowSet.size() <= 4);
+            total += rowSet.size();
+        }
+        assertEquals(10, total);
+        verifyNoInteractions(callerDao);
+    }
+
+    @Test
+    public void fullQueue_fallsBackToCallerThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(writerDao).saveOrUpdate(anyString(), anyString(), any(FormRowSet.class));
+
+        sink = new AsyncAuditSink(writerDao, 1, 1, 10, 10);
+        sink.write(callerDao, entries(1));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // Writer is blocked: one entry fills the queue, the next overflows
+        sink.write(callerDao, entries(2));
+        verify(callerDao, times(1)).saveOrUpdate(eq("audit_log"), eq("audit_log"), any(FormRowSet.class));
+
+        release.countDown();
+        assertTrue(sink.flush(5_000));
+    }
+
+    @Test
+    public void failedBatchIsRetried() throws Exception {
+        doThrow(new RuntimeException("db down"))
+                .doNothing()
+                .when(writerDao).saveOrUpdate(anyString(), anyString(), any(FormRowSet.class));
+
+        sink = new AsyncAuditSink(writerDao, 10, 10, 10, 10);
+        sink.write(callerDao, entries(3));
+
+        assertTrue(sink.flush(5_000));
+        verify(writerDao, times(2)).saveOrUpdate(anyString(), anyString(), any(FormRowSet.class));
+    }
+
+    @Test
+    public void close_flushesQueuedEntries() {
+        sink = new AsyncAuditSink(writerDao, 100, 100, 10_000, 10);
+        sink.write(callerDao, entries(5));
+        sink.close();
+
+        assertEquals(0, sink.getPendingCount());
+        ArgumentCaptor<FormRowSet> captor = ArgumentCaptor.forClass(FormRowSet.class);
+        verify(writerDao, atLeastOnce()).saveOrUpdate(anyString(), anyString(), captor.capture());
+        int total = 0;
+        for (FormRowSet rowSet : captor.getAllValues()) {
+            total += rowSet.size();
+        }
+        assertEquals(5, total);
+    }
+
+    @Test
+    public void writeAfterClose_isSynchronous() {
+        sink = new AsyncAuditSink(writerDao);
+        sink.close();
+
+        sink.write(callerDao, Collections.singletonList(entries(1).get(0)));
+        verify(callerDao).saveOrUpdate(eq("audit_log"), eq("audit_log"), any(FormRowSet.class));
+    }
+
+    @Test
+    public void journaledEntries_areCommittedOnceWritten() throws Exception {
+        AuditJournal journal = new AuditJournal(folder.getRoot().toPath());
+        sink = new AsyncAuditSink(writerDao, journal, 100, 10, 10, 10);
+        sink.write(callerDao, entries(3));
+
+        assertTrue(sink.flush(5_000));
+        assertTrue(journal.pending().isEmpty());
+    }
+
+    @Test
+    public void uncommittedJournalEntries_areReplayedOnStart() throws Exception {
+        try (AuditJournal journal = new AuditJournal(folder.getRoot().toPath())) {
+            journal.append(entries(2));
+        }
+
+        AuditJournal reopened = new AuditJournal(folder.getRoot().toPath());
+        sink = new AsyncAuditSink(writerDao, reopened, 100, 10, 10, 10);
+        assertTrue(sink.flush(5_000));
+
+        ArgumentCaptor<FormRowSet> captor = ArgumentCaptor.forClass(FormRowSet.class);
+        verify(writerDao).saveOrUpdate(eq("audit_log"), eq("audit_log"), captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertTrue(reopened.pending().isEmpty());
+    }
+
+    @Test
+    public void writesRacingClose_areAllWritten() throws Exception {
+        AtomicInteger rows = new AtomicInteger();
+        Answer<Void> count = invocation -> {
+            rows.addAndGet(invocation.<FormRowSet>getArgument(2).size());
+            return null;
+        };
+        doAnswer(count).when(writerDao).saveOrUpdate(anyString(), anyString(), any(FormRowSet.class));
+        doAnswer(count).when(callerDao).saveOrUpdate(anyString(), anyString(), any(FormRowSet.class));
+        sink = new AsyncAuditSink(writerDao, 1_000, 50, 5, 10);
+
+        AtomicInteger written = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            writers.add(new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < 200; i++) {
+                    sink.write(callerDao, entries(1));
+                    written.incrementAndGet();
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        started.await();
+        sink.close();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertEquals(written.get(), rows.get());
+        assertEquals(0, sink.getPendingCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBatchSize_throws() {
+        new AsyncAuditSink(writerDao, 10, 0, 10, 10);
+    }
+}
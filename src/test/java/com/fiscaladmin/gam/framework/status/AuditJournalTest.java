@@ -0,0 +1,174 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link AuditJournal} — append/commit, replay, torn tails and segment cleanup.
+ */
+public class AuditJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static TransitionAuditEntry entry(String entityId) {
+        return new TransitionAuditEntry("BANK_TRX", entityId, "new", "processing",
+                "rows-enrichment", "Enrichment started");
+    }
+
+    @Test
+    public void uncommittedEntries_areReplayedAfterReopen() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        TransitionAuditEntry first = entry("BT001");
+        TransitionAuditEntry second = entry("BT002");
+
+        try (AuditJournal journal = new AuditJournal(dir)) {
+            journal.append(Arrays.asList(first, second));
+            journal.commit(Collections.singletonList(first.getId()));
+        }
+
+        try (AuditJournal reopened = new AuditJournal(dir)) {
+            List<TransitionAuditEntry> pending = reopened.pending();
+            assertEquals(1, pending.size());
+            TransitionAuditEntry replayed = pending.get(0);
+            assertEquals(second.getId(), replayed.getId());
+            assertEquals("BT002", replayed.getEntityId());
+            assertEquals("new", replayed.getFromStatus());
+            assertEquals("processing", replayed.getToStatus());
+            assertEquals("rows-enrichment", replayed.getTriggeredBy());
+            assertEquals("Enrichment started", replayed.getReason());
+            assertEquals(second.getTimestamp(), replayed.getTimestamp());
+        }
+    }
+
+    @Test
+    public void nullFields_roundTrip() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        TransitionAuditEntry withNulls = new TransitionAuditEntry("PAIR", "P001",
+                "null", "confirmed", null, null);
+        try (AuditJournal journal = new AuditJournal(dir)) {
+            journal.append(Collections.singletonList(withNulls));
+        }
+        try (AuditJournal reopened = new AuditJournal(dir)) {
+            TransitionAuditEntry replayed = reopened.pending().get(0);
+            assertNull(replayed.getTriggeredBy());
+            assertNull(replayed.getReason());
+        }
+    }
+
+    @Test
+    public void tornTail_isTruncatedAndEarlierEntriesSurvive() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        try (AuditJournal journal = new AuditJournal(dir)) {
+            journal.append(Collections.singletonList(entry("BT001")));
+        }
+        Path segment = segments(dir).get(segments(dir).size() - 1);
+        long intactSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 42, 1, 7, 7}));
+        }
+
+        try (AuditJournal reopened = new AuditJournal(dir)) {
+            assertEquals(1, reopened.pending().size());
+            assertEquals(intactSize, Files.size(segment));
+        }
+    }
+
+    @Test
+    public void committedSegments_areDeleted() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        try (AuditJournal journal = new AuditJournal(dir, 256, false)) {
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                TransitionAuditEntry e = entry("BT" + i);
+                journal.append(Collections.singletonList(e));
+                ids.add(e.getId());
+            }
+            assertTrue(journal.getSegmentCount() > 2);
+
+            journal.commit(ids);
+            assertEquals(1, journal.getSegmentCount());
+            assertTrue(journal.pending().isEmpty());
+        }
+        try (AuditJournal reopened = new AuditJournal(dir, 256, false)) {
+            assertTrue(reopened.pending().isEmpty());
+        }
+    }
+
+    @Test
+    public void segmentWithPendingEntry_isKept() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        try (AuditJournal journal = new AuditJournal(dir, 256, false)) {
+            TransitionAuditEntry oldest = entry("BT-old");
+            journal.append(Collections.singletonList(oldest));
+            List<String> later = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                TransitionAuditEntry e = entry("BT" + i);
+                journal.append(Collections.singletonList(e));
+                later.add(e.getId());
+            }
+            journal.commit(later);
+            assertTrue(journal.getSegmentCount() > 1);
+        }
+        try (AuditJournal reopened = new AuditJournal(dir, 256, false)) {
+            assertEquals(1, reopened.pending().size());
+            assertEquals("BT-old", reopened.pending().get(0).getEntityId());
+        }
+    }
+
+    @Test
+    public void concurrentAppends_allSurviveReopen() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        int threads = 8;
+        int perThread = 50;
+        try (AuditJournal journal = new AuditJournal(dir, 4 * 1024, true)) {
+            List<Thread> appenders = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                appenders.add(new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        journal.append(Collections.singletonList(entry("BT" + thread + "-" + i)));
+                    }
+                }));
+            }
+            appenders.forEach(Thread::start);
+            for (Thread appender : appenders) {
+                appender.join();
+            }
+        }
+
+        try (AuditJournal reopened = new AuditJournal(dir)) {
+            assertEquals(threads * perThread, reopened.pending().size());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void appendAfterClose_throws() throws Exception {
+        AuditJournal journal = new AuditJournal(folder.getRoot().toPath());
+        journal.close();
+        journal.append(Collections.singletonList(entry("BT001")));
+    }
+
+    private static List<Path> segments(Path dir) throws Exception {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.wal")) {
+            stream.forEach(paths::add);
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+}
@@ -0,0 +1,74 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BackgroundTaskTest {
+
+    @Test
+    public void start_onlyOnceUntilClosed() {
+        BackgroundTask task = new BackgroundTask(getClass().getName(), "test-task");
+
+        assertTrue(task.start());
+        assertFalse(task.start());
+        task.close();
+        assertFalse(task.isStarted());
+        assertTrue(task.start());
+        task.close();
+    }
+
+    @Test
+    public void schedule_failingJobKeepsRunning() throws Exception {
+        BackgroundTask task = new BackgroundTask(getClass().getName(), "test-task");
+        CountDownLatch runs = new CountDownLatch(3);
+        task.start();
+
+        task.schedule(() -> {
+            runs.countDown();
+            throw new IllegalStateException("boom");
+        }, 0, 1, "Test job failed");
+
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+        task.close();
+    }
+
+    @Test
+    public void close_waitsForRunningJob() throws Exception {
+        BackgroundTask task = new BackgroundTask(getClass().getName(), "test-task");
+        CountDownLatch running = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        task.start();
+        task.schedule(() -> {
+            running.countDown();
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+            finished.set(true);
+        }, 0, 60_000, "Test job failed");
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        task.close();
+
+        assertTrue(finished.get());
+    }
+
+    @Test
+    public void schedule_afterClose_ignored() throws Exception {
+        BackgroundTask task = new BackgroundTask(getClass().getName(), "test-task");
+        AtomicInteger runs = new AtomicInteger();
+        task.start();
+        task.close();
+
+        task.schedule(runs::incrementAndGet, 0, 1, "Test job failed");
+        Thread.sleep(20);
+
+        assertEquals(0, runs.get());
+    }
+}
@@ -0,0 +1,126 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class GroupCommitterTest {
+
+    private static GroupCommitter.Request request(String id) {
+        return new GroupCommitter.Request(null, EntityType.BANK_TRX, id, Status.PROCESSING,
+                "test", "Group commit");
+    }
+
+    @Test
+    public void submit_loneCaller_writtenWithoutWaiting() {
+        GroupCommitter committer = new GroupCommitter(64, TimeUnit.SECONDS.toMicros(1));
+        List<Integer> batchSizes = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            committer.submit(request("BT" + i), batch -> batchSizes.add(batch.size()));
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(Collections.nCopies(5, 1), batchSizes);
+        assertTrue("Sequential callers must not wait for a batch, took " + elapsedMillis + "ms",
+                elapsedMillis < 500);
+    }
+
+    @Test
+    public void submit_concurrentCallers_shareBatches() throws Exception {
+        GroupCommitter committer = new GroupCommitter(16, 20_000);
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        GroupCommitter.Writer slowWriter = batch -> {
+            for (GroupCommitter.Request r : batch) {
+                written.add(r.recordId);
+            }
+            sleep(20);
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            String id = "BT" + i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                committer.submit(request(id), slowWriter);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(64, written.size());
+        assertTrue("Expected batches of more than one, got " + committer.getAverageBatchSize(),
+                committer.getAverageBatchSize() > 1.5);
+        assertTrue(committer.getBatchCount() < 64);
+    }
+
+    @Test
+    public void submit_writerThrows_failsEveryRequestInBatch() {
+        GroupCommitter committer = new GroupCommitter();
+        GroupCommitter.Request request = request("BT001");
+        RuntimeException failure = new RuntimeException("DB down");
+
+        committer.submit(request, batch -> {
+            throw failure;
+        });
+
+        assertSame(failure, request.getError());
+    }
+
+    @Test
+    public void submit_writerThrowsError_leavesNoActiveCaller() {
+        GroupCommitter committer = new GroupCommitter();
+        GroupCommitter.Request request = request("BT001");
+
+        try {
+            committer.submit(request, batch -> {
+                throw new AssertionError("boom");
+            });
+            fail("Error must propagate");
+        } catch (AssertionError expected) {
+            assertEquals("boom", expected.getMessage());
+        }
+
+        assertEquals(0, committer.activeCount());
+        assertTrue(request.getError() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void submit_writerReportsPerRequestFailure() {
+        GroupCommitter committer = new GroupCommitter();
+        GroupCommitter.Request request = request("BT001");
+
+        committer.submit(request, batch -> batch.get(0).fail(new IllegalStateException("Record not found")));
+
+        assertTrue(request.getError() instanceof IllegalStateException);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_invalidBatchSize_rejected() {
+        new GroupCommitter(0, 1_000);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
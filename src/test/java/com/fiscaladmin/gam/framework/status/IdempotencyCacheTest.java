@@ -0,0 +1,153 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class IdempotencyCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private IdempotencyCache.Action posted(Status from) {
+        return () -> {
+            runs.incrementAndGet();
+            return TransitionResult.ok(EntityType.POSTING_OPERATION, "PO001", from, Status.POSTED);
+        };
+    }
+
+    @Test
+    public void execute_repeatWithinWindow_replays() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(1_000, 100, now::get);
+
+        TransitionResult first = cache.execute(EntityType.POSTING_OPERATION, "PO001", "k", Status.POSTED, posted(Status.POSTING));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        TransitionResult second = cache.execute(EntityType.POSTING_OPERATION, "PO001", "k", Status.POSTED, posted(Status.POSTING));
+
+        assertSame(first, second);
+        assertEquals(1, runs.get());
+        assertEquals(1, cache.getReplayCount());
+    }
+
+    @Test
+    public void execute_afterWindow_runsAgain() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(1_000, 100, now::get);
+
+        cache.execute(EntityType.POSTING_OPERATION, "PO001", "k", Status.POSTED, posted(Status.POSTING));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_000));
+        cache.execute(EntityType.POSTING_OPERATION, "PO001", "k", Status.POSTED, posted(Status.POSTED));
+
+        assertEquals(2, runs.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void execute_beyondMaxEntries_evictsOldest() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(1_000, 2, now::get);
+
+        cache.execute(EntityType.POSTING_OPERATION, "PO001", "a", Status.POSTED, posted(Status.POSTING));
+        cache.execute(EntityType.POSTING_OPERATION, "PO001", "b", Status.POSTED, posted(Status.POSTING));
+        cache.execute(EntityType.POSTING_OPERATION, "PO001", "c", Status.POSTED, posted(Status.POSTING));
+        cache.execute(EntityType.POSTING_OPERATION, "PO001", "a", Status.POSTED, posted(Status.POSTING));
+
+        assertEquals(4, runs.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void execute_keyReusedForOtherTarget_rejected() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(1_000, 100, now::get);
+
+        cache.execute(EntityType.POSTING_OPERATION, "PO001", "k", Status.POSTED, posted(Status.POSTING));
+        cache.execute(EntityType.POSTING_OPERATION, "PO001", "k", Status.ERROR, posted(Status.POSTING));
+    }
+
+    @Test
+    public void execute_beyondMaxEntries_keepsRunningRequests() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(1_000, 1, now::get);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<TransitionResult> leader = executor.submit(() ->
+                    cache.execute(EntityType.POSTING_OPERATION, "PO001", "a", Status.POSTED, () -> {
+                        running.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        return posted(Status.POSTING).run();
+                    }));
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+
+            cache.execute(EntityType.POSTING_OPERATION, "PO001", "b", Status.POSTED, posted(Status.POSTING));
+            Future<TransitionResult> duplicate = executor.submit(() ->
+                    cache.execute(EntityType.POSTING_OPERATION, "PO001", "a", Status.POSTED, posted(Status.POSTING)));
+            release.countDown();
+
+            assertSame(leader.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+            assertEquals(2, runs.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void execute_storeFailure_isNotRemembered() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(1_000, 100, now::get);
+
+        try {
+            cache.execute(EntityType.POSTING_OPERATION, "PO001", "k", Status.POSTED, () -> {
+                throw new StatusStoreException("Connection refused", null);
+            });
+            fail("Expected StatusStoreException");
+        } catch (StatusStoreException expected) {
+            // retried below
+        }
+        cache.execute(EntityType.POSTING_OPERATION, "PO001", "k", Status.POSTED, posted(Status.POSTING));
+
+        assertEquals(1, runs.get());
+        assertEquals(0, cache.getReplayCount());
+    }
+
+    @Test
+    public void execute_concurrentDuplicates_runOnce() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<TransitionResult> leader = executor.submit(() ->
+                    cache.execute(EntityType.POSTING_OPERATION, "PO001", "k", Status.POSTED, () -> {
+                        running.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        return posted(Status.POSTING).run();
+                    }));
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            Future<TransitionResult> duplicate = executor.submit(() ->
+                    cache.execute(EntityType.POSTING_OPERATION, "PO001", "k", Status.POSTED, posted(Status.POSTING)));
+            while (cache.getReplayCount() == 0) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertSame(leader.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+            assertEquals(1, runs.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class InListsTest {
+
+    @Test
+    public void chunks_splitAtChunkSize() {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < InLists.CHUNK_SIZE * 2 + 1; i++) {
+            values.add(i);
+        }
+
+        List<List<Integer>> chunks = InLists.chunks(values);
+
+        assertEquals(3, chunks.size());
+        assertEquals(InLists.CHUNK_SIZE, chunks.get(1).size());
+        assertEquals(Collections.singletonList(InLists.CHUNK_SIZE * 2), chunks.get(2));
+        assertTrue(InLists.chunks(Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void appendIn_onePlaceholderPerValue() {
+        assertEquals("WHERE id IN (?, ?, ?)", InLists.appendIn(new StringBuilder("WHERE id"), 3).toString());
+    }
+}
@@ -0,0 +1,131 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * In-memory H2 database (MySQL mode) laid out like Joget's {@code app_fd_*}
+ * form tables, for tests of the direct-JDBC status operations.
+ */
+final class JdbcTestSupport {
+
+    private JdbcTestSupport() {
+    }
+
+    /** Creates a fresh, isolated database with all entity tables and the audit table. */
+    static DataSource newDatabase() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        for (EntityType type : EntityType.values()) {
+            execute(dataSource, "CREATE TABLE " + JdbcStatusStore.physicalTable(type)
+                    + " (id VARCHAR(255) PRIMARY KEY, dateCreated TIMESTAMP, dateModified TIMESTAMP,"
+                    + " c_status VARCHAR(255), c_statement_id VARCHAR(255), c_amount VARCHAR(255))");
+        }
+        execute(dataSource, "CREATE TABLE app_fd_audit_log (id VARCHAR(255) PRIMARY KEY,"
+                + " dateCreated TIMESTAMP, dateModified TIMESTAMP,"
+                + " c_entity_type VARCHAR(255), c_entity_id VARCHAR(255),"
+                + " c_from_status VARCHAR(255), c_to_status VARCHAR(255),"
+                + " c_triggered_by VARCHAR(255), c_reason VARCHAR(255), c_timestamp VARCHAR(255))");
+        return dataSource;
+    }
+
+    static void insert(DataSource dataSource, EntityType type, String id, String status)
+            throws SQLException {
+        insert(dataSource, type, id, status, null);
+    }
+
+    static void insert(DataSource dataSource, EntityType type, String id, String status,
+                       String statementId) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO "
+                     + JdbcStatusStore.physicalTable(type)
+                     + " (id, c_status, c_statement_id, c_amount) VALUES (?, ?, ?, '100.00')")) {
+            statement.setString(1, id);
+            statement.setString(2, status);
+            statement.setString(3, statementId);
+            statement.executeUpdate();
+        }
+    }
+
+    static String statusOf(DataSource dataSource, EntityType type, String id) throws SQLException {
+        return queryString(dataSource, "SELECT c_status FROM "
+                + JdbcStatusStore.physicalTable(type) + " WHERE id = '" + id + "'");
+    }
+
+    static String amountOf(DataSource dataSource, EntityType type, String id) throws SQLException {
+        return queryString(dataSource, "SELECT c_amount FROM "
+                + JdbcStatusStore.physicalTable(type) + " WHERE id = '" + id + "'");
+    }
+
+    static int count(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    static void execute(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    /**
+     * Wraps {@code dataSource} so that {@code executeBatch} of every
+     * {@code UPDATE} reports {@link Statement#SUCCESS_NO_INFO} for each row,
+     * as MySQL's {@code rewriteBatchedStatements} does.
+     */
+    static DataSource withoutBatchUpdateCounts(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (method, args, result) ->
+                method.getName().equals("getConnection")
+                        ? proxy(Connection.class, result, (connectionMethod, connectionArgs, statement) ->
+                                connectionMethod.getName().equals("prepareStatement")
+                                        && ((String) connectionArgs[0]).startsWith("UPDATE ")
+                                        ? proxy(PreparedStatement.class, statement, (statementMethod, a, counts) -> {
+                                            if (statementMethod.getName().equals("executeBatch")) {
+                                                Arrays.fill((int[]) counts, Statement.SUCCESS_NO_INFO);
+                                            }
+                                            return counts;
+                                        })
+                                        : statement)
+                        : result);
+    }
+
+    private interface ResultMapper {
+        Object map(Method method, Object[] args, Object result);
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, ResultMapper mapper) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    try {
+                        return mapper.map(method, args, method.invoke(target, args));
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }));
+    }
+
+    private static String queryString(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketOf_boundsEveryValueWithinOneSixteenth() {
+        for (long value : new long[]{0, 15, 16, 17, 31, 32, 1_000, 123_456, 987_654_321L,
+                LatencyHistogram.MAX_TRACKABLE_NANOS}) {
+            long highest = LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(value));
+            assertTrue(value + " <= " + highest, value <= highest);
+            assertTrue(value + " within 1/16 of " + highest, highest - value <= value / 16);
+        }
+    }
+
+    @Test
+    public void snapshot_percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(100, snapshot.getCount());
+        assertEquals(50_500, snapshot.getMean(), 0.001);
+        assertEquals(100_000, snapshot.getMax());
+        assertEquals(50_000, snapshot.getP50(), 50_000 / 16);
+        assertEquals(99_000, snapshot.getP99(), 99_000 / 16);
+        assertEquals(100_000, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void record_clampsOutOfRangeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getValueAtPercentile(50));
+        assertEquals(LatencyHistogram.MAX_TRACKABLE_NANOS, snapshot.getMax());
+    }
+
+    @Test
+    public void snapshot_empty() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getP99());
+        assertEquals(0, snapshot.getMean(), 0);
+    }
+}
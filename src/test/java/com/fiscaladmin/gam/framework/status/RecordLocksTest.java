@@ -0,0 +1,101 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RecordLocksTest {
+
+    @Test
+    public void constructor_roundsStripesToPowerOfTwo() {
+        assertEquals(256, new RecordLocks().getStripeCount());
+        assertEquals(64, new RecordLocks(33, 0).getStripeCount());
+        assertEquals(1, new RecordLocks(1, 0).getStripeCount());
+    }
+
+    @Test
+    public void lock_sameRecordHeldElsewhere_timesOut() throws Exception {
+        RecordLocks locks = new RecordLocks(16, 50);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (RecordLocks.Held held = locks.lock(EntityType.ENRICHMENT, "E001")) {
+            Future<?> other = executor.submit(() -> locks.lock(EntityType.ENRICHMENT, "E001").close());
+            try {
+                other.get(5, TimeUnit.SECONDS);
+                fail("Expected RecordLockTimeoutException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RecordLockTimeoutException);
+                assertEquals("E001", ((RecordLockTimeoutException) e.getCause()).getRecordId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void lock_isReentrantAndReleasedOnClose() throws Exception {
+        RecordLocks locks = new RecordLocks(16, 50);
+        try (RecordLocks.Held outer = locks.lock(EntityType.ENRICHMENT, "E001");
+             RecordLocks.Held inner = locks.lock(EntityType.ENRICHMENT, "E001")) {
+            assertNotNull(inner);
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> locks.lock(EntityType.ENRICHMENT, "E001").close()).get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void lock_differentStripes_doNotContend() throws Exception {
+        RecordLocks locks = new RecordLocks(1024, 50);
+        String other = "E002";
+        for (int i = 3; locks.stripe(EntityType.ENRICHMENT, other)
+                == locks.stripe(EntityType.ENRICHMENT, "E001"); i++) {
+            other = "E00" + i;
+        }
+        String id = other;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (RecordLocks.Held held = locks.lock(EntityType.ENRICHMENT, "E001")) {
+            executor.submit(() -> locks.lock(EntityType.ENRICHMENT, id).close()).get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void lockAll_overlappingBatches_doNotDeadlock() throws Exception {
+        RecordLocks locks = new RecordLocks(8, 0);
+        List<String> forward = Arrays.asList("A", "B", "C", "D", "E", "F", "G", "H");
+        List<String> backward = Arrays.asList("H", "G", "F", "E", "D", "C", "B", "A");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> lockRepeatedly(locks, forward));
+            Future<?> second = executor.submit(() -> lockRepeatedly(locks, backward));
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void lockRepeatedly(RecordLocks locks, List<String> ids) {
+        Map<EntityType, List<String>> batch = new EnumMap<>(EntityType.class);
+        batch.put(EntityType.BANK_TRX, ids);
+        batch.put(EntityType.SECU_TRX, Collections.singletonList(ids.get(0)));
+        for (int i = 0; i < 10_000; i++) {
+            locks.lockAll(batch).close();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class StatusCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void get_afterPut_hits() {
+        StatusCache cache = new StatusCache(100, 1_000, now::get);
+        cache.put(EntityType.BANK_TRX, "BT001", Status.NEW);
+
+        assertEquals(Status.NEW, cache.get(EntityType.BANK_TRX, "BT001"));
+        assertNull(cache.get(EntityType.BANK_TRX, "BT002"));
+        assertNull("Entity types are separate", cache.get(EntityType.SECU_TRX, "BT001"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void put_nullStatus_invalidates() {
+        StatusCache cache = new StatusCache(100, 1_000, now::get);
+        cache.put(EntityType.BANK_TRX, "BT001", Status.NEW);
+        cache.put(EntityType.BANK_TRX, "BT001", null);
+
+        assertNull(cache.get(EntityType.BANK_TRX, "BT001"));
+        assertEquals(0, cache.size(EntityType.BANK_TRX));
+    }
+
+    @Test
+    public void get_afterTtl_expires() {
+        StatusCache cache = new StatusCache(100, 1_000, now::get);
+        cache.put(EntityType.BANK_TRX, "BT001", Status.NEW);
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertEquals(Status.NEW, cache.get(EntityType.BANK_TRX, "BT001"));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(2));
+        assertNull(cache.get(EntityType.BANK_TRX, "BT001"));
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(0, cache.size(EntityType.BANK_TRX));
+    }
+
+    @Test
+    public void put_overLimit_evictsLeastRecentlyUsed() {
+        // 16 entries per entity → one entry per stripe
+        StatusCache cache = new StatusCache(16, 1_000, now::get);
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(EntityType.BANK_TRX, "BT" + i, Status.NEW);
+        }
+
+        assertTrue(cache.size(EntityType.BANK_TRX) <= 16);
+        assertEquals(1_000 - cache.size(EntityType.BANK_TRX), cache.getEvictionCount());
+        assertEquals("Most recent entry is kept", Status.NEW, cache.get(EntityType.BANK_TRX, "BT999"));
+    }
+
+    @Test
+    public void setMaxEntries_limitsOneEntityOnly() {
+        StatusCache cache = new StatusCache(1_600, 1_000, now::get);
+        cache.setMaxEntries(EntityType.STATEMENT, 16);
+        for (int i = 0; i < 500; i++) {
+            cache.put(EntityType.STATEMENT, "S" + i, Status.NEW);
+            cache.put(EntityType.BANK_TRX, "BT" + i, Status.NEW);
+        }
+
+        assertTrue(cache.size(EntityType.STATEMENT) <= 16);
+        assertEquals(500, cache.size(EntityType.BANK_TRX));
+    }
+
+    @Test
+    public void invalidateAll_clearsEveryEntity() {
+        StatusCache cache = new StatusCache(100, 1_000, now::get);
+        cache.put(EntityType.BANK_TRX, "BT001", Status.NEW);
+        cache.put(EntityType.PAIR, "P001", Status.CONFIRMED);
+
+        cache.invalidateAll();
+
+        assertEquals(0, cache.size(EntityType.BANK_TRX));
+        assertEquals(0, cache.size(EntityType.PAIR));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_nonPositiveSize_rejected() {
+        new StatusCache(0, 1_000);
+    }
+}
@@ -0,0 +1,65 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class StatusIndexTest {
+
+    @Test
+    public void get_afterPut_returnsStatus() {
+        StatusIndex index = new StatusIndex();
+        index.put(EntityType.BANK_TRX, "BT001", Status.NEW);
+        index.put(EntityType.BANK_TRX, "BT001", Status.PROCESSING);
+
+        assertEquals(Status.PROCESSING, index.get(EntityType.BANK_TRX, "BT001"));
+        assertNull(index.get(EntityType.BANK_TRX, "BT002"));
+        assertNull("Entity types are separate", index.get(EntityType.SECU_TRX, "BT001"));
+        assertEquals(1, index.size(EntityType.BANK_TRX));
+    }
+
+    @Test
+    public void put_terminalStatus_removesRecord() {
+        StatusIndex index = new StatusIndex();
+        index.put(EntityType.BANK_TRX, "BT001", Status.POSTING_READY);
+        index.put(EntityType.BANK_TRX, "BT001", Status.POSTED);
+
+        assertNull(index.get(EntityType.BANK_TRX, "BT001"));
+        assertEquals(0, index.size(EntityType.BANK_TRX));
+    }
+
+    @Test
+    public void manyRecords_surviveResizeAndRemoval() {
+        StatusIndex index = new StatusIndex();
+        String[] ids = new String[50_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID().toString();
+            index.put(EntityType.BANK_TRX, ids[i], i % 2 == 0 ? Status.NEW : Status.ENRICHED);
+        }
+        for (int i = 0; i < ids.length; i += 3) {
+            index.remove(EntityType.BANK_TRX, ids[i]);
+        }
+
+        for (int i = 0; i < ids.length; i++) {
+            Status expected = i % 3 == 0 ? null : i % 2 == 0 ? Status.NEW : Status.ENRICHED;
+            assertEquals(ids[i], expected, index.get(EntityType.BANK_TRX, ids[i]));
+        }
+        assertEquals(ids.length - (ids.length + 2) / 3, index.size(EntityType.BANK_TRX));
+    }
+
+    @Test
+    public void removeAll_dropsOnlyThatStatus() {
+        StatusIndex index = new StatusIndex();
+        for (int i = 0; i < 1_000; i++) {
+            index.put(EntityType.BANK_TRX, "BT" + i, i % 4 == 0 ? Status.ERROR : Status.NEW);
+        }
+
+        index.removeAll(EntityType.BANK_TRX, Status.NEW);
+
+        assertEquals(250, index.size(EntityType.BANK_TRX));
+        assertEquals(Status.ERROR, index.get(EntityType.BANK_TRX, "BT0"));
+        assertNull(index.get(EntityType.BANK_TRX, "BT1"));
+    }
+}
@@ -0,0 +1,1115 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.joget.apps.form.dao.FormDataDao;
+import org.joget.apps.form.model.FormRow;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.fiscaladmin.gam.framework.status.JdbcTestSupport.*;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the {@link StatusManager} operations that go straight to the
+ * {@code app_fd_*} tables over JDBC. Runs against an in-memory H2 database.
+ */
+public class StatusManagerJdbcTest {
+
+    @Mock
+    private FormDataDao mockDao;
+
+    private DataSource dataSource;
+    private StatusManager statusManager;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        dataSource = newDatabase();
+        statusManager = new StatusManager();
+        statusManager.setDataSource(dataSource);
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  1. transitionIfCurrent — compare-and-set
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void transitionIfCurrent_expectedStatus_updatesOnlyStatusColumn() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+
+        TransitionResult result = statusManager.transitionIfCurrent(mockDao, EntityType.BANK_TRX,
+                "BT001", Status.NEW, Status.PROCESSING, "rows-enrichment", "Claimed");
+
+        assertEquals(TransitionResult.Outcome.OK, result.getOutcome());
+        assertEquals("processing", statusOf(dataSource, EntityType.BANK_TRX, "BT001"));
+        assertEquals("100.00", amountOf(dataSource, EntityType.BANK_TRX, "BT001"));
+        assertEquals(1, count(dataSource, "SELECT COUNT(*) FROM "
+                + JdbcStatusStore.physicalTable(EntityType.BANK_TRX) + " WHERE dateModified IS NOT NULL"));
+        assertEquals(1, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"
+                + " WHERE c_entity_id = 'BT001' AND c_from_status = 'new' AND c_to_status = 'processing'"
+                + " AND c_triggered_by = 'rows-enrichment'"));
+        verifyNoInteractions(mockDao);
+    }
+
+    @Test
+    public void transitionIfCurrent_auditInsertFails_rollsBackStatus() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+        execute(dataSource, "DROP TABLE app_fd_audit_log");
+
+        try {
+            statusManager.transitionIfCurrent(mockDao, EntityType.BANK_TRX,
+                    "BT001", Status.NEW, Status.PROCESSING, "rows-enrichment", "Claimed");
+            fail("Expected StatusStoreException");
+        } catch (StatusStoreException expected) {
+            // the status change must not outlive its audit row
+        }
+        assertEquals("new", statusOf(dataSource, EntityType.BANK_TRX, "BT001"));
+    }
+
+    @Test
+    public void transitionIfCurrent_statusChangedMeanwhile_reportsLostRace() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "processing");
+
+        TransitionResult result = statusManager.transitionIfCurrent(mockDao, EntityType.BANK_TRX,
+                "BT001", Status.NEW, Status.PROCESSING, "rows-enrichment", "Claimed");
+
+        assertEquals(TransitionResult.Outcome.LOST_RACE, result.getOutcome());
+        assertEquals(Status.PROCESSING, result.getFromStatus());
+        verifyNoInteractions(mockDao);
+    }
+
+    @Test
+    public void transitionIfCurrent_missingRecord_reportsNotFound() {
+        TransitionResult result = statusManager.transitionIfCurrent(mockDao, EntityType.BANK_TRX,
+                "BT404", Status.NEW, Status.PROCESSING, "rows-enrichment", "Claimed");
+
+        assertEquals(TransitionResult.Outcome.NOT_FOUND, result.getOutcome());
+        verifyNoInteractions(mockDao);
+    }
+
+    @Test
+    public void transitionIfCurrent_invalidEdge_rejectedWithoutDbAccess() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+
+        TransitionResult result = statusManager.transitionIfCurrent(mockDao, EntityType.BANK_TRX,
+                "BT001", Status.NEW, Status.POSTED, "test", "Should fail");
+
+        assertEquals(TransitionResult.Outcome.INVALID, result.getOutcome());
+        assertEquals("new", statusOf(dataSource, EntityType.BANK_TRX, "BT001"));
+    }
+
+    @Test
+    public void transitionIfCurrent_nullExpected_matchesBlankStatus() throws Exception {
+        insert(dataSource, EntityType.EXCEPTION, "EX001", "");
+
+        TransitionResult result = statusManager.transitionIfCurrent(mockDao, EntityType.EXCEPTION,
+                "EX001", null, Status.OPEN, "exception-handler", "Raised");
+
+        assertTrue(result.isSuccess());
+        assertEquals("open", statusOf(dataSource, EntityType.EXCEPTION, "EX001"));
+    }
+
+    @Test
+    public void transitionIfCurrent_secondCallerLoses() throws Exception {
+        insert(dataSource, EntityType.PAIR, "P001", "pending_review");
+
+        TransitionResult first = statusManager.transitionIfCurrent(mockDao, EntityType.PAIR,
+                "P001", Status.PENDING_REVIEW, Status.CONFIRMED, "OPERATOR", "Confirm");
+        TransitionResult second = statusManager.transitionIfCurrent(mockDao, EntityType.PAIR,
+                "P001", Status.PENDING_REVIEW, Status.REJECTED, "OPERATOR", "Reject");
+
+        assertTrue(first.isSuccess());
+        assertEquals(TransitionResult.Outcome.LOST_RACE, second.getOutcome());
+        assertEquals(Status.CONFIRMED, second.getFromStatus());
+        assertEquals("confirmed", statusOf(dataSource, EntityType.PAIR, "P001"));
+        assertEquals(1, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log WHERE c_entity_id = 'P001'"));
+    }
+
+    @Test
+    public void transitionIfCurrent_withMetrics_countsEveryRejection() throws Exception {
+        TransitionMetrics metrics = new TransitionMetrics();
+        statusManager.setTransitionMetrics(metrics);
+        insert(dataSource, EntityType.PAIR, "P001", "confirmed");
+
+        statusManager.transitionIfCurrent(mockDao, EntityType.PAIR, "P001",
+                Status.PENDING_REVIEW, Status.POSTED, "OPERATOR", "Invalid edge");
+        statusManager.transitionIfCurrent(mockDao, EntityType.PAIR, "P404",
+                Status.PENDING_REVIEW, Status.CONFIRMED, "OPERATOR", "Missing");
+        statusManager.transitionIfCurrent(mockDao, EntityType.PAIR, "P001",
+                Status.PENDING_REVIEW, Status.CONFIRMED, "OPERATOR", "Already confirmed");
+
+        assertEquals(1, metrics.getRejectionCount(EntityType.PAIR, TransitionResult.Outcome.INVALID));
+        assertEquals(1, metrics.getRejectionCount(EntityType.PAIR, TransitionResult.Outcome.NOT_FOUND));
+        assertEquals(1, metrics.getRejectionCount(EntityType.PAIR, TransitionResult.Outcome.LOST_RACE));
+    }
+
+    @Test
+    public void transitionIfCurrent_recordLockedByTransition_waitsWithoutWrite() throws Exception {
+        RecordLocks locks = new RecordLocks(16, 20);
+        statusManager.setRecordLocks(locks);
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try (RecordLocks.Held held = locks.lock(EntityType.BANK_TRX, "BT001")) {
+            Future<?> future = pool.submit(() -> statusManager.transitionIfCurrent(mockDao,
+                    EntityType.BANK_TRX, "BT001", Status.NEW, Status.PROCESSING, "test", "Blocked"));
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("Expected RecordLockTimeoutException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RecordLockTimeoutException);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals("new", statusOf(dataSource, EntityType.BANK_TRX, "BT001"));
+        verifyNoInteractions(mockDao);
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  2. Status cache
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void transition_cacheHit_skipsLoadAndWritesAuditInSameSave() throws Exception {
+        StatusCache cache = new StatusCache();
+        statusManager.setStatusCache(cache);
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+        cache.put(EntityType.BANK_TRX, "BT001", Status.NEW);
+
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.PROCESSING, "rows-enrichment", "Claimed");
+
+        assertEquals("processing", statusOf(dataSource, EntityType.BANK_TRX, "BT001"));
+        assertEquals(1, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"
+                + " WHERE c_entity_id = 'BT001' AND c_from_status = 'new' AND c_to_status = 'processing'"));
+        assertEquals(Status.PROCESSING, cache.get(EntityType.BANK_TRX, "BT001"));
+        verifyNoInteractions(mockDao);
+    }
+
+    @Test
+    public void transition_cacheHitWithMetrics_timesConditionalSave() throws Exception {
+        StatusCache cache = new StatusCache();
+        TransitionMetrics metrics = new TransitionMetrics();
+        statusManager.setStatusCache(cache);
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        statusManager.setTransitionMetrics(metrics);
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+        cache.put(EntityType.BANK_TRX, "BT001", Status.NEW);
+
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.PROCESSING, "rows-enrichment", "Claimed");
+
+        assertEquals(0, metrics.getLatency(TransitionMetrics.Phase.LOAD).getCount());
+        assertEquals(1, metrics.getLatency(TransitionMetrics.Phase.STATUS_SAVE).getCount());
+        assertEquals(1, metrics.getEdgeCount(EntityType.BANK_TRX, Status.NEW, Status.PROCESSING));
+    }
+
+    @Test
+    public void transition_staleCache_fallsBackToLoad() throws Exception {
+        StatusCache cache = new StatusCache();
+        statusManager.setStatusCache(cache);
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        statusManager.setSameStatusNoOp(false);
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "processing");
+        cache.put(EntityType.BANK_TRX, "BT001", Status.NEW);
+
+        // The cache says NEW, so the claim is tried as NEW → PROCESSING; the
+        // conditional save misses and the reload rejects PROCESSING → PROCESSING.
+        try {
+            statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                    Status.PROCESSING, "rows-enrichment", "Claimed");
+            fail("Expected InvalidTransitionException");
+        } catch (InvalidTransitionException expected) {
+            assertEquals(Status.PROCESSING, expected.getFromStatus());
+        }
+
+        assertEquals(Status.PROCESSING, cache.get(EntityType.BANK_TRX, "BT001"));
+        assertEquals("processing", statusOf(dataSource, EntityType.BANK_TRX, "BT001"));
+        assertEquals("Missed save leaves no audit row",
+                0, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"));
+    }
+
+    @Test
+    public void tryTransition_staleCache_reportsLostRace() throws Exception {
+        StatusCache cache = new StatusCache();
+        statusManager.setStatusCache(cache);
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "enriched");
+        cache.put(EntityType.BANK_TRX, "BT001", Status.NEW);
+
+        TransitionResult result = statusManager.tryTransition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.PROCESSING, "rows-enrichment", "Claimed");
+
+        assertEquals(TransitionResult.Outcome.LOST_RACE, result.getOutcome());
+        assertEquals(Status.ENRICHED, result.getFromStatus());
+        assertEquals("enriched", statusOf(dataSource, EntityType.BANK_TRX, "BT001"));
+    }
+
+    @Test
+    public void transition_cacheWithDefaultPersistence_loadsThroughDao() throws Exception {
+        StatusManager manager = new StatusManager();
+        StatusCache cache = new StatusCache();
+        manager.setStatusCache(cache);
+        cache.put(EntityType.BANK_TRX, "BT001", Status.NEW);
+        FormRow row = new FormRow();
+        row.setId("BT001");
+        row.setProperty("status", "new");
+        when(mockDao.load("bank_total_trx", "bank_total_trx", "BT001")).thenReturn(row);
+
+        // No data source: the FormDataDao backend cannot save conditionally
+        manager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.PROCESSING, "rows-enrichment", "Claimed");
+
+        verify(mockDao).load("bank_total_trx", "bank_total_trx", "BT001");
+        assertEquals(Status.PROCESSING, cache.get(EntityType.BANK_TRX, "BT001"));
+    }
+
+    @Test
+    public void transition_cacheMiss_populatesFromLoad() {
+        StatusCache cache = new StatusCache();
+        statusManager.setStatusCache(cache);
+
+        FormRow row = new FormRow();
+        row.setId("BT001");
+        row.setProperty("status", "new");
+        when(mockDao.load("bank_total_trx", "bank_total_trx", "BT001")).thenReturn(row);
+
+        try {
+            statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                    Status.POSTED, "test", "Should fail");
+            fail("Expected InvalidTransitionException");
+        } catch (InvalidTransitionException expected) {
+            // the loaded status is still cached
+        }
+
+        assertEquals(Status.NEW, cache.get(EntityType.BANK_TRX, "BT001"));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  3. claim — work claiming with leases
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void claim_movesUpToMaxRowsAndWritesAudit() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            insert(dataSource, EntityType.BANK_TRX, "BT00" + i, "new");
+        }
+
+        List<String> claimed = statusManager.claim(EntityType.BANK_TRX,
+                Status.NEW, Status.PROCESSING, 3, "worker-1");
+
+        assertEquals(Arrays.asList("BT001", "BT002", "BT003"), claimed);
+        assertEquals("processing", statusOf(dataSource, EntityType.BANK_TRX, "BT003"));
+        assertEquals("new", statusOf(dataSource, EntityType.BANK_TRX, "BT004"));
+        assertEquals(3, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"
+                + " WHERE c_triggered_by = 'worker-1' AND c_to_status = 'processing'"));
+        assertEquals(3, count(dataSource, "SELECT COUNT(*) FROM "
+                + JdbcStatusStore.physicalTable(EntityType.BANK_TRX) + " WHERE dateModified IS NOT NULL"));
+        assertEquals(3, count(dataSource, "SELECT COUNT(*) FROM gam_status_lease"));
+        verifyNoInteractions(mockDao);
+    }
+
+    @Test
+    public void claim_driverWithoutBatchCounts_claimsOnlyMovedRecords() throws Exception {
+        statusManager.setDataSource(withoutBatchUpdateCounts(dataSource));
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+        insert(dataSource, EntityType.BANK_TRX, "BT002", "new");
+        insert(dataSource, EntityType.BANK_TRX, "BT003", "new");
+
+        assertEquals(Arrays.asList("BT001", "BT002", "BT003"), statusManager.claim(EntityType.BANK_TRX,
+                Status.NEW, Status.PROCESSING, 10, "worker-1"));
+        assertEquals(3, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"
+                + " WHERE c_triggered_by = 'worker-1'"));
+        assertTrue(statusManager.claim(EntityType.BANK_TRX,
+                Status.NEW, Status.PROCESSING, 10, "worker-2").isEmpty());
+    }
+
+    @Test
+    public void claim_secondWorkerGetsTheRest() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            insert(dataSource, EntityType.POSTING_OPERATION, "OP00" + i, "pending");
+        }
+
+        List<String> first = statusManager.claim(EntityType.POSTING_OPERATION,
+                Status.PENDING, Status.POSTING, 3, "gl-1");
+        List<String> second = statusManager.claim(EntityType.POSTING_OPERATION,
+                Status.PENDING, Status.POSTING, 3, "gl-2");
+        List<String> third = statusManager.claim(EntityType.POSTING_OPERATION,
+                Status.PENDING, Status.POSTING, 3, "gl-3");
+
+        assertEquals(3, first.size());
+        assertEquals(Arrays.asList("OP004", "OP005"), second);
+        assertTrue(third.isEmpty());
+    }
+
+    @Test
+    public void claim_concurrentWorkers_neverShareRecords() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            insert(dataSource, EntityType.BANK_TRX, String.format("BT%03d", i), "new");
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            String worker = "worker-" + w;
+            futures.add(pool.submit(() -> {
+                List<String> mine = new ArrayList<>();
+                List<String> batch;
+                while (!(batch = statusManager.claim(EntityType.BANK_TRX,
+                        Status.NEW, Status.PROCESSING, 7, worker)).isEmpty()) {
+                    mine.addAll(batch);
+                }
+                return mine;
+            }));
+        }
+        Set<String> all = new HashSet<>();
+        int total = 0;
+        for (Future<List<String>> future : futures) {
+            List<String> mine = future.get(30, TimeUnit.SECONDS);
+            all.addAll(mine);
+            total += mine.size();
+        }
+        pool.shutdown();
+
+        assertEquals(200, total);
+        assertEquals(200, all.size());
+        assertEquals(200, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"));
+    }
+
+    @Test
+    public void claim_skipLocked_claimsSameWay() throws Exception {
+        statusManager.setClaimSkipLocked(true);
+        insert(dataSource, EntityType.ENRICHMENT, "TE001", "new");
+        insert(dataSource, EntityType.ENRICHMENT, "TE002", "new");
+
+        assertEquals(Arrays.asList("TE001", "TE002"), statusManager.claim(EntityType.ENRICHMENT,
+                Status.NEW, Status.PROCESSING, 5, "worker-1"));
+    }
+
+    @Test
+    public void claim_expiredLease_isReclaimed() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+        statusManager.claim(EntityType.BANK_TRX, Status.NEW, Status.PROCESSING, 10, "crashed", 1);
+        Thread.sleep(20);
+
+        List<String> claimed = statusManager.claim(EntityType.BANK_TRX,
+                Status.NEW, Status.PROCESSING, 10, "worker-2");
+
+        assertEquals(Collections.singletonList("BT001"), claimed);
+        assertFalse(statusManager.renewLease(EntityType.BANK_TRX, "BT001", "crashed", 60_000));
+        assertTrue(statusManager.renewLease(EntityType.BANK_TRX, "BT001", "worker-2", 60_000));
+        assertEquals(1, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"
+                + " WHERE c_triggered_by = 'worker-2' AND c_from_status = 'processing'"));
+    }
+
+    @Test
+    public void claim_liveLeaseOrFinishedRecord_notReclaimed() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+        insert(dataSource, EntityType.BANK_TRX, "BT002", "new");
+        statusManager.claim(EntityType.BANK_TRX, Status.NEW, Status.PROCESSING, 1, "worker-1");
+        statusManager.claim(EntityType.BANK_TRX, Status.NEW, Status.PROCESSING, 1, "worker-1", 1);
+        // BT002's lease expires, but the worker already finished it
+        execute(dataSource, "UPDATE app_fd_bank_total_trx SET c_status = 'enriched' WHERE id = 'BT002'");
+        Thread.sleep(20);
+
+        assertTrue(statusManager.claim(EntityType.BANK_TRX,
+                Status.NEW, Status.PROCESSING, 10, "worker-2").isEmpty());
+    }
+
+    @Test
+    public void claim_dropsLeasesOfFinishedRecords() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+        insert(dataSource, EntityType.BANK_TRX, "BT002", "new");
+        statusManager.claim(EntityType.BANK_TRX, Status.NEW, Status.PROCESSING, 2, "worker-1");
+        // the worker finishes BT001 without releasing its lease
+        execute(dataSource, "UPDATE app_fd_bank_total_trx SET c_status = 'enriched' WHERE id = 'BT001'");
+
+        statusManager.claim(EntityType.BANK_TRX, Status.NEW, Status.PROCESSING, 10, "worker-2");
+
+        assertEquals(1, count(dataSource, "SELECT COUNT(*) FROM gam_status_lease"));
+        assertEquals(1, count(dataSource, "SELECT COUNT(*) FROM gam_status_lease WHERE record_id = 'BT002'"));
+    }
+
+    @Test
+    public void releaseLease_onlyByHolder() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+        statusManager.claim(EntityType.BANK_TRX, Status.NEW, Status.PROCESSING, 1, "worker-1");
+
+        assertFalse(statusManager.releaseLease(EntityType.BANK_TRX, "BT001", "worker-2"));
+        assertTrue(statusManager.releaseLease(EntityType.BANK_TRX, "BT001", "worker-1"));
+        assertEquals(0, count(dataSource, "SELECT COUNT(*) FROM gam_status_lease"));
+    }
+
+    @Test
+    public void claim_withLimiter_refundsUnclaimedRows() throws Exception {
+        TransitionLimiter limiter = new TransitionLimiter(0);
+        TransitionLimiter.Limit limit = limiter.limitTriggeredBy("worker-1", 0.001, 10, 0);
+        statusManager.setTransitionLimiter(limiter);
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+
+        assertEquals(1, statusManager.claim(EntityType.BANK_TRX,
+                Status.NEW, Status.PROCESSING, 10, "worker-1").size());
+        assertEquals(9, limit.getAvailableTokens(), 0.01);
+
+        // An idle poll costs nothing
+        for (int i = 0; i < 5; i++) {
+            assertTrue(statusManager.claim(EntityType.BANK_TRX,
+                    Status.NEW, Status.PROCESSING, 9, "worker-1").isEmpty());
+        }
+        assertEquals(9, limit.getAvailableTokens(), 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void claim_invalidEdge_rejected() {
+        statusManager.claim(EntityType.BANK_TRX, Status.NEW, Status.POSTED, 10, "worker-1");
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  4. JdbcStatusPersistence
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void jdbcPersistence_transition_writesStatusAndAuditWithoutDao() throws Exception {
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        insert(dataSource, EntityType.STATEMENT, "S001", "imported");
+
+        statusManager.transition(mockDao, EntityType.STATEMENT, "S001",
+                Status.CONSOLIDATING, "statement-importer", "Consolidate");
+
+        assertEquals("consolidating", statusOf(dataSource, EntityType.STATEMENT, "S001"));
+        assertEquals("100.00", amountOf(dataSource, EntityType.STATEMENT, "S001"));
+        assertEquals(1, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"
+                + " WHERE c_entity_id = 'S001' AND c_from_status = 'imported'"
+                + " AND c_to_status = 'consolidating'"));
+        assertEquals(1, count(dataSource, "SELECT COUNT(*) FROM "
+                + JdbcStatusStore.physicalTable(EntityType.STATEMENT) + " WHERE dateModified IS NOT NULL"));
+        verifyNoInteractions(mockDao);
+    }
+
+    @Test
+    public void jdbcPersistence_transitionAll_writesEverythingInOneTransaction() throws Exception {
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+        insert(dataSource, EntityType.BANK_TRX, "BT002", "new");
+        insert(dataSource, EntityType.BANK_TRX, "BT003", "enriched");
+
+        Map<String, TransitionResult> results = statusManager.transitionAll(mockDao,
+                EntityType.BANK_TRX, Arrays.asList("BT001", "BT002", "BT003", "BT404"),
+                Status.PROCESSING, "rows-enrichment", "Batch");
+
+        assertTrue(results.get("BT001").isSuccess());
+        assertTrue(results.get("BT002").isSuccess());
+        assertEquals(TransitionResult.Outcome.INVALID, results.get("BT003").getOutcome());
+        assertEquals(TransitionResult.Outcome.NOT_FOUND, results.get("BT404").getOutcome());
+        assertEquals("processing", statusOf(dataSource, EntityType.BANK_TRX, "BT002"));
+        assertEquals(2, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"));
+    }
+
+    @Test
+    public void jdbcPersistence_auditInsertFails_statusRolledBack() throws Exception {
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+        execute(dataSource, "DROP TABLE app_fd_audit_log");
+
+        try {
+            statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                    Status.PROCESSING, "rows-enrichment", "Claimed");
+            fail("Expected StatusStoreException");
+        } catch (StatusStoreException expected) {
+            // status update and audit insert share one transaction
+        }
+
+        assertEquals("new", statusOf(dataSource, EntityType.BANK_TRX, "BT001"));
+    }
+
+    @Test
+    public void jdbcPersistence_nullRestoresDaoDefault() {
+        StatusPersistence jdbc = new JdbcStatusPersistence(dataSource);
+        statusManager.setStatusPersistence(jdbc);
+        assertSame(jdbc, statusManager.getStatusPersistence());
+
+        statusManager.setStatusPersistence(null);
+
+        assertTrue(statusManager.getStatusPersistence() instanceof FormDataDaoStatusPersistence);
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  5. transitionWhere — set-based transition
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void transitionWhere_movesOnlyMatchingRecordsInFromStatus() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "enriched", "S001");
+        insert(dataSource, EntityType.BANK_TRX, "BT002", "enriched", "S001");
+        insert(dataSource, EntityType.BANK_TRX, "BT003", "processing", "S001");
+        insert(dataSource, EntityType.BANK_TRX, "BT004", "enriched", "S002");
+
+        int count = statusManager.transitionWhere(EntityType.BANK_TRX,
+                RecordFilter.where("statement_id", "S001"),
+                Status.ENRICHED, Status.POSTING_READY, "gl-preparator", "Statement consolidated");
+
+        assertEquals(2, count);
+        assertEquals("posting_ready", statusOf(dataSource, EntityType.BANK_TRX, "BT001"));
+        assertEquals("posting_ready", statusOf(dataSource, EntityType.BANK_TRX, "BT002"));
+        assertEquals("processing", statusOf(dataSource, EntityType.BANK_TRX, "BT003"));
+        assertEquals("enriched", statusOf(dataSource, EntityType.BANK_TRX, "BT004"));
+        assertEquals(2, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"
+                + " WHERE c_from_status = 'enriched' AND c_to_status = 'posting_ready'"
+                + " AND c_entity_type = 'BANK_TRX' AND c_triggered_by = 'gl-preparator'"));
+        assertEquals(1, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"
+                + " WHERE c_entity_id = 'BT002'"));
+        verifyNoInteractions(mockDao);
+    }
+
+    @Test
+    public void transitionWhere_inFilterAndRepeatedCalls_haveDistinctAuditIds() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+        insert(dataSource, EntityType.BANK_TRX, "BT002", "new");
+
+        assertEquals(2, statusManager.transitionWhere(EntityType.BANK_TRX,
+                RecordFilter.whereIn("id", Arrays.asList("BT001", "BT002")),
+                Status.NEW, Status.PROCESSING, "test", "First"));
+        execute(dataSource, "UPDATE app_fd_bank_total_trx SET c_status = 'new'");
+        assertEquals(2, statusManager.transitionWhere(EntityType.BANK_TRX, RecordFilter.all(),
+                Status.NEW, Status.PROCESSING, "test", "Second"));
+
+        assertEquals(4, count(dataSource, "SELECT COUNT(DISTINCT id) FROM app_fd_audit_log"));
+    }
+
+    @Test
+    public void transitionWhere_noMatches_returnsZero() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "processing", "S001");
+
+        assertEquals(0, statusManager.transitionWhere(EntityType.BANK_TRX,
+                RecordFilter.where("statement_id", "S001"),
+                Status.ENRICHED, Status.POSTING_READY, "test", "Nothing"));
+        assertEquals(0, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"));
+    }
+
+    @Test
+    public void transitionWhere_invalidEdge_throwsWithoutDbAccess() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "enriched", "S001");
+
+        try {
+            statusManager.transitionWhere(EntityType.BANK_TRX, RecordFilter.where("statement_id", "S001"),
+                    Status.ENRICHED, Status.NEW, "test", "Should fail");
+            fail("Expected InvalidTransitionException");
+        } catch (InvalidTransitionException expected) {
+            assertNull(expected.getRecordId());
+        }
+        assertEquals("enriched", statusOf(dataSource, EntityType.BANK_TRX, "BT001"));
+    }
+
+    @Test
+    public void recordFilter_rejectsUnsafeOrStatusFields() {
+        for (String field : Arrays.asList("statement_id; DROP TABLE x", "c.status", "", "status")) {
+            try {
+                RecordFilter.where(field, "x");
+                fail("Expected IllegalArgumentException for " + field);
+            } catch (IllegalArgumentException expected) {
+                // field names become column names and are never bound
+            }
+        }
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  6. Cascade rules
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void cascade_parentAndChildrenWrittenTogether() throws Exception {
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        statusManager.addCascadeRule(CascadeRule.of(EntityType.STATEMENT, Status.POSTED,
+                EntityType.BANK_TRX, "statement_id", Status.POSTED)
+                .onlyFrom(Status.POSTING_READY, Status.PAIRED));
+        statusManager.addCascadeRule(CascadeRule.of(EntityType.STATEMENT, Status.POSTED,
+                EntityType.SECU_TRX, "statement_id", Status.POSTED));
+        insert(dataSource, EntityType.STATEMENT, "S001", "enriched");
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "posting_ready", "S001");
+        insert(dataSource, EntityType.BANK_TRX, "BT002", "paired", "S001");
+        insert(dataSource, EntityType.BANK_TRX, "BT003", "manual_review", "S001");
+        insert(dataSource, EntityType.BANK_TRX, "BT004", "posting_ready", "S002");
+        insert(dataSource, EntityType.SECU_TRX, "ST001", "paired", "S001");
+        insert(dataSource, EntityType.SECU_TRX, "ST002", "posted", "S001");
+
+        statusManager.transition(mockDao, EntityType.STATEMENT, "S001",
+                Status.POSTED, "gl-poster", "Statement posted");
+
+        assertEquals("posted", statusOf(dataSource, EntityType.STATEMENT, "S001"));
+        assertEquals("posted", statusOf(dataSource, EntityType.BANK_TRX, "BT001"));
+        assertEquals("posted", statusOf(dataSource, EntityType.BANK_TRX, "BT002"));
+        assertEquals("Filtered out by onlyFrom", "manual_review",
+                statusOf(dataSource, EntityType.BANK_TRX, "BT003"));
+        assertEquals("Other statement", "posting_ready", statusOf(dataSource, EntityType.BANK_TRX, "BT004"));
+        assertEquals("posted", statusOf(dataSource, EntityType.SECU_TRX, "ST001"));
+        // parent + BT001 + BT002 + ST001; ST002 was already posted
+        assertEquals(4, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"));
+        verifyNoInteractions(mockDao);
+    }
+
+    @Test
+    public void cascade_rulesChainThroughChildren() throws Exception {
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        statusManager.addCascadeRule(CascadeRule.of(EntityType.STATEMENT, Status.POSTED,
+                EntityType.BANK_TRX, "statement_id", Status.POSTED));
+        // In this schema the enrichment row's statement_id column holds its bank transaction
+        statusManager.addCascadeRule(CascadeRule.of(EntityType.BANK_TRX, Status.POSTED,
+                EntityType.ENRICHMENT, "statement_id", Status.CONFIRMED));
+        insert(dataSource, EntityType.STATEMENT, "S001", "enriched");
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "posting_ready", "S001");
+        insert(dataSource, EntityType.BANK_TRX, "BT002", "paired", "S001");
+        insert(dataSource, EntityType.ENRICHMENT, "TE001", "ready", "BT001");
+        insert(dataSource, EntityType.ENRICHMENT, "TE002", "ready", "BT002");
+
+        statusManager.transition(mockDao, EntityType.STATEMENT, "S001",
+                Status.POSTED, "gl-poster", "Statement posted");
+
+        assertEquals("confirmed", statusOf(dataSource, EntityType.ENRICHMENT, "TE001"));
+        assertEquals("confirmed", statusOf(dataSource, EntityType.ENRICHMENT, "TE002"));
+        assertEquals(1, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"
+                + " WHERE c_entity_id = 'TE002' AND c_reason LIKE '%cascade from STATEMENT S001%'"));
+    }
+
+    @Test
+    public void cascade_invalidChild_rejectsEverything() throws Exception {
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        statusManager.addCascadeRule(CascadeRule.of(EntityType.STATEMENT, Status.POSTED,
+                EntityType.BANK_TRX, "statement_id", Status.POSTED));
+        insert(dataSource, EntityType.STATEMENT, "S001", "enriched");
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "posting_ready", "S001");
+        insert(dataSource, EntityType.BANK_TRX, "BT002", "new", "S001");
+
+        try {
+            statusManager.transition(mockDao, EntityType.STATEMENT, "S001",
+                    Status.POSTED, "gl-poster", "Statement posted");
+            fail("Expected InvalidTransitionException");
+        } catch (InvalidTransitionException expected) {
+            assertEquals(EntityType.BANK_TRX, expected.getEntityType());
+            assertEquals("BT002", expected.getRecordId());
+        }
+
+        assertEquals("enriched", statusOf(dataSource, EntityType.STATEMENT, "S001"));
+        assertEquals("posting_ready", statusOf(dataSource, EntityType.BANK_TRX, "BT001"));
+        assertEquals(0, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"));
+    }
+
+    @Test
+    public void cascade_otherTargets_unaffected() throws Exception {
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        statusManager.addCascadeRule(CascadeRule.of(EntityType.STATEMENT, Status.POSTED,
+                EntityType.BANK_TRX, "statement_id", Status.POSTED));
+        insert(dataSource, EntityType.STATEMENT, "S001", "consolidated");
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "posting_ready", "S001");
+
+        statusManager.transition(mockDao, EntityType.STATEMENT, "S001",
+                Status.ENRICHED, "enricher", "Enriched");
+
+        assertEquals("posting_ready", statusOf(dataSource, EntityType.BANK_TRX, "BT001"));
+        assertEquals(1, count(dataSource, "SELECT COUNT(*) FROM app_fd_audit_log"));
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  7. Status rollups
+    // ════════════════════════════════════════════════════════════════
+
+    private StatusRollup newRollup() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "posting_ready", "S001");
+        insert(dataSource, EntityType.BANK_TRX, "BT002", "posting_ready", "S001");
+        insert(dataSource, EntityType.BANK_TRX, "BT003", "posted", "S002");
+        insert(dataSource, EntityType.SECU_TRX, "ST001", "paired", "S001");
+        StatusRollup rollup = new StatusRollup(dataSource, "statement_id",
+                EntityType.BANK_TRX, EntityType.SECU_TRX);
+        rollup.rebuild();
+        statusManager.addTransitionListener(rollup);
+        return rollup;
+    }
+
+    @Test
+    public void rollup_rebuild_countsChildrenPerParentAndStatus() throws Exception {
+        StatusRollup rollup = newRollup();
+
+        assertEquals(2, rollup.count("S001", EntityType.BANK_TRX, Status.POSTING_READY));
+        assertEquals(1, rollup.count("S001", EntityType.SECU_TRX, Status.PAIRED));
+        assertEquals(3, rollup.total("S001"));
+        assertEquals(Collections.singletonMap(Status.POSTED, 1L),
+                rollup.counts("S002", EntityType.BANK_TRX));
+        assertTrue(rollup.allTerminal("S002"));
+        assertFalse(rollup.allTerminal("S001"));
+        assertTrue("No children", rollup.allTerminal("S999"));
+    }
+
+    @Test
+    public void rollup_transitions_applyDeltas() throws Exception {
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        StatusRollup rollup = newRollup();
+
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.POSTED, "gl-poster", "Posted");
+        statusManager.transitionAll(mockDao, EntityType.SECU_TRX, Collections.singletonList("ST001"),
+                Status.POSTED, "gl-poster", "Posted");
+
+        assertEquals(1, rollup.count("S001", EntityType.BANK_TRX, Status.POSTING_READY));
+        assertEquals(1, rollup.count("S001", EntityType.BANK_TRX, Status.POSTED));
+        assertEquals(1, rollup.count("S001", EntityType.SECU_TRX, Status.POSTED));
+        assertEquals(3, rollup.total("S001"));
+        assertFalse(rollup.allTerminal("S001"));
+        assertTrue(rollup.allIn("S001", EnumSet.of(Status.POSTING_READY, Status.POSTED)));
+
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT002",
+                Status.POSTED, "gl-poster", "Posted");
+        assertTrue(rollup.allTerminal("S001"));
+        assertFalse(rollup.isStale());
+    }
+
+    @Test
+    public void rollup_transitionWhereOnOneParent_appliesCount() throws Exception {
+        StatusRollup rollup = newRollup();
+
+        statusManager.transitionWhere(EntityType.BANK_TRX, RecordFilter.where("statement_id", "S001"),
+                Status.POSTING_READY, Status.POSTED, "gl-poster", "Statement posted");
+
+        assertEquals(2, rollup.count("S001", EntityType.BANK_TRX, Status.POSTED));
+        assertEquals(0, rollup.count("S001", EntityType.BANK_TRX, Status.POSTING_READY));
+        assertFalse(rollup.isStale());
+
+        statusManager.transitionWhere(EntityType.SECU_TRX, RecordFilter.all(),
+                Status.PAIRED, Status.POSTED, "gl-poster", "All posted");
+        assertTrue("Filter not on one parent", rollup.isStale());
+    }
+
+    @Test
+    public void rollup_parentCacheMiss_resolvedOffTransitionThread() throws Exception {
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "posting_ready", "S001");
+        DataSource rollupSource = mock(DataSource.class);
+        when(rollupSource.getConnection()).thenAnswer(invocation -> dataSource.getConnection());
+        StatusRollup rollup = new StatusRollup(rollupSource, "statement_id", EntityType.BANK_TRX);
+        rollup.rebuild();
+        statusManager.addTransitionListener(rollup);
+        clearInvocations(rollupSource);
+
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.POSTED, "gl-poster", "Posted");
+        verify(rollupSource, never()).getConnection();
+
+        assertEquals(1, rollup.count("S001", EntityType.BANK_TRX, Status.POSTED));
+        assertEquals(0, rollup.count("S001", EntityType.BANK_TRX, Status.POSTING_READY));
+        verify(rollupSource).getConnection();
+    }
+
+    @Test
+    public void rollup_childCreatedOutsideManager_firstTransitionIsNotDrift() throws Exception {
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        StatusRollup rollup = newRollup();
+        insert(dataSource, EntityType.BANK_TRX, "BT004", "new", "S001");
+
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT004",
+                Status.PROCESSING, "rows-enrichment", "Claimed");
+
+        assertEquals(0, rollup.count("S001", EntityType.BANK_TRX, Status.NEW));
+        assertEquals(1, rollup.count("S001", EntityType.BANK_TRX, Status.PROCESSING));
+        assertEquals(4, rollup.total("S001"));
+        assertFalse(rollup.isStale());
+    }
+
+    @Test
+    public void rollup_rebuild_correctsDrift() throws Exception {
+        StatusRollup rollup = newRollup();
+        insert(dataSource, EntityType.BANK_TRX, "BT004", "new", "S001");
+        execute(dataSource, "DELETE FROM " + JdbcStatusStore.physicalTable(EntityType.BANK_TRX)
+                + " WHERE id = 'BT003'");
+        assertEquals(3, rollup.total("S001"));
+
+        rollup.rebuild();
+
+        assertEquals(4, rollup.total("S001"));
+        assertEquals(1, rollup.count("S001", EntityType.BANK_TRX, Status.NEW));
+        assertEquals(0, rollup.total("S002"));
+    }
+
+    @Test
+    public void listener_failure_doesNotAffectTransition() throws Exception {
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+        statusManager.addTransitionListener(result -> {
+            throw new IllegalStateException("listener bug");
+        });
+
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.PROCESSING, "rows-enrichment", "Claimed");
+
+        assertEquals("processing", statusOf(dataSource, EntityType.BANK_TRX, "BT001"));
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  8. Status histogram
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void histogram_seededByAggregateQuery() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+        insert(dataSource, EntityType.BANK_TRX, "BT002", "new");
+        insert(dataSource, EntityType.BANK_TRX, "BT003", "manual_review");
+        insert(dataSource, EntityType.STATEMENT, "S001", "error");
+        statusManager.setStatusHistogram(new StatusHistogram(dataSource));
+
+        EnumMap<Status, Long> bank = statusManager.getStatusCounts(EntityType.BANK_TRX);
+
+        assertEquals(Long.valueOf(2), bank.get(Status.NEW));
+        assertEquals(Long.valueOf(1), bank.get(Status.MANUAL_REVIEW));
+        assertEquals(2, bank.size());
+        assertEquals(Collections.singletonMap(Status.ERROR, 1L),
+                statusManager.getStatusCounts(EntityType.STATEMENT));
+        assertTrue(statusManager.getStatusCounts(EntityType.PAIR).isEmpty());
+    }
+
+    @Test
+    public void histogram_keptCurrentByTransitions() throws Exception {
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+        insert(dataSource, EntityType.BANK_TRX, "BT002", "new");
+        insert(dataSource, EntityType.BANK_TRX, "BT003", "new", "S001");
+        StatusHistogram histogram = new StatusHistogram(dataSource, EntityType.BANK_TRX);
+        histogram.refresh();
+        statusManager.setStatusHistogram(histogram);
+
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.PROCESSING, "rows-enrichment", "Claimed");
+        statusManager.transitionWhere(EntityType.BANK_TRX, RecordFilter.where("statement_id", "S001"),
+                Status.NEW, Status.PROCESSING, "rows-enrichment", "Claimed");
+        insert(dataSource, EntityType.BANK_TRX, "BT004", "new");
+
+        assertEquals(Long.valueOf(1), statusManager.getStatusCounts(EntityType.BANK_TRX).get(Status.NEW));
+        assertEquals(Long.valueOf(2),
+                statusManager.getStatusCounts(EntityType.BANK_TRX).get(Status.PROCESSING));
+
+        histogram.refresh();
+        assertEquals("Refresh picks up BT004", Long.valueOf(2),
+                statusManager.getStatusCounts(EntityType.BANK_TRX).get(Status.NEW));
+    }
+
+    @Test
+    public void histogram_replacedOrRemoved() throws Exception {
+        StatusHistogram histogram = new StatusHistogram(dataSource, EntityType.BANK_TRX);
+        statusManager.setStatusHistogram(histogram);
+        statusManager.setStatusHistogram(null);
+
+        assertNull(statusManager.getStatusHistogram());
+        try {
+            statusManager.getStatusCounts(EntityType.BANK_TRX);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // no histogram installed
+        }
+        try {
+            histogram.getCounts(EntityType.STATEMENT);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // not tracked
+        }
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  9. findByStatus — keyset-paginated scans
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void findByStatus_pagesThroughMatchingRecordsInIdOrder() throws Exception {
+        for (int i = 1; i <= 7; i++) {
+            insert(dataSource, EntityType.BANK_TRX, "BT00" + i, i % 3 == 0 ? "error" : "new", "S00" + i);
+        }
+
+        Iterator<FormRow> rows = statusManager.findByStatus(EntityType.BANK_TRX, Status.NEW, 2,
+                "statement_id");
+        List<String> ids = new ArrayList<>();
+        while (rows.hasNext()) {
+            FormRow row = rows.next();
+            ids.add(row.getId());
+            assertEquals("S00" + row.getId().substring(4), row.getProperty("statement_id"));
+            assertNull("Only requested fields are read", row.getProperty("amount"));
+        }
+
+        assertEquals(Arrays.asList("BT001", "BT002", "BT004", "BT005", "BT007"), ids);
+    }
+
+    @Test
+    public void findByStatus_noMatches_isEmpty() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "error");
+
+        assertFalse(statusManager.findByStatus(EntityType.BANK_TRX, Status.NEW, 10).hasNext());
+    }
+
+    @Test
+    public void streamByStatus_parallel_splitsIntoDisjointRanges() throws Exception {
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 250; i++) {
+            String id = String.format("BT%04d", i);
+            insert(dataSource, EntityType.BANK_TRX, id, "new");
+            expected.add(id);
+        }
+        insert(dataSource, EntityType.BANK_TRX, "BT9999", "posted");
+
+        Spliterator<FormRow> scan = statusManager.streamByStatus(EntityType.BANK_TRX, Status.NEW,
+                10, false).spliterator();
+        assertEquals(250, scan.estimateSize());
+        Spliterator<FormRow> prefix = scan.trySplit();
+        assertNotNull(prefix);
+        assertEquals(125, prefix.estimateSize());
+
+        List<String> ids = statusManager.streamByStatus(EntityType.BANK_TRX, Status.NEW, 10, true)
+                .map(FormRow::getId).collect(Collectors.toList());
+
+        assertEquals(250, ids.size());
+        assertEquals(expected, new HashSet<>(ids));
+        List<String> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        assertEquals("Encounter order is ID order", sorted, ids);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void findByStatus_invalidField_rejected() {
+        statusManager.findByStatus(EntityType.BANK_TRX, Status.NEW, 10, "amount; DROP TABLE x");
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  10. Status index
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void statusIndex_loadsNonTerminalRecordsAndAnswersWithoutDb() throws Exception {
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "enriched");
+        insert(dataSource, EntityType.BANK_TRX, "BT002", "posted");
+        insert(dataSource, EntityType.STATEMENT, "S001", "importing");
+        StatusIndex index = new StatusIndex();
+
+        assertEquals(2, index.load(dataSource));
+        statusManager.setStatusIndex(index);
+
+        assertEquals(Status.ENRICHED, index.get(EntityType.BANK_TRX, "BT001"));
+        assertNull("Terminal records are not indexed", index.get(EntityType.BANK_TRX, "BT002"));
+        assertTrue(statusManager.canTransitionRecord(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.POSTING_READY));
+        assertFalse(statusManager.canTransitionRecord(mockDao, EntityType.STATEMENT, "S001",
+                Status.POSTED));
+        verifyNoInteractions(mockDao);
+    }
+
+    @Test
+    public void statusIndex_followsTransitions() throws Exception {
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "posting_ready");
+        insert(dataSource, EntityType.BANK_TRX, "BT002", "new");
+        insert(dataSource, EntityType.BANK_TRX, "BT003", "new");
+        StatusIndex index = new StatusIndex();
+        index.load(dataSource);
+        statusManager.setStatusIndex(index);
+
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT002",
+                Status.PROCESSING, "rows-enrichment", "Claimed");
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.POSTED, "gl-poster", "Posted");
+        statusManager.transitionWhere(EntityType.BANK_TRX, RecordFilter.all(),
+                Status.NEW, Status.PROCESSING, "rows-enrichment", "Claimed");
+
+        assertEquals(Status.PROCESSING, index.get(EntityType.BANK_TRX, "BT002"));
+        assertNull("Trimmed at terminal status", index.get(EntityType.BANK_TRX, "BT001"));
+        assertNull("Dropped by bulk transition", index.get(EntityType.BANK_TRX, "BT003"));
+
+        assertTrue("Miss falls back to the database", statusManager.canTransitionRecord(mockDao,
+                EntityType.BANK_TRX, "BT003", Status.ENRICHED));
+        assertEquals(Status.PROCESSING, index.get(EntityType.BANK_TRX, "BT003"));
+        assertFalse(statusManager.canTransitionRecord(mockDao, EntityType.BANK_TRX, "BT999",
+                Status.PROCESSING));
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  11. Cluster cache coherence
+    // ════════════════════════════════════════════════════════════════
+
+    private static void insertChange(DataSource dataSource, long seq, String recordId, String status)
+            throws Exception {
+        execute(dataSource, "INSERT INTO " + StatusChangeFeed.CHANGE_TABLE
+                + " (seq, entity_type, record_id, to_status, node_id, changed_at) VALUES ("
+                + seq + ", 'BANK_TRX', '" + recordId + "', '" + status + "', 'other-node', 0)");
+    }
+
+    @Test
+    public void changeFeed_otherNodesCacheFollowsTransition() throws Exception {
+        statusManager.setStatusPersistence(new JdbcStatusPersistence(dataSource));
+        StatusChangeFeed feedA = new StatusChangeFeed(statusManager, dataSource);
+        feedA.start(60_000);
+        StatusManager nodeB = new StatusManager();
+        nodeB.setDataSource(dataSource);
+        StatusCache cacheB = new StatusCache();
+        nodeB.setStatusCache(cacheB);
+        StatusChangeFeed feedB = new StatusChangeFeed(nodeB, dataSource);
+        feedB.poll();
+        insert(dataSource, EntityType.BANK_TRX, "BT001", "new");
+        insert(dataSource, EntityType.BANK_TRX, "BT002", "new");
+        cacheB.put(EntityType.BANK_TRX, "BT001", Status.NEW);
+        cacheB.put(EntityType.BANK_TRX, "BT002", Status.NEW);
+
+        try {
+            statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                    Status.PROCESSING, "rows-enrichment", "Claimed on node A");
+            assertEquals(1, feedB.poll());
+            assertEquals(Status.PROCESSING, cacheB.get(EntityType.BANK_TRX, "BT001"));
+
+            statusManager.transitionWhere(EntityType.BANK_TRX, RecordFilter.all(),
+                    Status.NEW, Status.PROCESSING, "rows-enrichment", "Bulk on node A");
+            assertEquals(1, feedB.poll());
+            assertNull("Entity type invalidated", cacheB.get(EntityType.BANK_TRX, "BT002"));
+            assertEquals(0, feedA.poll());
+        } finally {
+            feedA.close();
+        }
+    }
+
+    @Test
+    public void changeFeed_waitsForGapBeforeAdvancing() throws Exception {
+        StatusCache cache = new StatusCache();
+        statusManager.setStatusCache(cache);
+        StatusChangeFeed feed = new StatusChangeFeed(statusManager, dataSource);
+        feed.poll();
+        insertChange(dataSource, 1, "BT001", "new");
+        insertChange(dataSource, 3, "BT001", "enriched");
+
+        assertEquals(2, feed.poll());
+        assertEquals(Status.ENRICHED, cache.get(EntityType.BANK_TRX, "BT001"));
+
+        // Seq 2 commits late: it is still read, and seq 3 re-applied after it
+        insertChange(dataSource, 2, "BT001", "processing");
+        assertEquals(2, feed.poll());
+        assertEquals(Status.ENRICHED, cache.get(EntityType.BANK_TRX, "BT001"));
+        assertEquals(0, feed.poll());
+    }
+
+    @Test
+    public void changeFeed_expiredGapIsSkipped() throws Exception {
+        StatusCache cache = new StatusCache();
+        statusManager.setStatusCache(cache);
+        StatusChangeFeed feed = new StatusChangeFeed(statusManager, dataSource);
+        feed.setGapTimeoutMillis(0);
+        feed.poll();
+        insertChange(dataSource, 1, "BT001", "new");
+        insertChange(dataSource, 3, "BT001", "enriched");
+
+        assertEquals(2, feed.poll());
+        insertChange(dataSource, 2, "BT001", "processing");
+        assertEquals("Position moved past the gap", 0, feed.poll());
+    }
+}
@@ -9,8 +9,20 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -41,6 +53,21 @@ public class StatusManagerTest {
         return row;
     }
 
+    private FormRow createRow(String id, String status) {
+        FormRow row = createRowWithStatus(status);
+        row.setId(id);
+        return row;
+    }
+
+    private void mockFind(EntityType entityType, FormRow... rows) {
+        FormRowSet rowSet = new FormRowSet();
+        rowSet.addAll(Arrays.asList(rows));
+        String table = entityType.getTableName();
+        when(mockDao.find(eq(table), eq(table), startsWith("WHERE e.id IN"), any(Object[].class),
+                isNull(), isNull(), isNull(), isNull()))
+                .thenReturn(rowSet);
+    }
+
     private void mockLoad(EntityType entityType, String recordId, String status) {
         String table = entityType.getTableName();
         when(mockDao.load(table, table, recordId))
@@ -551,6 +578,815 @@ public class StatusManagerTest {
         assertFalse(statusManager.canTransition(EntityType.POSTING_OPERATION, null, Status.POSTING));
     }
 
+    // ════════════════════════════════════════════════════════════════
+    //  12. Batch transitions (transitionAll)
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void transitionAll_mixedRecords_reportsPerRecordOutcome() {
+        mockFind(EntityType.BANK_TRX,
+                createRow("BT001", "new"), createRow("BT002", "enriched"));
+
+        Map<String, TransitionResult> results = statusManager.transitionAll(mockDao,
+                EntityType.BANK_TRX, Arrays.asList("BT001", "BT002", "BT404"),
+                Status.PROCESSING, "rows-enrichment", "Batch start");
+
+        assertEquals(3, results.size());
+        assertEquals(TransitionResult.Outcome.OK, results.get("BT001").getOutcome());
+        assertEquals(Status.NEW, results.get("BT001").getFromStatus());
+        assertEquals(TransitionResult.Outcome.INVALID, results.get("BT002").getOutcome());
+        assertEquals(Status.ENRICHED, results.get("BT002").getFromStatus());
+        assertEquals(TransitionResult.Outcome.NOT_FOUND, results.get("BT404").getOutcome());
+    }
+
+    @Test
+    public void transitionAll_writesStatusesAndAuditsInOneCallEach() {
+        mockFind(EntityType.BANK_TRX,
+                createRow("BT001", "new"), createRow("BT002", "new"), createRow("BT003", "posted"));
+
+        statusManager.transitionAll(mockDao, EntityType.BANK_TRX,
+                Arrays.asList("BT001", "BT002", "BT003"),
+                Status.PROCESSING, "rows-enrichment", "Batch start");
+
+        ArgumentCaptor<String> tableCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<FormRowSet> rowSetCaptor = ArgumentCaptor.forClass(FormRowSet.class);
+        verify(mockDao, times(2)).saveOrUpdate(anyString(), tableCaptor.capture(), rowSetCaptor.capture());
+        verify(mockDao, never()).load(anyString(), anyString(), anyString());
+
+        assertEquals("bank_total_trx", tableCaptor.getAllValues().get(0));
+        FormRowSet saved = rowSetCaptor.getAllValues().get(0);
+        assertEquals(2, saved.size());
+        assertEquals("processing", saved.get(0).getProperty("status"));
+        assertEquals("processing", saved.get(1).getProperty("status"));
+
+        assertEquals("audit_log", tableCaptor.getAllValues().get(1));
+        FormRowSet audits = rowSetCaptor.getAllValues().get(1);
+        assertEquals(2, audits.size());
+        assertEquals("BT001", audits.get(0).getProperty("entity_id"));
+        assertEquals("new", audits.get(0).getProperty("from_status"));
+        assertEquals("processing", audits.get(0).getProperty("to_status"));
+    }
+
+    @Test
+    public void transitionAll_noValidRecords_writesNothing() {
+        mockFind(EntityType.PAIR, createRow("P001", "confirmed"));
+
+        Map<String, TransitionResult> results = statusManager.transitionAll(mockDao,
+                EntityType.PAIR, Collections.singletonList("P001"),
+                Status.REJECTED, "test", "Should fail — terminal state");
+
+        assertFalse(results.get("P001").isSuccess());
+        verify(mockDao, never()).saveOrUpdate(anyString(), anyString(), any(FormRowSet.class));
+    }
+
+    @Test
+    public void transitionAll_unknownStatusCode_isInvalid() {
+        mockFind(EntityType.BANK_TRX, createRow("BT001", "bogus"));
+
+        Map<String, TransitionResult> results = statusManager.transitionAll(mockDao,
+                EntityType.BANK_TRX, Collections.singletonList("BT001"),
+                Status.NEW, "test", "Unknown code");
+
+        assertEquals(TransitionResult.Outcome.INVALID, results.get("BT001").getOutcome());
+        assertNull(results.get("BT001").getFromStatus());
+    }
+
+    @Test
+    public void transitionAll_duplicateIds_processedOnce() {
+        mockFind(EntityType.BANK_TRX, createRow("BT001", "new"));
+
+        Map<String, TransitionResult> results = statusManager.transitionAll(mockDao,
+                EntityType.BANK_TRX, Arrays.asList("BT001", "BT001"),
+                Status.PROCESSING, "test", "Duplicates");
+
+        assertEquals(1, results.size());
+        ArgumentCaptor<FormRowSet> rowSetCaptor = ArgumentCaptor.forClass(FormRowSet.class);
+        verify(mockDao, times(2)).saveOrUpdate(anyString(), anyString(), rowSetCaptor.capture());
+        assertEquals(1, rowSetCaptor.getAllValues().get(0).size());
+    }
+
+    @Test
+    public void transitionAll_emptyInput_returnsEmptyWithoutDbAccess() {
+        assertTrue(statusManager.transitionAll(mockDao, EntityType.BANK_TRX,
+                Collections.<String>emptyList(), Status.PROCESSING, "test", "Empty").isEmpty());
+        verifyNoInteractions(mockDao);
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  13. Group commit
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void groupCommit_singleCall_behavesLikeTransition() throws InvalidTransitionException {
+        statusManager.setGroupCommitter(new GroupCommitter());
+        mockFind(EntityType.BANK_TRX, createRow("BT001", "new"));
+
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.PROCESSING, "rows-enrichment", "Start");
+
+        verifyStatusSaved("bank_total_trx", "processing");
+        verify(mockDao).saveOrUpdate(eq("audit_log"), eq("audit_log"), any(FormRowSet.class));
+    }
+
+    @Test(expected = InvalidTransitionException.class)
+    public void groupCommit_invalidTransition_throwsToCaller() throws InvalidTransitionException {
+        statusManager.setGroupCommitter(new GroupCommitter());
+        mockFind(EntityType.BANK_TRX, createRow("BT001", "new"));
+
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.POSTED, "test", "Should fail");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void groupCommit_recordNotFound_throwsToCaller() throws InvalidTransitionException {
+        statusManager.setGroupCommitter(new GroupCommitter());
+        mockFind(EntityType.BANK_TRX);
+
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT404",
+                Status.PROCESSING, "test", "Missing");
+    }
+
+    @Test
+    public void groupCommit_concurrentCalls_writtenInSharedBatches() throws Exception {
+        GroupCommitter committer = new GroupCommitter(32, 20_000);
+        statusManager.setGroupCommitter(committer);
+        FormRow[] rows = new FormRow[32];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = createRow("BT" + i, "new");
+        }
+        mockFind(EntityType.BANK_TRX, rows);
+        doAnswer(invocation -> {
+            Thread.sleep(10);
+            return null;
+        }).when(mockDao).saveOrUpdate(eq("bank_total_trx"), eq("bank_total_trx"), any(FormRowSet.class));
+
+        ExecutorService pool = Executors.newFixedThreadPool(rows.length);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (FormRow row : rows) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                statusManager.transition(mockDao, EntityType.BANK_TRX, row.getId(),
+                        Status.PROCESSING, "process-tool", "Start");
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        for (FormRow row : rows) {
+            assertEquals("processing", row.getProperty("status"));
+        }
+        assertTrue(committer.getBatchCount() < rows.length);
+        ArgumentCaptor<FormRowSet> audits = ArgumentCaptor.forClass(FormRowSet.class);
+        verify(mockDao, times((int) committer.getBatchCount()))
+                .saveOrUpdate(eq("audit_log"), eq("audit_log"), audits.capture());
+        assertEquals(rows.length, audits.getAllValues().stream().mapToInt(FormRowSet::size).sum());
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  14. Cascade rules (FormDataDao persistence)
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void cascade_dao_prefetchesChildrenWithOneFindAndSavesPerType()
+            throws InvalidTransitionException {
+        statusManager.addCascadeRule(CascadeRule.of(EntityType.STATEMENT, Status.CONSOLIDATED,
+                EntityType.BANK_TRX, "statement_id", Status.PROCESSING).onlyFrom(Status.NEW));
+        mockLoad(EntityType.STATEMENT, "S001", "consolidating");
+        FormRowSet children = new FormRowSet();
+        children.add(createRow("BT001", "new"));
+        children.add(createRow("BT002", "new"));
+        when(mockDao.find(eq("bank_total_trx"), eq("bank_total_trx"),
+                eq("WHERE e.customProperties.statement_id IN (?)"), any(Object[].class),
+                isNull(), isNull(), isNull(), isNull()))
+                .thenReturn(children);
+
+        statusManager.transition(mockDao, EntityType.STATEMENT, "S001",
+                Status.CONSOLIDATED, "consolidator", "Done");
+
+        ArgumentCaptor<FormRowSet> captor = ArgumentCaptor.forClass(FormRowSet.class);
+        verify(mockDao).saveOrUpdate(eq("bank_total_trx"), eq("bank_total_trx"), captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertEquals("processing", captor.getValue().get(1).getProperty("status"));
+        verify(mockDao).saveOrUpdate(eq("audit_log"), eq("audit_log"), captor.capture());
+        assertEquals(3, captor.getValue().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cascadeRule_invalidForeignKeyField_rejected() {
+        CascadeRule.of(EntityType.STATEMENT, Status.POSTED, EntityType.BANK_TRX,
+                "statement_id = statement_id OR 1", Status.POSTED);
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  15. Multi-hop transitions and route planning
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void transitionPath_writesFinalStatusOnceWithAuditPerHop()
+            throws InvalidTransitionException {
+        mockLoad(EntityType.BANK_TRX, "BT001", "new");
+
+        statusManager.transitionPath(mockDao, EntityType.BANK_TRX, "BT001",
+                Arrays.asList(Status.PROCESSING, Status.ENRICHED), "rows-enrichment", "Enriched");
+
+        verify(mockDao, times(1)).load(anyString(), anyString(), anyString());
+        verifyStatusSaved("bank_total_trx", "enriched");
+        ArgumentCaptor<FormRowSet> captor = ArgumentCaptor.forClass(FormRowSet.class);
+        verify(mockDao).saveOrUpdate(eq("audit_log"), eq("audit_log"), captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertEquals("new", captor.getValue().get(0).getProperty("from_status"));
+        assertEquals("processing", captor.getValue().get(0).getProperty("to_status"));
+        assertEquals("processing", captor.getValue().get(1).getProperty("from_status"));
+        assertEquals("enriched", captor.getValue().get(1).getProperty("to_status"));
+    }
+
+    @Test
+    public void transitionPath_invalidInnerHop_rejectedBeforeLoad() {
+        try {
+            statusManager.transitionPath(mockDao, EntityType.BANK_TRX, "BT001",
+                    Arrays.asList(Status.PROCESSING, Status.POSTED), "test", "Skip ahead");
+            fail("Expected InvalidTransitionException");
+        } catch (InvalidTransitionException expected) {
+            assertEquals(Status.PROCESSING, expected.getFromStatus());
+            assertEquals(Status.POSTED, expected.getToStatus());
+        }
+        verifyNoInteractions(mockDao);
+    }
+
+    @Test
+    public void transitionPath_invalidFirstHop_writesNothing() {
+        mockLoad(EntityType.BANK_TRX, "BT001", "enriched");
+
+        try {
+            statusManager.transitionPath(mockDao, EntityType.BANK_TRX, "BT001",
+                    Arrays.asList(Status.PROCESSING, Status.ENRICHED), "test", "Replay");
+            fail("Expected InvalidTransitionException");
+        } catch (InvalidTransitionException expected) {
+            assertEquals(Status.ENRICHED, expected.getFromStatus());
+        }
+        verify(mockDao, never()).saveOrUpdate(anyString(), anyString(), any(FormRowSet.class));
+    }
+
+    @Test
+    public void shortestPath_followsFewestTransitions() {
+        List<Status> toPosted = statusManager.shortestPath(EntityType.BANK_TRX, Status.NEW, Status.POSTED);
+        assertEquals(Arrays.asList(Status.PROCESSING, Status.ENRICHED), toPosted.subList(0, 2));
+        assertEquals("Via PAIRED or POSTING_READY", 4, toPosted.size());
+        assertEquals(Status.POSTED, toPosted.get(3));
+        assertEquals(Arrays.asList(Status.READY),
+                statusManager.shortestPath(EntityType.ENRICHMENT, Status.ENRICHED, Status.READY));
+        assertEquals(Arrays.asList(Status.NEW),
+                statusManager.shortestPath(EntityType.BANK_TRX, null, Status.NEW));
+        assertTrue(statusManager.shortestPath(EntityType.BANK_TRX, Status.NEW, Status.NEW).isEmpty());
+        assertNull("Terminal", statusManager.shortestPath(EntityType.BANK_TRX, Status.POSTED, Status.NEW));
+    }
+
+    @Test
+    public void shortestPath_everyRouteIsValid() {
+        for (EntityType entityType : EntityType.values()) {
+            for (Status from : Status.values()) {
+                for (Status to : Status.values()) {
+                    List<Status> path = statusManager.shortestPath(entityType, from, to);
+                    assertEquals(entityType + " " + from + " → " + to,
+                            from == to || statusManager.isReachable(entityType, from, to), path != null);
+                    Status current = from;
+                    for (Status hop : path != null ? path : Collections.<Status>emptyList()) {
+                        assertTrue(statusManager.canTransition(entityType, current, hop));
+                        current = hop;
+                    }
+                }
+            }
+        }
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  16. Idempotency keys and same-status no-ops
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void transition_alreadyInTarget_isNoOp() throws InvalidTransitionException {
+        mockLoad(EntityType.BANK_TRX, "BT001", "enriched");
+        List<TransitionResult> seen = new ArrayList<>();
+        statusManager.addTransitionListener(seen::add);
+
+        TransitionResult result = statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.ENRICHED, "rows-enrichment", "Retry", null);
+
+        assertTrue(result.isSuccess());
+        assertEquals(Status.ENRICHED, result.getFromStatus());
+        assertEquals(Status.ENRICHED, result.getToStatus());
+        verify(mockDao, never()).saveOrUpdate(anyString(), anyString(), any(FormRowSet.class));
+        assertTrue(seen.isEmpty());
+    }
+
+    @Test(expected = InvalidTransitionException.class)
+    public void transition_alreadyInTarget_rejectedWhenNoOpDisabled() throws InvalidTransitionException {
+        statusManager.setSameStatusNoOp(false);
+        mockLoad(EntityType.BANK_TRX, "BT001", "enriched");
+
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.ENRICHED, "rows-enrichment", "Retry");
+    }
+
+    @Test
+    public void transitionAll_alreadyInTarget_okWithoutWrite() {
+        mockFind(EntityType.BANK_TRX, createRow("BT001", "processing"), createRow("BT002", "enriched"));
+
+        Map<String, TransitionResult> results = statusManager.transitionAll(mockDao, EntityType.BANK_TRX,
+                Arrays.asList("BT001", "BT002"), Status.ENRICHED, "rows-enrichment", "Batch");
+
+        assertTrue(results.get("BT001").isSuccess());
+        assertTrue(results.get("BT002").isSuccess());
+        assertEquals(Status.ENRICHED, results.get("BT002").getFromStatus());
+        ArgumentCaptor<FormRowSet> captor = ArgumentCaptor.forClass(FormRowSet.class);
+        verify(mockDao).saveOrUpdate(eq("bank_total_trx"), eq("bank_total_trx"), captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals("BT001", captor.getValue().get(0).getId());
+    }
+
+    @Test
+    public void transition_repeatedKey_replaysWithoutDatabase() throws InvalidTransitionException {
+        mockLoad(EntityType.BANK_TRX, "BT001", "processing");
+
+        TransitionResult first = statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.ENRICHED, "rows-enrichment", "Enriched", "req-1");
+        TransitionResult second = statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.ENRICHED, "rows-enrichment", "Enriched", "req-1");
+
+        assertSame(first, second);
+        assertEquals(Status.PROCESSING, second.getFromStatus());
+        verify(mockDao, times(1)).load(anyString(), anyString(), anyString());
+        verify(mockDao, times(1)).saveOrUpdate(eq("bank_total_trx"), anyString(), any(FormRowSet.class));
+        verify(mockDao, times(1)).saveOrUpdate(eq("audit_log"), anyString(), any(FormRowSet.class));
+        assertEquals(1, statusManager.getIdempotencyCache().getReplayCount());
+    }
+
+    @Test
+    public void transition_repeatedKey_replaysInvalidTransition() {
+        mockLoad(EntityType.BANK_TRX, "BT001", "new");
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                        Status.POSTED, "gl-engine", "Post", "req-1");
+                fail("Expected InvalidTransitionException");
+            } catch (InvalidTransitionException expected) {
+                assertEquals(Status.NEW, expected.getFromStatus());
+            }
+        }
+        verify(mockDao, times(1)).load(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void transition_keyIsScopedToRecord() throws InvalidTransitionException {
+        mockLoad(EntityType.BANK_TRX, "BT001", "processing");
+        mockLoad(EntityType.BANK_TRX, "BT002", "processing");
+
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.ENRICHED, "rows-enrichment", "Enriched", "req-1");
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT002",
+                Status.ENRICHED, "rows-enrichment", "Enriched", "req-1");
+
+        verify(mockDao, times(2)).load(anyString(), anyString(), anyString());
+        assertEquals(0, statusManager.getIdempotencyCache().getReplayCount());
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  17. Non-throwing tryTransition and stackless rejections
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void tryTransition_valid_writes() {
+        mockLoad(EntityType.SECU_TRX, "ST001", "unmatched");
+
+        TransitionResult result = statusManager.tryTransition(mockDao, EntityType.SECU_TRX, "ST001",
+                Status.PAIRED, "pairing", "Matched");
+
+        assertTrue(result.isSuccess());
+        assertEquals(Status.UNMATCHED, result.getFromStatus());
+        verifyStatusSaved("secu_total_trx", "paired");
+    }
+
+    @Test
+    public void tryTransition_invalid_returnsResultWithoutWrite() {
+        mockLoad(EntityType.BANK_TRX, "BT001", "new");
+
+        TransitionResult result = statusManager.tryTransition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.POSTED, "gl-engine", "Post");
+
+        assertEquals(TransitionResult.Outcome.INVALID, result.getOutcome());
+        assertEquals(Status.NEW, result.getFromStatus());
+        assertEquals(Status.POSTED, result.getToStatus());
+        verify(mockDao, never()).saveOrUpdate(anyString(), anyString(), any(FormRowSet.class));
+    }
+
+    @Test
+    public void tryTransition_missingRecord_returnsNotFound() {
+        TransitionResult result = statusManager.tryTransition(mockDao, EntityType.BANK_TRX, "BT404",
+                Status.PROCESSING, "rows-enrichment", "Claim");
+
+        assertEquals(TransitionResult.Outcome.NOT_FOUND, result.getOutcome());
+        assertNull(result.getFromStatus());
+    }
+
+    @Test
+    public void tryTransition_groupCommit_returnsInvalid() {
+        statusManager.setGroupCommitter(new GroupCommitter(8, 0));
+        mockFind(EntityType.BANK_TRX, createRow("BT001", "new"));
+
+        TransitionResult result = statusManager.tryTransition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.POSTED, "gl-engine", "Post");
+
+        assertEquals(TransitionResult.Outcome.INVALID, result.getOutcome());
+        assertEquals(Status.NEW, result.getFromStatus());
+    }
+
+    @Test
+    public void transition_stacklessExceptions_omitStackTrace() {
+        statusManager.setStacklessExceptions(true);
+        mockLoad(EntityType.BANK_TRX, "BT001", "new");
+
+        try {
+            statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001",
+                    Status.POSTED, "gl-engine", "Post");
+            fail("Expected InvalidTransitionException");
+        } catch (InvalidTransitionException expected) {
+            assertEquals(0, expected.getStackTrace().length);
+            assertEquals("Invalid transition for BANK_TRX record BT001: new → posted",
+                    expected.getMessage());
+        }
+    }
+
+    @Test
+    public void invalidTransitionException_defaultKeepsStackTrace() {
+        InvalidTransitionException e = new InvalidTransitionException(
+                EntityType.PAIR, "P001", Status.PAIRED, Status.PAIRED);
+        assertTrue(e.getStackTrace().length > 0);
+        assertTrue(e.toString().endsWith("Invalid transition for PAIR record P001: paired → paired"));
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  18. Striped record locks
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void transition_concurrentSameRecord_serialized() throws Exception {
+        AtomicReference<String> stored = new AtomicReference<>("enriched");
+        when(mockDao.load("trx_enrichment", "trx_enrichment", "E001")).thenAnswer(invocation -> {
+            String status = stored.get();
+            Thread.sleep(50);
+            return createRow("E001", status);
+        });
+        doAnswer(invocation -> {
+            FormRowSet rows = invocation.getArgument(2);
+            stored.set(rows.get(0).getProperty("status"));
+            return null;
+        }).when(mockDao).saveOrUpdate(eq("trx_enrichment"), eq("trx_enrichment"), any(FormRowSet.class));
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<TransitionResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                futures.add(pool.submit(() -> statusManager.transition(mockDao, EntityType.ENRICHMENT,
+                        "E001", Status.READY, "test", "Concurrent", null)));
+            }
+            for (Future<TransitionResult> future : futures) {
+                assertTrue(future.get(5, TimeUnit.SECONDS).isSuccess());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // The second caller loads after the first save and finds the record already READY
+        verify(mockDao, times(1)).saveOrUpdate(eq("trx_enrichment"), anyString(), any(FormRowSet.class));
+        verify(mockDao, times(1)).saveOrUpdate(eq("audit_log"), anyString(), any(FormRowSet.class));
+    }
+
+    @Test
+    public void transition_lockTimeout_throwsWithoutWrite() throws Exception {
+        RecordLocks locks = new RecordLocks(16, 20);
+        statusManager.setRecordLocks(locks);
+        mockLoad(EntityType.ENRICHMENT, "E001", "enriched");
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try (RecordLocks.Held held = locks.lock(EntityType.ENRICHMENT, "E001")) {
+            Future<?> future = pool.submit(() -> statusManager.tryTransition(mockDao, EntityType.ENRICHMENT,
+                    "E001", Status.READY, "test", "Blocked"));
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("Expected RecordLockTimeoutException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RecordLockTimeoutException);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        verifyNoInteractions(mockDao);
+    }
+
+    @Test
+    public void listeners_runAfterLockIsReleased() throws Exception {
+        RecordLocks locks = new RecordLocks(16, 20);
+        statusManager.setRecordLocks(locks);
+        mockLoad(EntityType.ENRICHMENT, "E001", "enriched");
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        List<Throwable> failures = new ArrayList<>();
+        statusManager.addTransitionListener(results -> {
+            try {
+                // Another thread can take the stripe while the listener runs
+                pool.submit(() -> locks.lock(EntityType.ENRICHMENT, "E001").close()).get(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                failures.add(e);
+            }
+        });
+
+        try {
+            statusManager.transition(mockDao, EntityType.ENRICHMENT, "E001", Status.READY, "test", "Listener");
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(Collections.emptyList(), failures);
+    }
+
+    @Test
+    public void cascade_childLockedElsewhere_waitsWithoutWrite() throws Exception {
+        RecordLocks locks = new RecordLocks(256, 20);
+        assertNotEquals(locks.stripe(EntityType.STATEMENT, "S001"), locks.stripe(EntityType.BANK_TRX, "BT001"));
+        statusManager.setRecordLocks(locks);
+        statusManager.addCascadeRule(CascadeRule.of(EntityType.STATEMENT, Status.CONSOLIDATED,
+                EntityType.BANK_TRX, "statement_id", Status.PROCESSING).onlyFrom(Status.NEW));
+        mockLoad(EntityType.STATEMENT, "S001", "consolidating");
+        FormRowSet children = new FormRowSet();
+        children.add(createRow("BT001", "new"));
+        when(mockDao.find(eq("bank_total_trx"), eq("bank_total_trx"), anyString(), any(Object[].class),
+                isNull(), isNull(), isNull(), isNull()))
+                .thenReturn(children);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try (RecordLocks.Held held = locks.lock(EntityType.BANK_TRX, "BT001")) {
+            Future<?> future = pool.submit(() -> statusManager.tryTransition(mockDao, EntityType.STATEMENT,
+                    "S001", Status.CONSOLIDATED, "consolidator", "Blocked by child"));
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("Expected RecordLockTimeoutException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RecordLockTimeoutException);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(mockDao, never()).saveOrUpdate(anyString(), anyString(), any(FormRowSet.class));
+
+        // Once released, the retry locks parent and child together and writes both
+        assertTrue(statusManager.tryTransition(mockDao, EntityType.STATEMENT, "S001",
+                Status.CONSOLIDATED, "consolidator", "Unblocked").isSuccess());
+        verify(mockDao).saveOrUpdate(eq("bank_total_trx"), eq("bank_total_trx"), any(FormRowSet.class));
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  19. Async transitions
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void transitionAsync_defaultExecutor_runsOffCallerThread() throws Exception {
+        AtomicReference<String> thread = new AtomicReference<>();
+        when(mockDao.load("trx_enrichment", "trx_enrichment", "E001")).thenAnswer(invocation -> {
+            thread.set(Thread.currentThread().getName());
+            return createRow("E001", "enriched");
+        });
+
+        TransitionResult result = statusManager.transitionAsync(mockDao, EntityType.ENRICHMENT, "E001",
+                Status.READY, "ui", "Fan-out").get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccess());
+        assertTrue(thread.get(), thread.get().startsWith(AsyncExecutors.THREAD_NAME_PREFIX));
+        verifyStatusSaved("trx_enrichment", "ready");
+    }
+
+    @Test
+    public void transitionAsync_fanOut_completesEveryRecord() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            mockLoad(EntityType.ENRICHMENT, "E" + i, i % 10 == 0 ? "new" : "enriched");
+        }
+        List<CompletableFuture<TransitionResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(statusManager.transitionAsync(mockDao, EntityType.ENRICHMENT, "E" + i,
+                    Status.READY, "ui", "Fan-out"));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        int ok = 0;
+        for (CompletableFuture<TransitionResult> future : futures) {
+            ok += future.join().isSuccess() ? 1 : 0;
+        }
+        assertEquals("Records in NEW are INVALID, not exceptional", 45, ok);
+    }
+
+    @Test
+    public void transitionAsync_storeFailure_completesExceptionally() throws Exception {
+        statusManager.setAsyncExecutor(Runnable::run);
+        when(mockDao.load(anyString(), anyString(), anyString())).thenThrow(new RuntimeException("DB down"));
+
+        CompletableFuture<TransitionResult> future = statusManager.transitionAsync(mockDao,
+                EntityType.ENRICHMENT, "E001", Status.READY, "ui", "Fan-out");
+
+        assertTrue(future.isCompletedExceptionally());
+        try {
+            future.get();
+            fail("Expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertEquals("DB down", e.getCause().getMessage());
+        }
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  20. Rate limits and bulkheads
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void tryTransition_overLimit_throttledWithoutDatabase() {
+        TransitionLimiter limiter = new TransitionLimiter(0);
+        TransitionLimiter.Limit limit = limiter.limitTriggeredBy("rows-enrichment", 1, 1, 0);
+        statusManager.setTransitionLimiter(limiter);
+        mockLoad(EntityType.BANK_TRX, "BT001", "processing");
+
+        assertTrue(statusManager.tryTransition(mockDao, EntityType.BANK_TRX, "BT001",
+                Status.ENRICHED, "rows-enrichment", "Enriched").isSuccess());
+        TransitionResult result = statusManager.tryTransition(mockDao, EntityType.BANK_TRX, "BT002",
+                Status.ENRICHED, "rows-enrichment", "Enriched");
+
+        assertEquals(TransitionResult.Outcome.THROTTLED, result.getOutcome());
+        verify(mockDao, never()).load(anyString(), anyString(), eq("BT002"));
+        assertEquals(1, limit.getRejectedCount());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    public void transition_overLimit_throwsThrottled() throws InvalidTransitionException {
+        TransitionLimiter limiter = new TransitionLimiter(0);
+        limiter.limitEntityType(EntityType.BANK_TRX, 1, 1, 0);
+        statusManager.setTransitionLimiter(limiter);
+        mockLoad(EntityType.BANK_TRX, "BT001", "processing");
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001", Status.ENRICHED, "test", "First");
+
+        try {
+            statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001", Status.ERROR, "test", "Second");
+            fail("Expected TransitionThrottledException");
+        } catch (TransitionThrottledException expected) {
+            assertEquals("BT001", expected.getRecordId());
+        }
+    }
+
+    @Test
+    public void transitionAll_overLimit_reportsEveryRecordThrottled() {
+        TransitionLimiter limiter = new TransitionLimiter(0);
+        limiter.limitTriggeredBy("rows-enrichment", 0, 1, 1);
+        statusManager.setTransitionLimiter(limiter);
+
+        try (TransitionLimiter.Permit busy = limiter.acquire(EntityType.BANK_TRX, "rows-enrichment")) {
+            Map<String, TransitionResult> results = statusManager.transitionAll(mockDao, EntityType.BANK_TRX,
+                    Arrays.asList("BT001", "BT002"), Status.ENRICHED, "rows-enrichment", "Batch");
+
+            assertEquals(2, results.size());
+            for (TransitionResult result : results.values()) {
+                assertEquals(TransitionResult.Outcome.THROTTLED, result.getOutcome());
+            }
+        }
+        verifyNoInteractions(mockDao);
+    }
+
+    @Test
+    public void transitionAll_takesOneTokenPerRecord() {
+        TransitionLimiter limiter = new TransitionLimiter(0);
+        TransitionLimiter.Limit limit = limiter.limitTriggeredBy("rows-enrichment", 0.001, 3, 0);
+        statusManager.setTransitionLimiter(limiter);
+        mockFind(EntityType.BANK_TRX, createRow("BT001", "new"), createRow("BT002", "new"),
+                createRow("BT003", "new"), createRow("BT004", "new"));
+
+        // Larger than the burst: admitted from a full bucket, which goes into debt
+        Map<String, TransitionResult> first = statusManager.transitionAll(mockDao, EntityType.BANK_TRX,
+                Arrays.asList("BT001", "BT002", "BT003", "BT004"), Status.PROCESSING, "rows-enrichment", "Batch");
+        assertTrue(first.get("BT004").isSuccess());
+        assertEquals(-1, limit.getAvailableTokens(), 0.01);
+
+        Map<String, TransitionResult> second = statusManager.transitionAll(mockDao, EntityType.BANK_TRX,
+                Arrays.asList("BT005", "BT006"), Status.PROCESSING, "rows-enrichment", "Batch");
+        assertEquals(TransitionResult.Outcome.THROTTLED, second.get("BT005").getOutcome());
+        assertEquals("The rejected batch took no tokens", -1, limit.getAvailableTokens(), 0.01);
+    }
+
+    @Test
+    public void transitionIfCurrent_overLimit_throttledWithoutDatabase() {
+        TransitionLimiter limiter = new TransitionLimiter(0);
+        limiter.limitTriggeredBy("gl-engine", 0, 1, 1);
+        statusManager.setTransitionLimiter(limiter);
+
+        try (TransitionLimiter.Permit busy = limiter.acquire(EntityType.POSTING_OPERATION, "gl-engine")) {
+            TransitionResult result = statusManager.transitionIfCurrent(mockDao, EntityType.POSTING_OPERATION,
+                    "PO001", Status.POSTING, Status.POSTED, "gl-engine", "Posted");
+
+            assertEquals(TransitionResult.Outcome.THROTTLED, result.getOutcome());
+        }
+        verifyNoInteractions(mockDao);
+    }
+
+    @Test(expected = TransitionThrottledException.class)
+    public void claim_overLimit_throwsThrottled() {
+        TransitionLimiter limiter = new TransitionLimiter(0);
+        limiter.limitTriggeredBy("worker-1", 1, 5, 0);
+        statusManager.setTransitionLimiter(limiter);
+        limiter.acquire(EntityType.BANK_TRX, "worker-1").close();
+
+        // The bucket is no longer full and refills far slower than the zero wait
+        statusManager.claim(EntityType.BANK_TRX, Status.NEW, Status.PROCESSING, 10, "worker-1");
+    }
+
+    // ════════════════════════════════════════════════════════════════
+    //  21. Transition metrics
+    // ════════════════════════════════════════════════════════════════
+
+    @Test
+    public void transition_withMetrics_countsEdgeAndTimesPhases() throws Exception {
+        TransitionMetrics metrics = new TransitionMetrics();
+        statusManager.setTransitionMetrics(metrics);
+        mockLoad(EntityType.BANK_TRX, "BT001", "new");
+
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001", Status.PROCESSING, "test", "Go");
+
+        assertEquals(1, metrics.getEdgeCount(EntityType.BANK_TRX, Status.NEW, Status.PROCESSING));
+        for (TransitionMetrics.Phase phase : TransitionMetrics.Phase.values()) {
+            assertEquals(phase.name(), 1, metrics.getLatency(phase).getCount());
+        }
+    }
+
+    @Test
+    public void transition_withMetrics_countsRejectionCause() {
+        TransitionMetrics metrics = new TransitionMetrics();
+        statusManager.setTransitionMetrics(metrics);
+        mockLoad(EntityType.BANK_TRX, "BT001", "new");
+
+        try {
+            statusManager.transition(mockDao, EntityType.BANK_TRX, "BT001", Status.POSTED, "test", "Skip");
+            fail("Expected InvalidTransitionException");
+        } catch (InvalidTransitionException expected) {
+            // counted below
+        }
+        statusManager.tryTransition(mockDao, EntityType.BANK_TRX, "MISSING", Status.PROCESSING, "test", "Go");
+
+        assertEquals(1, metrics.getRejectionCount(EntityType.BANK_TRX, TransitionResult.Outcome.INVALID));
+        assertEquals(1, metrics.getRejectionCount(EntityType.BANK_TRX, TransitionResult.Outcome.NOT_FOUND));
+        assertEquals(0, metrics.getTransitionCount());
+        assertEquals(0, metrics.getLatency(TransitionMetrics.Phase.STATUS_SAVE).getCount());
+    }
+
+    @Test
+    public void transitionAll_withMetrics_countsEveryRecord() {
+        TransitionMetrics metrics = new TransitionMetrics();
+        statusManager.setTransitionMetrics(metrics);
+        mockFind(EntityType.BANK_TRX, createRow("BT001", "new"), createRow("BT002", "new"),
+                createRow("BT003", "posted"));
+
+        statusManager.transitionAll(mockDao, EntityType.BANK_TRX,
+                Arrays.asList("BT001", "BT002", "BT003"), Status.PROCESSING, "test", "Batch");
+
+        assertEquals(2, metrics.getEdgeCount(EntityType.BANK_TRX, Status.NEW, Status.PROCESSING));
+        assertEquals(1, metrics.getRejectionCount(EntityType.BANK_TRX, TransitionResult.Outcome.INVALID));
+    }
+
+    @Test
+    public void transitionPathAndGroupCommit_withMetrics_timeLoadsAndSaves() throws Exception {
+        TransitionMetrics metrics = new TransitionMetrics();
+        statusManager.setTransitionMetrics(metrics);
+        mockLoad(EntityType.BANK_TRX, "BT001", "new");
+        mockFind(EntityType.BANK_TRX, createRow("BT002", "new"));
+
+        statusManager.transitionPath(mockDao, EntityType.BANK_TRX, "BT001",
+                Arrays.asList(Status.PROCESSING, Status.ENRICHED), "rows-enrichment", "Enriched");
+        statusManager.setGroupCommitter(new GroupCommitter());
+        statusManager.transition(mockDao, EntityType.BANK_TRX, "BT002", Status.PROCESSING, "test", "Go");
+
+        assertEquals(2, metrics.getLatency(TransitionMetrics.Phase.LOAD).getCount());
+        assertEquals(2, metrics.getLatency(TransitionMetrics.Phase.STATUS_SAVE).getCount());
+        assertEquals(2, metrics.getLatency(TransitionMetrics.Phase.AUDIT_SAVE).getCount());
+        assertEquals(1, metrics.getLatency(TransitionMetrics.Phase.LOG).getCount());
+    }
+
+    @Test
+    public void setTransitionMetrics_keepsInstalledPersistenceAndSink() {
+        AuditSink sink = (dao, entries) -> { };
+        statusManager.setAuditSink(sink);
+        statusManager.setTransitionMetrics(new TransitionMetrics());
+
+        assertSame(sink, statusManager.getAuditSink());
+        assertFalse(statusManager.getStatusPersistence() instanceof TimedStatusPersistence);
+    }
+
     // ── Helpers ─────────────────────────────────────────────────────
 
     /**
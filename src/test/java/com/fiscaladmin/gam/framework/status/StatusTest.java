@@ -2,6 +2,8 @@ package com.fiscaladmin.gam.framework.status;
 
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.Assert.*;
 
 /**
@@ -83,6 +85,62 @@ public class StatusTest {
         Status.fromCode("");
     }
 
+    // ── CharSequence / byte[] / non-throwing lookups ───────────────
+
+    @Test
+    public void fromCode_everyStatus_roundTripsInAllForms() {
+        for (Status status : Status.values()) {
+            String upper = status.getCode().toUpperCase();
+            assertEquals(status, Status.fromCode(upper));
+            assertEquals(status, Status.fromCode(new StringBuilder(status.getCode())));
+            byte[] bytes = ("[" + upper + "]").getBytes(StandardCharsets.US_ASCII);
+            assertEquals(status, Status.fromCode(bytes, 1, bytes.length - 2));
+        }
+    }
+
+    @Test
+    public void fromCode_byteSliceOfLongerCode_doesNotMatch() {
+        byte[] bytes = "posting_ready".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(Status.POSTING, Status.fromCode(bytes, 0, 7));
+        assertNull(Status.fromCodeOrDefault(bytes, 0, 8, null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromCode_unknownBytes_throws() {
+        byte[] bytes = "nonexistent".getBytes(StandardCharsets.US_ASCII);
+        Status.fromCode(bytes, 0, bytes.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromCode_nullBytes_throws() {
+        Status.fromCode(null, 0, 0);
+    }
+
+    @Test
+    public void codeTable_triesEveryMultiplierBeforeGrowing() {
+        assertTrue("table size " + Status.codeTableSize(), Status.codeTableSize() < 4096);
+    }
+
+    @Test
+    public void fromCodeOrDefault_unknownOrNull_returnsDefault() {
+        assertNull(Status.fromCodeOrDefault("nonexistent", null));
+        assertEquals(Status.ERROR, Status.fromCodeOrDefault("nonexistent", Status.ERROR));
+        assertEquals(Status.ERROR, Status.fromCodeOrDefault((CharSequence) null, Status.ERROR));
+        assertEquals(Status.ERROR, Status.fromCodeOrDefault(null, 0, 0, Status.ERROR));
+        assertNull(Status.fromCodeOrDefault("", null));
+    }
+
+    @Test
+    public void fromCodeOrDefault_knownCode_ignoresDefault() {
+        assertEquals(Status.IN_REVIEW, Status.fromCodeOrDefault("In_Review", Status.ERROR));
+    }
+
+    @Test
+    public void fromCode_nonAsciiLookalike_doesNotMatch() {
+        // Dotted capital I lower-cases to "i̇" under some locales; must not match "in_review"
+        assertNull(Status.fromCodeOrDefault("\u0130N_REVIEW", null));
+    }
+
     // ── getCode() returns lowercase DB value ────────────────────────
 
     @Test
@@ -0,0 +1,111 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TransitionLimiterTest {
+
+    @Test
+    public void acquire_beyondBurst_failsFast() {
+        TransitionLimiter limiter = new TransitionLimiter(0);
+        TransitionLimiter.Limit limit = limiter.limitTriggeredBy("rows-enrichment", 1, 2, 0);
+
+        assertTrue(limiter.acquire(EntityType.BANK_TRX, "rows-enrichment").isGranted());
+        assertTrue(limiter.acquire(EntityType.BANK_TRX, "rows-enrichment").isGranted());
+        TransitionLimiter.Permit third = limiter.acquire(EntityType.BANK_TRX, "rows-enrichment");
+
+        assertFalse(third.isGranted());
+        assertSame(limit, third.getRejectedBy());
+        assertEquals(2, limit.getAdmittedCount());
+        assertEquals(1, limit.getRejectedCount());
+        assertTrue("Other plugins are not limited",
+                limiter.acquire(EntityType.BANK_TRX, "statement-importer").isGranted());
+    }
+
+    @Test
+    public void acquire_withMaxWait_waitsForNextToken() {
+        TransitionLimiter limiter = new TransitionLimiter(1_000);
+        limiter.limitEntityType(EntityType.BANK_TRX, 20, 1, 0);
+
+        limiter.acquire(EntityType.BANK_TRX, "gl-engine").close();
+        long start = System.nanoTime();
+        TransitionLimiter.Permit second = limiter.acquire(EntityType.BANK_TRX, "gl-engine");
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(second.isGranted());
+        assertTrue("Waited " + waitedMillis + "ms for a token at 20/s", waitedMillis >= 30);
+    }
+
+    @Test
+    public void acquire_inFlightCap_actsAsBulkhead() {
+        TransitionLimiter limiter = new TransitionLimiter(0);
+        TransitionLimiter.Limit limit = limiter.limitTriggeredBy("rows-enrichment", 0, 1, 1);
+
+        TransitionLimiter.Permit first = limiter.acquire(EntityType.ENRICHMENT, "rows-enrichment");
+        assertEquals(1, limit.getInFlight());
+        assertFalse(limiter.acquire(EntityType.ENRICHMENT, "rows-enrichment").isGranted());
+
+        first.close();
+        assertEquals(0, limit.getInFlight());
+        assertTrue(limiter.acquire(EntityType.ENRICHMENT, "rows-enrichment").isGranted());
+    }
+
+    @Test
+    public void acquire_entityTypeRejection_releasesPluginSlot() {
+        TransitionLimiter limiter = new TransitionLimiter(0);
+        TransitionLimiter.Limit plugin = limiter.limitTriggeredBy("rows-enrichment", 0, 1, 5);
+        TransitionLimiter.Limit entity = limiter.limitEntityType(EntityType.ENRICHMENT, 0, 1, 1);
+
+        TransitionLimiter.Permit held = limiter.acquire(EntityType.ENRICHMENT, "statement-importer");
+        TransitionLimiter.Permit rejected = limiter.acquire(EntityType.ENRICHMENT, "rows-enrichment");
+
+        assertSame(entity, rejected.getRejectedBy());
+        assertEquals(0, plugin.getInFlight());
+        held.close();
+        assertEquals(0, entity.getInFlight());
+        assertEquals(2, limiter.getLimits().size());
+    }
+
+    @Test
+    public void acquire_rejectedByBulkheadOrOtherLimit_refundsToken() {
+        TransitionLimiter limiter = new TransitionLimiter(0);
+        TransitionLimiter.Limit plugin = limiter.limitTriggeredBy("rows-enrichment", 0.001, 2, 1);
+        TransitionLimiter.Limit entity = limiter.limitEntityType(EntityType.BANK_TRX, 0, 1, 1);
+
+        TransitionLimiter.Permit held = limiter.acquire(EntityType.ENRICHMENT, "rows-enrichment");
+        assertFalse("Bulkhead full", limiter.acquire(EntityType.ENRICHMENT, "rows-enrichment").isGranted());
+        assertEquals(1, plugin.getAvailableTokens(), 0.01);
+        held.close();
+
+        TransitionLimiter.Permit entityHeld = limiter.acquire(EntityType.BANK_TRX, "statement-importer");
+        assertSame(entity, limiter.acquire(EntityType.BANK_TRX, "rows-enrichment").getRejectedBy());
+        assertEquals(1, plugin.getAvailableTokens(), 0.01);
+        assertEquals(1, plugin.getAdmittedCount());
+        entityHeld.close();
+    }
+
+    @Test
+    public void acquire_severalTokens_takesThemAllOrNone() {
+        TransitionLimiter limiter = new TransitionLimiter(0);
+        TransitionLimiter.Limit limit = limiter.limitEntityType(EntityType.BANK_TRX, 0.001, 10, 0);
+
+        assertTrue(limiter.acquire(EntityType.BANK_TRX, "rows-enrichment", 6).isGranted());
+        assertFalse(limiter.acquire(EntityType.BANK_TRX, "rows-enrichment", 6).isGranted());
+        assertEquals(4, limit.getAvailableTokens(), 0.01);
+        assertTrue(limiter.acquire(EntityType.BANK_TRX, "rows-enrichment", 4).isGranted());
+    }
+
+    @Test
+    public void acquire_moreThanBurst_admittedFromFullBucketOnly() {
+        TransitionLimiter limiter = new TransitionLimiter(0);
+        TransitionLimiter.Limit limit = limiter.limitEntityType(EntityType.BANK_TRX, 0.001, 5, 0);
+
+        assertTrue(limiter.acquire(EntityType.BANK_TRX, "rows-enrichment", 8).isGranted());
+        assertEquals(-3, limit.getAvailableTokens(), 0.01);
+        assertFalse(limiter.acquire(EntityType.BANK_TRX, "rows-enrichment", 8).isGranted());
+        assertFalse(limiter.acquire(EntityType.BANK_TRX, "rows-enrichment", 1).isGranted());
+    }
+}
@@ -0,0 +1,72 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TransitionMetricsTest {
+
+    @Test
+    public void recordTransitions_countsPerEdge() {
+        TransitionMetrics metrics = new TransitionMetrics();
+
+        metrics.recordTransitions(Arrays.asList(
+                TransitionResult.ok(EntityType.BANK_TRX, "BT001", Status.NEW, Status.PROCESSING),
+                TransitionResult.ok(EntityType.BANK_TRX, "BT002", Status.NEW, Status.PROCESSING),
+                TransitionResult.ok(EntityType.EXCEPTION, "EX001", null, Status.OPEN)));
+
+        assertEquals(2, metrics.getEdgeCount(EntityType.BANK_TRX, Status.NEW, Status.PROCESSING));
+        assertEquals(1, metrics.getEdgeCount(EntityType.EXCEPTION, null, Status.OPEN));
+        assertEquals(0, metrics.getEdgeCount(EntityType.STATEMENT, Status.NEW, Status.PROCESSING));
+        assertEquals(3, metrics.getTransitionCount());
+        Map<String, Long> edges = metrics.getEdgeCounts();
+        assertEquals(Long.valueOf(2), edges.get("BANK_TRX:new->processing"));
+        assertEquals(Long.valueOf(1), edges.get("EXCEPTION:null->open"));
+        assertEquals(2, edges.size());
+    }
+
+    @Test
+    public void recordRejection_countsPerCauseAndIgnoresSuccess() {
+        TransitionMetrics metrics = new TransitionMetrics();
+
+        metrics.recordRejection(TransitionResult.invalid(EntityType.PAIR, "P001", Status.CONFIRMED, Status.PAIRED));
+        metrics.recordRejection(TransitionResult.notFound(EntityType.PAIR, "P002", Status.CONFIRMED));
+        metrics.recordRejection(TransitionResult.ok(EntityType.PAIR, "P003", Status.PENDING_REVIEW, Status.CONFIRMED));
+
+        assertEquals(1, metrics.getRejectionCount(EntityType.PAIR, TransitionResult.Outcome.INVALID));
+        assertEquals(1, metrics.getRejectionCount(EntityType.PAIR, TransitionResult.Outcome.NOT_FOUND));
+        assertEquals(2, metrics.getRejectionCount());
+        assertEquals(Long.valueOf(1), metrics.getRejectionCounts().get("PAIR:INVALID"));
+    }
+
+    @Test
+    public void registerMBean_exposesSnapshotsOverJmx() throws Exception {
+        TransitionMetrics metrics = new TransitionMetrics();
+        metrics.recordTransitions(Arrays.asList(
+                TransitionResult.ok(EntityType.BANK_TRX, "BT001", Status.NEW, Status.PROCESSING)));
+        metrics.record(TransitionMetrics.Phase.LOAD, System.nanoTime() - 5_000);
+
+        ObjectName name = metrics.registerMBean(TransitionMetrics.OBJECT_NAME + ",name=test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1L, server.getAttribute(name, "TransitionCount"));
+            TabularData edges = (TabularData) server.getAttribute(name, "EdgeCounts");
+            assertEquals(1, edges.size());
+            TabularData latencies = (TabularData) server.getAttribute(name, "PhaseLatencies");
+            CompositeData load = (CompositeData) latencies.get(new Object[]{"LOAD"}).get("value");
+            assertEquals(1L, load.get("count"));
+            assertTrue((Long) load.get("p50") >= 5_000);
+        } finally {
+            metrics.unregisterMBean();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
@@ -0,0 +1,146 @@
+package com.fiscaladmin.gam.framework.status;
+
+import com.fiscaladmin.gam.framework.status.TransitionScheduler.Priority;
+import org.joget.apps.form.dao.FormDataDao;
+import org.joget.apps.form.model.FormRow;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class TransitionSchedulerTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private Supplier<String> task(String name, CountDownLatch release) {
+        return () -> {
+            started.add(name);
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return name;
+        };
+    }
+
+    @Test
+    public void priorityOf_operatorIsInteractive() {
+        TransitionScheduler scheduler = new TransitionScheduler(new StatusManager());
+        assertEquals(Priority.INTERACTIVE, scheduler.priorityOf("OPERATOR"));
+        assertEquals(Priority.BULK, scheduler.priorityOf("statement-importer"));
+        assertEquals(Priority.BULK, scheduler.priorityOf(null));
+    }
+
+    @Test
+    public void submit_bulkLimitedToUnreservedSlots() throws Exception {
+        TransitionScheduler scheduler = new TransitionScheduler(new StatusManager(), 3, 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<CompletableFuture<String>> bulk = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            bulk.add(scheduler.submit(Priority.BULK, executor, task("bulk" + i, release)));
+        }
+        assertEquals(2, scheduler.getRunning(Priority.BULK));
+        assertEquals(3, scheduler.getQueued(Priority.BULK));
+
+        // The reserved slot is still free for an operator
+        CompletableFuture<String> interactive =
+                scheduler.submit(Priority.INTERACTIVE, executor, task("operator", release));
+        assertEquals(1, scheduler.getRunning(Priority.INTERACTIVE));
+        assertEquals(0, scheduler.getQueued(Priority.INTERACTIVE));
+
+        release.countDown();
+        assertEquals("operator", interactive.get(5, TimeUnit.SECONDS));
+        for (CompletableFuture<String> future : bulk) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(0, scheduler.getRunning(Priority.BULK));
+        assertEquals(0, scheduler.getRunning(Priority.INTERACTIVE));
+    }
+
+    @Test
+    public void submit_queuedInteractiveStartsBeforeQueuedBulk() throws Exception {
+        TransitionScheduler scheduler = new TransitionScheduler(new StatusManager(), 1, 0);
+        CountDownLatch first = new CountDownLatch(1);
+        CountDownLatch rest = new CountDownLatch(0);
+
+        CompletableFuture<String> running = scheduler.submit(Priority.BULK, executor, task("bulk0", first));
+        CompletableFuture<String> bulk = scheduler.submit(Priority.BULK, executor, task("bulk1", rest));
+        CompletableFuture<String> interactive =
+                scheduler.submit(Priority.INTERACTIVE, executor, task("operator", rest));
+        assertEquals(1, scheduler.getQueued(Priority.BULK));
+        assertEquals(1, scheduler.getQueued(Priority.INTERACTIVE));
+
+        first.countDown();
+        CompletableFuture.allOf(running, bulk, interactive).get(5, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("bulk0", "operator", "bulk1"), started);
+    }
+
+    @Test
+    public void run_waitsForSlotOnCallerThread() throws Exception {
+        TransitionScheduler scheduler = new TransitionScheduler(new StatusManager(), 1, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> blocking = scheduler.submit(Priority.BULK, executor, task("bulk", release));
+
+        CompletableFuture<String> caller = CompletableFuture.supplyAsync(
+                () -> scheduler.run(Priority.INTERACTIVE, () -> Thread.currentThread().getName()), executor);
+        Thread.sleep(50);
+        assertFalse("No slot until the bulk task finishes", caller.isDone());
+        assertEquals(1, scheduler.getQueued(Priority.INTERACTIVE));
+
+        release.countDown();
+        blocking.get(5, TimeUnit.SECONDS);
+        assertNotNull(caller.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void submit_failure_completesExceptionallyAndFreesSlot() throws Exception {
+        TransitionScheduler scheduler = new TransitionScheduler(new StatusManager(), 1, 0);
+
+        CompletableFuture<String> failed = scheduler.submit(Priority.BULK, executor, () -> {
+            throw new StatusStoreException("Connection refused", null);
+        });
+        try {
+            failed.get(5, TimeUnit.SECONDS);
+            fail("Expected failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof StatusStoreException);
+        }
+        assertEquals("next", scheduler.run(Priority.BULK, () -> "next"));
+    }
+
+    @Test
+    public void tryTransition_delegatesToManager() {
+        FormDataDao dao = mock(FormDataDao.class);
+        FormRow row = new FormRow();
+        row.setProperty("status", "pending_review");
+        when(dao.load("trx_pair", "trx_pair", "P001")).thenReturn(row);
+        TransitionScheduler scheduler = new TransitionScheduler(new StatusManager());
+
+        TransitionResult result = scheduler.tryTransition(dao, EntityType.PAIR, "P001",
+                Status.CONFIRMED, TransitionScheduler.OPERATOR, "Confirmed");
+
+        assertTrue(result.isSuccess());
+        assertEquals(0, scheduler.getRunning(Priority.INTERACTIVE));
+    }
+}
@@ -0,0 +1,73 @@
+package com.fiscaladmin.gam.framework.status;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TransitionTable} — the compiled form must agree with the
+ * transition map for every (entity, from, to) combination.
+ */
+public class TransitionTableTest {
+
+    private final StatusManager statusManager = new StatusManager();
+
+    @Test
+    public void canTransition_matchesTransitionMapExhaustively() {
+        Map<EntityType, Map<Status, Set<Status>>> map = StatusManager.getTransitionMap();
+        for (EntityType entityType : EntityType.values()) {
+            for (Status from : Status.values()) {
+                Set<Status> expected = map.get(entityType).getOrDefault(from, Collections.emptySet());
+                for (Status to : Status.values()) {
+                    assertEquals(entityType + " " + from + " → " + to,
+                            expected.contains(to), statusManager.canTransition(entityType, from, to));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void canTransition_nullFrom_matchesInitialStatuses() {
+        Map<EntityType, Set<Status>> initial = StatusManager.getInitialStatuses();
+        for (EntityType entityType : EntityType.values()) {
+            for (Status to : Status.values()) {
+                assertEquals(entityType + " null → " + to,
+                        initial.get(entityType).contains(to),
+                        statusManager.canTransition(entityType, null, to));
+            }
+        }
+    }
+
+    @Test
+    public void getValidTransitions_matchesTransitionMapExhaustively() {
+        Map<EntityType, Map<Status, Set<Status>>> map = StatusManager.getTransitionMap();
+        for (EntityType entityType : EntityType.values()) {
+            for (Status from : Status.values()) {
+                Set<Status> expected = map.get(entityType).getOrDefault(from, Collections.emptySet());
+                assertEquals(entityType + " " + from, expected,
+                        statusManager.getValidTransitions(entityType, from));
+            }
+        }
+    }
+
+    @Test
+    public void initialStatuses_coverEveryEntityType() {
+        assertEquals(EntityType.values().length, StatusManager.getInitialStatuses().size());
+    }
+
+    @Test
+    public void getValidTransitions_returnsSharedInstance() {
+        Set<Status> first = statusManager.getValidTransitions(EntityType.BANK_TRX, Status.PROCESSING);
+        Set<Status> second = statusManager.getValidTransitions(EntityType.BANK_TRX, Status.PROCESSING);
+        assertSame(first, second);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getValidTransitions_isUnmodifiable() {
+        statusManager.getValidTransitions(EntityType.BANK_TRX, Status.PROCESSING).add(Status.POSTED);
+    }
+}